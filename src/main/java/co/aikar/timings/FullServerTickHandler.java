@@ -98,7 +98,7 @@ public void stopTiming() {
             this.minuteData.reset();
         }
         if (TimingHistory.timedTicks % Timings.getHistoryInterval() == 0) {
-            TimingsManager.HISTORY.add(new TimingHistory());
+            TimingsManager.HISTORY.add(new TimingHistory(false));
             TimingsManager.resetTimings();
         }
     }
@@ -46,6 +46,7 @@ public class SpongeTimingsFactory implements TimingsFactory {
     private boolean verboseEnabled = false;
     private int historyInterval = -1;
     private int historyLength = -1;
+    private int historyMaxEntries = 8192;
     private final boolean moduleEnabled;
 
     public SpongeTimingsFactory() {
@@ -56,13 +57,15 @@ public void init() {
         TimingsCategory config = SpongeImpl.getGlobalConfig().getConfig().getTimings();
         setVerboseTimingsEnabled(config.isVerbose());
         setTimingsEnabled(this.moduleEnabled && config.isEnabled());
+        this.historyMaxEntries = Math.max(1, config.getHistoryMaxEntries());
         setHistoryInterval(config.getHistoryInterval());
         setHistoryLength(config.getHistoryLength());
 
         SpongeImpl.getLogger().debug("Sponge Timings: " + this.timingsEnabled +
                                     " - Verbose: " + this.verboseEnabled +
                                     " - Interval: " + timeSummary(this.historyInterval / 20) +
-                                    " - Length: " + timeSummary(this.historyLength / 20));
+                                    " - Length: " + timeSummary(this.historyLength / 20) +
+                                    " - History memory: " + TimingsManager.HISTORY_BUFFER.getReservedBytes() / 1024 + " KB");
     }
 
     private static String timeSummary(int seconds) {
@@ -162,6 +165,20 @@ public void setHistoryLength(int length) {
         }
         TimingsManager.HISTORY = EvictingQueue.create(frames);
         TimingsManager.HISTORY.addAll(oldQueue);
+        // Frames already recorded keep the buffer they were written to
+        TimingHistoryBuffer buffer = TimingsManager.HISTORY_BUFFER;
+        if (buffer == null || buffer.getFrames() != frames || buffer.getMaxEntries() != this.historyMaxEntries) {
+            TimingsManager.HISTORY_BUFFER = new TimingHistoryBuffer(frames, this.historyMaxEntries);
+        }
+    }
+
+    /**
+     * Gets the buffer holding the timing history.
+     *
+     * @return The history buffer
+     */
+    public static TimingHistoryBuffer getHistoryBuffer() {
+        return TimingsManager.HISTORY_BUFFER;
     }
 
     @Override
@@ -24,9 +24,9 @@
  */
 package co.aikar.timings;
 
-import co.aikar.util.JSONUtil;
-import com.google.gson.JsonArray;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.function.Function;
 
 /**
@@ -44,12 +44,12 @@ public TimingData apply(Integer input) {
     };
     private int id;
     int count = 0;
-    private int lagCount = 0;
+    int lagCount = 0;
     long totalTime = 0;
-    private long lagTotalTime = 0;
+    long lagTotalTime = 0;
 
     int curTickCount = 0;
-    int curTickTotal = 0;
+    long curTickTotal = 0;
 
     TimingData(int id) {
         this.id = id;
@@ -68,6 +68,11 @@ void add(long diff) {
         this.curTickTotal += diff;
     }
 
+    void add(TimingData data) {
+        this.curTickCount += data.curTickCount;
+        this.curTickTotal += data.curTickTotal;
+    }
+
     void processTick(boolean violated) {
         this.totalTime += this.curTickTotal;
         this.count += this.curTickCount;
@@ -93,16 +98,16 @@ protected TimingData clone() {
         return new TimingData(this);
     }
 
-    public JsonArray export() {
-        JsonArray array = JSONUtil.arrayOf(
-                this.id,
-                this.count,
-                this.totalTime);
+    void write(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        writeValues(writer);
+        writer.endArray();
+    }
+
+    void writeValues(JsonWriter writer) throws IOException {
+        writer.value(this.id).value(this.count).value(this.totalTime);
         if (this.lagCount > 0) {
-            array.addAll(JSONUtil.arrayOf(
-                    this.lagCount,
-                    this.lagTotalTime));
+            writer.value(this.lagCount).value(this.lagTotalTime);
         }
-        return array;
     }
 }
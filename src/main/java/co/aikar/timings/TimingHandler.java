@@ -27,13 +27,20 @@
 import co.aikar.util.LoadingIntMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import net.minecraft.server.MinecraftServer;
-import org.spongepowered.common.SpongeImpl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 class TimingHandler implements Timing {
 
+    private static final String ASYNC_GROUP_SUFFIX = " (async)";
     private static int idPool = 1;
     final int id = idPool++;
 
+    final String group;
     final String name;
     private final boolean verbose;
 
@@ -49,6 +56,20 @@ class TimingHandler implements Timing {
     boolean enabled;
     private TimingHandler parent;
 
+    // Whether this handler records the samples of another handler taken off
+    // the main thread
+    private final boolean async;
+    // The handler recording the samples taken off the main thread, created
+    // on the main thread when the first samples are merged
+    private TimingHandler asyncHandler;
+    // Samples taken off the main thread since the last tick, guarded by
+    // pendingRecord and merged into the async handler on the main thread.
+    // The children are keyed by their handler on the main thread, as their
+    // async handlers may not exist yet.
+    private final TimingData pendingRecord;
+    private final Map<TimingHandler, TimingData> pendingChildren = new HashMap<>();
+    private boolean pendingQueued;
+
     TimingHandler(TimingIdentifier id) {
         if (id.name.startsWith("##")) {
             this.verbose = true;
@@ -58,7 +79,10 @@ class TimingHandler implements Timing {
             this.verbose = false;
         }
 
+        this.group = id.group;
+        this.async = id.group.endsWith(ASYNC_GROUP_SUFFIX);
         this.record = new TimingData(this.id);
+        this.pendingRecord = new TimingData(this.id);
         this.groupHandler = id.groupHandler;
 
         TimingIdentifier.getGroup(id.group).handlers.add(this);
@@ -82,23 +106,27 @@ void processTick(boolean violated) {
         }
     }
 
+    // Timings work on any thread now, async samples go to the async groups
     @Override
     public void startTimingIfSync() {
-        if (MinecraftServer.getServer().isCallingFromMinecraftThread()) {
-            startTiming();
-        }
+        startTiming();
     }
 
     @Override
     public void stopTimingIfSync() {
-        if (MinecraftServer.getServer().isCallingFromMinecraftThread()) {
-            stopTiming();
-        }
+        stopTiming();
     }
 
     @Override
     public TimingHandler startTiming() {
-        if (this.enabled && ++this.timingDepth == 1) {
+        if (!this.enabled) {
+            return this;
+        }
+        if (!MinecraftServer.getServer().isCallingFromMinecraftThread()) {
+            startTimingAsync();
+            return this;
+        }
+        if (++this.timingDepth == 1) {
             this.start = System.nanoTime();
             this.parent = TimingsManager.CURRENT;
             TimingsManager.CURRENT = this;
@@ -108,18 +136,137 @@ public TimingHandler startTiming() {
 
     @Override
     public void stopTiming() {
-        if (this.enabled && --this.timingDepth == 0 && this.start != 0) {
-            if (!MinecraftServer.getServer().isCallingFromMinecraftThread()) {
-                SpongeImpl.getLogger().fatal("stopTiming called async for " + this.name);
-                new Throwable().printStackTrace();
-                this.start = 0;
-                return;
-            }
+        if (!this.enabled) {
+            return;
+        }
+        if (!MinecraftServer.getServer().isCallingFromMinecraftThread()) {
+            stopTimingAsync();
+            return;
+        }
+        if (--this.timingDepth == 0 && this.start != 0) {
             addDiff(System.nanoTime() - this.start);
             this.start = 0;
         }
     }
 
+    private void startTimingAsync() {
+        final ArrayDeque<AsyncTiming> stack = TimingsManager.ASYNC_STACK.get();
+        final AsyncTiming current = stack.peek();
+        if (current != null && current.handler == this) {
+            current.depth++;
+        } else {
+            stack.push(new AsyncTiming(this, System.nanoTime()));
+        }
+    }
+
+    private void stopTimingAsync() {
+        final ArrayDeque<AsyncTiming> stack = TimingsManager.ASYNC_STACK.get();
+        AsyncTiming current = stack.peek();
+        if (current == null || current.handler != this) {
+            if (stack.stream().noneMatch(timing -> timing.handler == this)) {
+                return;
+            }
+            // Timings started after this one that were never stopped are
+            // dropped
+            while (stack.peek().handler != this) {
+                stack.pop();
+            }
+            current = stack.peek();
+        }
+        if (--current.depth > 0) {
+            return;
+        }
+        stack.pop();
+        final AsyncTiming parent = stack.peek();
+        addAsyncDiff(System.nanoTime() - current.start, parent == null ? null : parent.handler);
+    }
+
+    /**
+     * Gets the handler recording the samples of this handler taken off the
+     * main thread, in a separate group so they are reported apart from the
+     * work of the main thread. Only called on the main thread, as creating a
+     * handler registers it in the groups.
+     *
+     * @return The async handler
+     */
+    private TimingHandler getAsyncHandler() {
+        if (this.async) {
+            return this;
+        }
+        if (this.asyncHandler == null) {
+            this.asyncHandler = TimingsManager.getHandler(this.group + ASYNC_GROUP_SUFFIX, this.name,
+                    this.groupHandler == null ? null : this.groupHandler.getAsyncHandler(), false);
+        }
+        return this.asyncHandler;
+    }
+
+    /**
+     * Adds a sample taken off the main thread, merged into the async handler
+     * on the next tick.
+     */
+    private void addAsyncDiff(long diff, TimingHandler parent) {
+        synchronized (this.pendingRecord) {
+            this.pendingRecord.add(diff);
+            queuePending();
+        }
+        if (parent != null) {
+            synchronized (parent.pendingRecord) {
+                TimingData data = parent.pendingChildren.get(this);
+                if (data == null) {
+                    data = new TimingData(this.id);
+                    parent.pendingChildren.put(this, data);
+                }
+                data.add(diff);
+                parent.queuePending();
+            }
+        }
+    }
+
+    private void queuePending() {
+        if (!this.pendingQueued) {
+            this.pendingQueued = true;
+            TimingsManager.ASYNC_PENDING.add(this);
+        }
+    }
+
+    /**
+     * Merges the samples taken off the main thread since the last tick, only
+     * called on the main thread.
+     */
+    void mergeAsync() {
+        final TimingData record;
+        final List<Map.Entry<TimingHandler, TimingData>> children;
+        synchronized (this.pendingRecord) {
+            this.pendingQueued = false;
+            record = new TimingData(this.id);
+            record.add(this.pendingRecord);
+            this.pendingRecord.curTickCount = 0;
+            this.pendingRecord.curTickTotal = 0;
+            children = new ArrayList<>(this.pendingChildren.entrySet());
+            this.pendingChildren.clear();
+        }
+        final TimingHandler handler = getAsyncHandler();
+        if (record.curTickCount > 0) {
+            handler.addData(record);
+        }
+        for (Map.Entry<TimingHandler, TimingData> entry : children) {
+            handler.children.get(entry.getKey().getAsyncHandler().id).add(entry.getValue());
+        }
+    }
+
+    private void addData(TimingData data) {
+        this.record.add(data);
+        if (!this.added) {
+            this.added = true;
+            this.timed = true;
+            TimingsManager.HANDLERS.add(this);
+        }
+        if (this.groupHandler != null) {
+            this.groupHandler.addData(data);
+            this.groupHandler.children.get(this.id).add(data);
+        }
+    }
+
     @Override
     public void abort() {
         if (this.enabled && this.timingDepth > 0) {
@@ -160,6 +307,10 @@ void reset(boolean full) {
         this.timingDepth = 0;
         this.added = false;
         this.children.clear();
+        synchronized (this.pendingRecord) {
+            this.pendingRecord.reset();
+            this.pendingChildren.clear();
+        }
         checkEnabled();
     }
 
@@ -186,4 +337,19 @@ public boolean isSpecial() {
         return this == TimingsManager.FULL_SERVER_TICK || this == TimingsManager.TIMINGS_TICK;
     }
 
+    /**
+     * A timing started off the main thread, kept on the stack of its thread.
+     */
+    static final class AsyncTiming {
+
+        final TimingHandler handler;
+        final long start;
+        int depth = 1;
+
+        AsyncTiming(TimingHandler handler, long start) {
+            this.handler = handler;
+            this.start = start;
+        }
+    }
+
 }
@@ -32,8 +32,8 @@
 import co.aikar.util.MRUMapCache;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import net.minecraft.block.Block;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.block.tileentity.TileEntity;
@@ -43,6 +43,7 @@
 import org.spongepowered.common.SpongeImpl;
 import org.spongepowered.common.entity.SpongeEntityType;
 
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.Collection;
 import java.util.Map;
@@ -66,12 +67,19 @@ public class TimingHistory {
     final long totalTime;
     final MinuteReport[] minuteReports;
 
-    final TimingHistoryEntry[] entries;
+    final TimingHistoryBuffer buffer;
+    final TimingHistoryBuffer.Frame frame;
     final Set<BlockType> blockTypeSet = Sets.newHashSet();
     final Set<EntityType> entityTypeSet = Sets.newHashSet();
     final JsonObject worlds;
 
-    TimingHistory() {
+    /**
+     * Records the data of all handlers into the history buffer.
+     *
+     * @param current Whether this is the snapshot of the current data for a
+     *     report, instead of a history frame
+     */
+    TimingHistory(boolean current) {
         this.endTime = System.currentTimeMillis() / 1000;
         this.startTime = TimingsManager.historyStart / 1000;
         if (timedTicks % 1200 != 0 || MINUTE_REPORTS.isEmpty()) {
@@ -86,12 +94,8 @@ public class TimingHistory {
         }
         this.totalTicks = ticks;
         this.totalTime = FULL_SERVER_TICK.record.totalTime;
-        this.entries = new TimingHistoryEntry[TimingsManager.HANDLERS.size()];
-
-        int i = 0;
-        for (TimingHandler handler : TimingsManager.HANDLERS) {
-            this.entries[i++] = new TimingHistoryEntry(handler);
-        }
+        this.buffer = TimingsManager.HISTORY_BUFFER;
+        this.frame = this.buffer.record(TimingsManager.HANDLERS, current);
 
         final Map<EntityType, Counter> entityCounts = MRUMapCache.of(LoadingMap.of(Maps.newHashMap(), Counter.loader()));
         final Map<BlockType, Counter> tileEntityCounts = MRUMapCache.of(LoadingMap.of(Maps.newHashMap(), Counter.loader()));
@@ -144,16 +148,28 @@ public static void resetTicks(boolean fullReset) {
         activatedEntityTicks = 0;
     }
 
-    JsonObject export() {
-        return JSONUtil.objectBuilder()
-                .add("s", this.startTime)
-                .add("e", this.endTime)
-                .add("tk", this.totalTicks)
-                .add("tm", this.totalTime)
-                .add("w", this.worlds)
-                .add("h", JSONUtil.mapArray(this.entries, (entry) -> entry.data.count == 0 ? null : entry.export()))
-                .add("mp", JSONUtil.mapArray(this.minuteReports, MinuteReport::export))
-                .build();
+    /**
+     * Writes this history frame to the given writer.
+     *
+     * @param writer The writer to write to
+     * @throws IOException If writing fails
+     */
+    void write(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("s").value(this.startTime);
+        writer.name("e").value(this.endTime);
+        writer.name("tk").value(this.totalTicks);
+        writer.name("tm").value(this.totalTime);
+        writer.name("w");
+        JSONUtil.write(this.worlds, writer);
+        writer.name("h");
+        this.buffer.write(writer, this.frame);
+        writer.name("mp").beginArray();
+        for (MinuteReport report : this.minuteReports) {
+            report.write(writer);
+        }
+        writer.endArray();
+        writer.endObject();
     }
 
     static class MinuteReport {
@@ -168,20 +184,23 @@ static class MinuteReport {
         final double freeMemory = TimingsManager.FULL_SERVER_TICK.avgFreeMemory;
         final double loadAvg = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
 
-        public JsonArray export() {
-            return JSONUtil.arrayOf(
-                    this.time,
-                    Math.round(this.tps * 100D) / 100D,
-                    Math.round(this.pingRecord.avg * 100D) / 100D,
-                    this.fst.export(),
-                    JSONUtil.arrayOf(this.ticksRecord.timed,
-                            this.ticksRecord.player,
-                            this.ticksRecord.entity,
-                            this.ticksRecord.activatedEntity,
-                            this.ticksRecord.tileEntity),
-                    this.usedMemory,
-                    this.freeMemory,
-                    this.loadAvg);
+        void write(JsonWriter writer) throws IOException {
+            writer.beginArray();
+            writer.value(this.time);
+            writer.value(Math.round(this.tps * 100D) / 100D);
+            writer.value(Math.round(this.pingRecord.avg * 100D) / 100D);
+            this.fst.write(writer);
+            writer.beginArray()
+                    .value(this.ticksRecord.timed)
+                    .value(this.ticksRecord.player)
+                    .value(this.ticksRecord.entity)
+                    .value(this.ticksRecord.activatedEntity)
+                    .value(this.ticksRecord.tileEntity)
+                    .endArray();
+            writer.value(this.usedMemory);
+            writer.value(this.freeMemory);
+            writer.value(this.loadAvg);
+            writer.endArray();
         }
     }
 
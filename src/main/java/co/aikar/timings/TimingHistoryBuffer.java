@@ -0,0 +1,267 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package co.aikar.timings;
+
+import com.google.gson.stream.JsonWriter;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Stores the data of the timing handlers for each history frame in
+ * preallocated primitive arrays used as a ring, so the memory used by the
+ * history is fixed when it is created.
+ *
+ * <p>Each entry is either the record of a handler or the time a handler spent
+ * in one of its children. Entries are assigned on first use and kept until the
+ * next full reset, handlers that do not fit anymore are left out of the
+ * history.</p>
+ */
+public final class TimingHistoryBuffer {
+
+    // Bytes per entry and frame: count, total time, lag count and lag time
+    private static final int ENTRY_BYTES = 4 + 8 + 4 + 8;
+
+    private final int frames;
+    private final int maxEntries;
+    // Indexed by frame * maxEntries + entry, the last frame holds the current
+    // snapshot of reports
+    private final int[] counts;
+    private final long[] totals;
+    private final int[] lagCounts;
+    private final long[] lagTotals;
+    private final long[] frameSequences;
+    // The timing id of each entry, and the entry of the parent for children
+    private final int[] entryIds;
+    private final int[] entryParents;
+    private final TLongIntHashMap entries = new TLongIntHashMap(64, 0.5F, 0, -1);
+    private int usedEntries;
+    private long droppedEntries;
+    private long sequence;
+    private int nextFrame;
+
+    TimingHistoryBuffer(int frames, int maxEntries) {
+        this.frames = frames;
+        this.maxEntries = maxEntries;
+        final int size = (frames + 1) * maxEntries;
+        this.counts = new int[size];
+        this.totals = new long[size];
+        this.lagCounts = new int[size];
+        this.lagTotals = new long[size];
+        this.frameSequences = new long[frames + 1];
+        this.entryIds = new int[maxEntries];
+        this.entryParents = new int[maxEntries];
+    }
+
+    public int getFrames() {
+        return this.frames;
+    }
+
+    public int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    public synchronized int getUsedEntries() {
+        return this.usedEntries;
+    }
+
+    /**
+     * Gets the number of times a handler or child was left out of a frame
+     * because all entries were in use.
+     *
+     * @return The number of dropped entries
+     */
+    public synchronized long getDroppedEntries() {
+        return this.droppedEntries;
+    }
+
+    /**
+     * Gets the memory reserved by the buffer, which does not grow afterwards.
+     *
+     * @return The reserved memory in bytes
+     */
+    public long getReservedBytes() {
+        return (long) (this.frames + 1) * this.maxEntries * ENTRY_BYTES + this.maxEntries * 8L + (this.frames + 1) * 8L;
+    }
+
+    /**
+     * Records the current data of the handlers into the next frame of the
+     * ring, or into the frame for the current snapshot.
+     *
+     * @param handlers The handlers that timed anything
+     * @param current Whether this is the current snapshot for a report
+     * @return The frame written to
+     */
+    synchronized Frame record(Collection<TimingHandler> handlers, boolean current) {
+        final int frame;
+        if (current) {
+            frame = this.frames;
+        } else {
+            frame = this.nextFrame;
+            this.nextFrame = (this.nextFrame + 1) % this.frames;
+        }
+        final long sequence = ++this.sequence;
+        this.frameSequences[frame] = sequence;
+        final int base = frame * this.maxEntries;
+        Arrays.fill(this.counts, base, base + this.maxEntries, 0);
+        for (TimingHandler handler : handlers) {
+            final int entry = getEntry(handler.id, 0, -1);
+            if (entry < 0) {
+                continue;
+            }
+            put(base + entry, handler.record);
+            handler.children.forEachEntry((childId, data) -> {
+                final int childEntry = getEntry(handler.id, childId, entry);
+                if (childEntry >= 0) {
+                    put(base + childEntry, data);
+                }
+                return true;
+            });
+        }
+        return new Frame(frame, sequence);
+    }
+
+    private int getEntry(int id, int childId, int parentEntry) {
+        final long key = (long) id << 32 | childId;
+        int entry = this.entries.get(key);
+        if (entry < 0) {
+            if (this.usedEntries == this.maxEntries) {
+                this.droppedEntries++;
+                return -1;
+            }
+            entry = this.usedEntries++;
+            this.entryIds[entry] = childId == 0 ? id : childId;
+            this.entryParents[entry] = parentEntry;
+            this.entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    private void put(int index, TimingData data) {
+        this.counts[index] = data.count;
+        this.totals[index] = data.totalTime;
+        this.lagCounts[index] = data.lagCount;
+        this.lagTotals[index] = data.lagTotalTime;
+    }
+
+    /**
+     * Forgets all frames and entries.
+     */
+    synchronized void clear() {
+        Arrays.fill(this.frameSequences, 0);
+        this.entries.clear();
+        this.usedEntries = 0;
+        this.nextFrame = 0;
+    }
+
+    /**
+     * Writes the handler data of a frame, an empty array if the frame was
+     * overwritten in the meantime. The frame is copied first so the main
+     * thread is not held up while the data is written.
+     *
+     * @param writer The writer to write to
+     * @param frame The frame to write
+     * @throws IOException If writing fails
+     */
+    void write(JsonWriter writer, Frame frame) throws IOException {
+        final int used;
+        final int[] ids;
+        final int[] parents;
+        final int[] counts;
+        final long[] totals;
+        final int[] lagCounts;
+        final long[] lagTotals;
+        synchronized (this) {
+            if (this.frameSequences[frame.index] != frame.sequence) {
+                writer.beginArray().endArray();
+                return;
+            }
+            used = this.usedEntries;
+            final int base = frame.index * this.maxEntries;
+            ids = Arrays.copyOf(this.entryIds, used);
+            parents = Arrays.copyOf(this.entryParents, used);
+            counts = Arrays.copyOfRange(this.counts, base, base + used);
+            totals = Arrays.copyOfRange(this.totals, base, base + used);
+            lagCounts = Arrays.copyOfRange(this.lagCounts, base, base + used);
+            lagTotals = Arrays.copyOfRange(this.lagTotals, base, base + used);
+        }
+
+        // Link the children of each handler, keeping their order
+        final int[] firstChild = new int[used];
+        final int[] nextChild = new int[used];
+        Arrays.fill(firstChild, -1);
+        for (int entry = used - 1; entry >= 0; entry--) {
+            if (parents[entry] >= 0 && counts[entry] != 0) {
+                nextChild[entry] = firstChild[parents[entry]];
+                firstChild[parents[entry]] = entry;
+            }
+        }
+
+        writer.beginArray();
+        for (int entry = 0; entry < used; entry++) {
+            if (parents[entry] >= 0 || counts[entry] == 0) {
+                continue;
+            }
+            writer.beginArray();
+            writeValues(writer, ids[entry], counts[entry], totals[entry], lagCounts[entry], lagTotals[entry]);
+            if (firstChild[entry] >= 0) {
+                writer.beginArray();
+                for (int child = firstChild[entry]; child >= 0; child = nextChild[child]) {
+                    writer.beginArray();
+                    writeValues(writer, ids[child], counts[child], totals[child], lagCounts[child], lagTotals[child]);
+                    writer.endArray();
+                }
+                writer.endArray();
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+    }
+
+    private static void writeValues(JsonWriter writer, int id, int count, long total, int lagCount, long lagTotal) throws IOException {
+        writer.value(id).value(count).value(total);
+        if (lagCount > 0) {
+            writer.value(lagCount).value(lagTotal);
+        }
+    }
+
+    /**
+     * A frame written to the buffer, identified by its sequence number so it
+     * is not read after it was overwritten.
+     */
+    static final class Frame {
+
+        final int index;
+        final long sequence;
+
+        Frame(int index, long sequence) {
+            this.index = index;
+            this.sequence = sequence;
+        }
+    }
+
+}
@@ -33,6 +33,7 @@
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import net.minecraft.block.Block;
 import net.minecraft.server.MinecraftServer;
 import ninja.leaping.configurate.ConfigurationNode;
@@ -45,21 +46,31 @@
 import org.spongepowered.api.text.action.TextActions;
 import org.spongepowered.api.text.format.TextColors;
 import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.common.config.SpongeConfig.TimingsCategory;
 import org.spongepowered.common.entity.SpongeEntityType;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.zip.GZIPOutputStream;
 
+import javax.annotation.Nullable;
+
 class TimingsExport extends Thread {
 
     // private static final Joiner AUTHOR_LIST_JOINER = Joiner.on(", ");
@@ -68,15 +79,22 @@ class TimingsExport extends Thread {
     // Sponge doesn't have a server-name property
     private static final String SERVER_NAME = "A Sponge Server";
 
+    private static final DateTimeFormatter EXPORT_FILE_FORMAT = DateTimeFormatter.ofPattern("'timings-'yyyy-MM-dd_HH.mm.ss'.json.gz'");
+
     private final CommandSource sender;
     private final JsonObject out;
     private final TimingHistory[] history;
+    // Where to write the report to, or null to upload it
+    @Nullable private final Path exportFile;
+    private final String exportUrl;
 
-    TimingsExport(CommandSource sender, JsonObject out, TimingHistory[] history) {
+    TimingsExport(CommandSource sender, JsonObject out, TimingHistory[] history, @Nullable Path exportFile, String exportUrl) {
         super("Timings paste thread");
         this.sender = sender;
         this.out = out;
         this.history = history;
+        this.exportFile = exportFile;
+        this.exportUrl = exportUrl;
     }
 
     /**
@@ -127,7 +145,7 @@ static void reportTimings(CommandSource sender) {
             history[i++] = timingHistory;
         }
 
-        history[i] = new TimingHistory(); // Current snapshot
+        history[i] = new TimingHistory(true); // Current snapshot
         blockTypeSet.addAll(history[i].blockTypeSet);
         entityTypeSet.addAll(history[i].entityTypeSet);
 
@@ -176,7 +194,12 @@ static void reportTimings(CommandSource sender) {
         builder.add("config", JSONUtil.objectBuilder()
                 .add("sponge", serializeConfigNode(SpongeImpl.getGlobalConfig().getRootNode())));
 
-        new TimingsExport(sender, builder.build(), history).start();
+        TimingsCategory config = SpongeImpl.getGlobalConfig().getConfig().getTimings();
+        Path exportFile = null;
+        if (config.isExportToFile()) {
+            exportFile = SpongeImpl.getGameDir().resolve("timings").resolve(EXPORT_FILE_FORMAT.format(LocalDateTime.now()));
+        }
+        new TimingsExport(sender, builder.build(), history, exportFile, config.getExportUrl()).start();
     }
 
     static long getCost() {
@@ -252,7 +275,14 @@ public synchronized void start() {
     public void run() {
         this.sender.sendMessage(Texts.of(TextColors.GREEN, "Preparing Timings Report..."));
 
-        this.out.add("data", JSONUtil.mapArray(this.history, TimingHistory::export));
+        if (this.exportFile != null) {
+            exportToFile(this.exportFile);
+            return;
+        }
+        if (!this.exportUrl.isEmpty()) {
+            post(this.exportUrl, null);
+            return;
+        }
 
         String response = null;
         try {
@@ -261,16 +291,10 @@ public void run() {
             con.setRequestProperty("User-Agent", "Sponge/" + SERVER_NAME + "/" + InetAddress.getLocalHost().getHostName());
             con.setRequestMethod("POST");
             con.setInstanceFollowRedirects(false);
+            // Stream the report instead of letting the connection buffer it
+            con.setChunkedStreamingMode(0);
 
-            OutputStream request = new GZIPOutputStream(con.getOutputStream()) {
-
-                {
-                    this.def.setLevel(7);
-                }
-            };
-
-            request.write(JSONUtil.toString(this.out).getBytes("UTF-8"));
-            request.close();
+            writeReport(con.getOutputStream());
 
             response = getResponse(con);
 
@@ -302,6 +326,92 @@ public void run() {
         }
     }
 
+    /**
+     * Streams the report as gzipped JSON to the given stream, one history
+     * frame at a time, and closes it.
+     *
+     * @param stream The stream to write to
+     * @throws IOException If writing fails
+     */
+    private void writeReport(OutputStream stream) throws IOException {
+        OutputStream gzip = new GZIPOutputStream(stream) {
+
+            {
+                this.def.setLevel(7);
+            }
+        };
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8)))) {
+            writer.beginObject();
+            for (Entry<String, JsonElement> entry : this.out.entrySet()) {
+                writer.name(entry.getKey());
+                JSONUtil.write(entry.getValue(), writer);
+            }
+            writer.name("data").beginArray();
+            for (TimingHistory timingHistory : this.history) {
+                timingHistory.write(writer);
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+    }
+
+    private void exportToFile(Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            writeReport(Files.newOutputStream(file));
+        } catch (IOException ex) {
+            this.sender.sendMessage(Texts.of(TextColors.RED, "Error writing timings, check your logs for more information"));
+            SpongeImpl.getLogger().error("Could not write timings to " + file, ex);
+            return;
+        }
+
+        this.sender.sendMessage(Texts.of(TextColors.GREEN, "Timings Report written to " + file));
+        if (!(this.sender instanceof ConsoleSource)) {
+            SpongeImpl.getLogger().info("Timings Report written to " + file);
+        }
+
+        if (!this.exportUrl.isEmpty()) {
+            post(this.exportUrl, file);
+        }
+    }
+
+    /**
+     * Posts the report to the export URL, either the file it was written to or
+     * generated while it is sent.
+     *
+     * @param url The URL to post to
+     * @param file The file the report was written to, or null
+     */
+    private void post(String url, @Nullable Path file) {
+        try {
+            HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+            con.setDoOutput(true);
+            con.setRequestMethod("POST");
+            con.setRequestProperty("Content-Type", "application/json");
+            con.setRequestProperty("Content-Encoding", "gzip");
+            // Stream the report instead of letting the connection buffer it
+            if (file != null) {
+                con.setFixedLengthStreamingMode(Files.size(file));
+                try (OutputStream request = con.getOutputStream()) {
+                    Files.copy(file, request);
+                }
+            } else {
+                con.setChunkedStreamingMode(0);
+                writeReport(con.getOutputStream());
+            }
+
+            int code = con.getResponseCode();
+            if (code < 200 || code >= 400) {
+                this.sender.sendMessage(Texts.of(TextColors.RED, "Export Error: " + code + ": " + con.getResponseMessage()));
+                return;
+            }
+            this.sender.sendMessage(Texts.of(TextColors.GREEN, "Timings Report posted to " + url));
+        } catch (IOException ex) {
+            this.sender.sendMessage(Texts.of(TextColors.RED, "Error posting timings, check your logs for more information"));
+            SpongeImpl.getLogger().error("Could not post timings to " + url, ex);
+        }
+    }
+
     private String getResponse(HttpURLConnection con) throws IOException {
         InputStream is = null;
         try {
@@ -37,6 +37,8 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public final class TimingsManager {
 
@@ -52,7 +54,14 @@ public final class TimingsManager {
     static final ArrayDeque<TimingHistory.MinuteReport> MINUTE_REPORTS = new ArrayDeque<>();
 
     static EvictingQueue<TimingHistory> HISTORY = EvictingQueue.create(12);
+    // Holds the handler data of the history frames, sized on startup
+    static TimingHistoryBuffer HISTORY_BUFFER;
+    // The innermost timing of the main thread, other threads keep theirs in
+    // ASYNC_STACK so the main thread needs no synchronization
     static TimingHandler CURRENT;
+    static final ThreadLocal<ArrayDeque<TimingHandler.AsyncTiming>> ASYNC_STACK = ThreadLocal.withInitial(ArrayDeque::new);
+    // Async handlers with samples waiting to be merged on the main thread
+    static final Queue<TimingHandler> ASYNC_PENDING = new ConcurrentLinkedQueue<>();
     static long timingStart = 0;
     static long historyStart = 0;
     static boolean needsFullReset = false;
@@ -76,6 +85,11 @@ static void tick() {
         if (Timings.isTimingsEnabled()) {
             boolean violated = FULL_SERVER_TICK.isViolated();
 
+            TimingHandler pending;
+            while ((pending = ASYNC_PENDING.poll()) != null) {
+                pending.mergeAsync();
+            }
+
             for (TimingHandler handler : HANDLERS) {
                 if (handler.isSpecial()) {
                     // We manually call this
@@ -115,6 +129,9 @@ static void resetTimings() {
             }
             SpongeImpl.getLogger().info("Timings Reset");
             HISTORY.clear();
+            if (HISTORY_BUFFER != null) {
+                HISTORY_BUFFER.clear();
+            }
             needsFullReset = false;
             needsRecheckEnabled = false;
             timingStart = System.currentTimeMillis();
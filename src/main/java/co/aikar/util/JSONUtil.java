@@ -31,6 +31,7 @@
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 import java.util.List;
 import java.util.Map;
@@ -125,4 +126,8 @@ public static JsonElement toJsonElement(Object value) {
         return gson.toJsonTree(value);
     }
 
+    public static void write(JsonElement element, JsonWriter writer) {
+        gson.toJson(element, writer);
+    }
+
 }
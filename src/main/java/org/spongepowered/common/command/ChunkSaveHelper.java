@@ -35,6 +35,7 @@
 import net.minecraft.world.WorldServer;
 import org.spongepowered.api.world.World;
 import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.common.interfaces.world.IMixinWorldServer;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -67,6 +68,7 @@ public static void writeChunks(File file, boolean logAll) {
                 writer.name("players").value(world.playerEntities.size());
                 writer.name("loadedChunks").value(world.theChunkProviderServer.loadedChunks.size());
                 writer.name("activeChunks").value(world.activeChunkSet.size());
+                writer.name("pendingChunkSaves").value(((IMixinWorldServer) world).getChunkSaveScheduler().getPendingCount());
                 writer.name("entities").value(world.loadedEntityList.size());
                 writer.name("tiles").value(world.loadedTileEntityList.size());
 
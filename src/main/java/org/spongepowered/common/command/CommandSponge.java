@@ -34,7 +34,13 @@
 import static org.spongepowered.api.command.args.GenericArguments.world;
 
 import co.aikar.timings.SpongeTimingsFactory;
+import co.aikar.timings.TimingHistoryBuffer;
 import co.aikar.timings.Timings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.WorldProvider;
 import net.minecraft.world.WorldServer;
 import org.spongepowered.api.command.CommandCallable;
@@ -46,7 +52,10 @@
 import org.spongepowered.api.command.args.PatternMatchingCommandElement;
 import org.spongepowered.api.command.spec.CommandExecutor;
 import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.entity.living.player.User;
 import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.api.service.user.UserStorageService;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.TextBuilder;
 import org.spongepowered.api.text.Texts;
@@ -60,17 +69,41 @@
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.common.SpongeImpl;
 import org.spongepowered.common.config.SpongeConfig;
+import org.spongepowered.common.entity.PlayerTracker;
+import org.spongepowered.common.interfaces.IMixinChunk;
 import org.spongepowered.common.interfaces.world.IMixinWorld;
+import org.spongepowered.common.interfaces.world.IMixinWorldInfo;
 import org.spongepowered.common.interfaces.world.IMixinWorldProvider;
+import org.spongepowered.common.interfaces.world.IMixinWorldServer;
+import org.spongepowered.common.profiler.SamplingProfiler;
+import org.spongepowered.common.scheduler.PluginTaskExecutor;
+import org.spongepowered.common.scheduler.ScheduledTask;
+import org.spongepowered.common.scheduler.SpongeScheduler;
+import org.spongepowered.common.scheduler.TaskStatistics;
+import org.spongepowered.common.util.ServerUtils;
 import org.spongepowered.common.util.SpongeHooks;
 import org.spongepowered.common.world.DimensionManager;
+import org.spongepowered.common.world.LightUpdateQueue;
 import org.spongepowered.common.world.SpongeDimensionType;
+import org.spongepowered.common.world.TickCostTracker;
+import org.spongepowered.common.world.gen.BiomeTileCache;
+import org.spongepowered.common.world.gen.CustomWorldChunkManager;
+import org.spongepowered.common.world.storage.WorldFileOperation;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
@@ -82,6 +115,9 @@ public class CommandSponge {
 
     private static final Text NEWLINE_TEXT = Texts.of("\n");
     private static final Text SEPARATOR_TEXT = Texts.of(", ");
+    private static final int TOP_TASKS = 5;
+    private static final int TOP_CHUNKS = 10;
+    private static final int TOP_OWNERS = 3;
 
     /**
      * Create a new instance of the Sponge command structure.
@@ -96,6 +132,9 @@ public static CommandSpec getCommand() {
         nonFlagChildren.register(getHeapCommand(), "heap");
         nonFlagChildren.register(getPluginsCommand(), "plugins");
         nonFlagChildren.register(getTimingsCommand(), "timings");
+        nonFlagChildren.register(getTasksCommand(), "tasks");
+        nonFlagChildren.register(getProfilerCommand(), "profiler");
+        nonFlagChildren.register(getWorldFilesCommand(), "worldfiles");
         flagChildren.register(getChunksCommand(), "chunks");
         flagChildren.register(getConfigCommand(), "config");
         flagChildren.register(getReloadCommand(), "reload"); // TODO: Should these two be subcommands of config, and what is now config be set?
@@ -106,9 +145,12 @@ public static CommandSpec getCommand() {
                         INDENT, title("chunks"), LONG_INDENT, "Prints chunk data for a specific dimension or world(s)\n",
                         INDENT, title("conf"), LONG_INDENT, "Configure sponge settings\n",
                         INDENT, title("heap"), LONG_INDENT, "Dump live JVM heap\n",
+                        INDENT, title("profiler"), LONG_INDENT, "Samples the server thread into a flamegraph file\n",
                         INDENT, title("reload"), LONG_INDENT, "Reloads a global, dimension, or world config\n",
                         INDENT, title("save"), LONG_INDENT, "Saves a global, dimension, or world config\n",
+                        INDENT, title("tasks"), LONG_INDENT, "Prints scheduler statistics per plugin\n",
                         INDENT, title("version"), LONG_INDENT, "Prints current Sponge version\n",
+                        INDENT, title("worldfiles"), LONG_INDENT, "Prints the progress of running world copies and deletions\n",
                         INDENT, title("audit"), LONG_INDENT, "Audit mixin classes for implementation",
                         INDENT, title("plugins"), LONG_INDENT, "List currently installed plugins"))
                 .arguments(firstParsing(nonFlagChildren, flags()
@@ -179,8 +221,9 @@ protected Text process(SpongeConfig<?> config, CommandSource source, CommandCont
 
     private static CommandSpec getChunksCommand() {
         return CommandSpec.builder()
-                .description(Texts.of("Print chunk information, optionally dump"))
-                .arguments(optional(seq(literal(Texts.of("dump"), "dump"), optional(literal(Texts.of("dump-all"), "all")))))
+                .description(Texts.of("Print chunk information, optionally dump or list the chunks taking the most time to tick"))
+                .arguments(optional(firstParsing(seq(literal(Texts.of("dump"), "dump"), optional(literal(Texts.of("dump-all"), "all"))),
+                        literal(Texts.of("top"), "top"))))
                 .permission("sponge.command.chunks")
                 .executor(new ConfigUsingExecutor() {
                     @Override
@@ -201,7 +244,7 @@ protected Text processGlobal(SpongeConfig<SpongeConfig.GlobalConfig> config, Com
                             throws CommandException {
                         for (World world : SpongeImpl.getGame().getServer().getWorlds()) {
                             source.sendMessage(Texts.of("World ", Texts.of(TextStyles.BOLD, world.getName()),
-                                    getChunksInfo(((WorldServer) world))));
+                                    getChunksInfo(((WorldServer) world), args)));
                         }
                         return Texts.of("Printed chunk info for all worlds ");
                     }
@@ -212,14 +255,14 @@ protected Text processDimension(SpongeConfig<SpongeConfig.DimensionConfig> confi
                             throws CommandException {
                         SpongeImpl.getGame().getServer().getWorlds().stream().filter(world -> world.getDimension().getType().equals(dim))
                             .forEach(world -> source.sendMessage(Texts.of("World ", Texts.of(TextStyles.BOLD, world.getName()),
-                                                                      getChunksInfo(((WorldServer) world)))));
+                                                                      getChunksInfo(((WorldServer) world), args))));
                         return Texts.of("Printed chunk info for all worlds in dimension ", dim.getName());
                     }
 
                     @Override
                     protected Text processWorld(SpongeConfig<SpongeConfig.WorldConfig> config, World world, CommandSource source, CommandContext args)
                             throws CommandException {
-                        return getChunksInfo((WorldServer) world);
+                        return getChunksInfo((WorldServer) world, args);
                     }
 
                     protected Text key(Object text) {
@@ -230,16 +273,96 @@ protected Text value(Object text) {
                         return Texts.of(TextColors.GRAY, text);
                     }
 
-                    protected Text getChunksInfo(WorldServer worldserver) {
+                    protected Text getChunksInfo(WorldServer worldserver, CommandContext args) {
+                        if (args.hasAny("top")) {
+                            return getTopChunks(worldserver);
+                        }
                         return Texts.of(NEWLINE_TEXT, key("Dimension: "), value(worldserver.provider.getDimensionId()), NEWLINE_TEXT,
                                 key("Loaded chunks: "), value(worldserver.theChunkProviderServer.getLoadedChunkCount()), NEWLINE_TEXT,
                                 key("Active chunks: "), value(worldserver.activeChunkSet.size()), NEWLINE_TEXT,
                                 key("Entities: "), value(worldserver.loadedEntityList.size()), NEWLINE_TEXT,
                                 key("Tile Entities: "), value(worldserver.loadedTileEntityList.size()), NEWLINE_TEXT,
                                 key("Removed Entities:"), value(worldserver.unloadedEntityList.size()), NEWLINE_TEXT,
-                                key("Removed Tile Entities: "), value(worldserver.tileEntitiesToBeRemoved), NEWLINE_TEXT
+                                key("Removed Tile Entities: "), value(worldserver.tileEntitiesToBeRemoved), NEWLINE_TEXT,
+                                key("Pending Chunk Saves: "), value(((IMixinWorldServer) worldserver).getChunkSaveScheduler().getPendingCount()),
+                                NEWLINE_TEXT,
+                                key("Biome Cache Hit Rate: "), value(getBiomeCacheHitRate(worldserver)), NEWLINE_TEXT,
+                                key("Light Updates: "), value(getLightUpdates(worldserver)), NEWLINE_TEXT
                         );
                     }
+
+                    protected Text getTopChunks(WorldServer worldserver) {
+                        TickCostTracker tracker = ((IMixinWorldServer) worldserver).getTickCostTracker();
+                        if (!tracker.isEnabled()) {
+                            return Texts.of(NEWLINE_TEXT, key("Tick cost tracking is disabled, enable world."
+                                    + SpongeConfig.WORLD_TICK_COST_TRACKING + " to measure it"));
+                        }
+                        double ticks = Math.max(1, tracker.getReportedTicks());
+                        TextBuilder builder = Texts.builder().append(NEWLINE_TEXT, key("Most expensive chunks over "
+                                + tracker.getReportedTicks() + " ticks:"));
+                        for (TickCostTracker.Cost<ChunkCoordIntPair> cost : tracker.getTopChunks(TOP_CHUNKS)) {
+                            ChunkCoordIntPair coords = cost.getKey();
+                            builder.append(NEWLINE_TEXT, INDENT, value(String.format("Chunk %d, %d (block %d, %d): %.3f ms/tick",
+                                    coords.chunkXPos, coords.chunkZPos, coords.getCenterXPos(), coords.getCenterZPosition(),
+                                    cost.getNanos() / ticks / 1000000)));
+                            List<String> owners = getChunkOwners(worldserver, coords);
+                            if (!owners.isEmpty()) {
+                                builder.append(value(", placed by " + String.join(", ", owners)));
+                            }
+                        }
+                        builder.append(NEWLINE_TEXT, key("Most expensive types:"));
+                        for (TickCostTracker.Cost<Class<?>> cost : tracker.getTopTypes(TOP_CHUNKS)) {
+                            builder.append(NEWLINE_TEXT, INDENT, value(String.format("%s: %.3f ms/tick", cost.getKey().getName(),
+                                    cost.getNanos() / ticks / 1000000)));
+                        }
+                        return builder.build();
+                    }
+
+                    /**
+                     * Gets the players owning the most tracked blocks in the
+                     * chunk, most blocks first.
+                     */
+                    protected List<String> getChunkOwners(WorldServer worldserver, ChunkCoordIntPair coords) {
+                        if (!worldserver.theChunkProviderServer.chunkExists(coords.chunkXPos, coords.chunkZPos)) {
+                            return Collections.emptyList();
+                        }
+                        IMixinChunk chunk = (IMixinChunk) worldserver.getChunkFromChunkCoords(coords.chunkXPos, coords.chunkZPos);
+                        Map<Integer, Integer> blockCounts = Maps.newHashMap();
+                        for (PlayerTracker tracker : chunk.getTrackedIntPlayerPositions().values()) {
+                            blockCounts.merge(tracker.ownerIndex, 1, Integer::sum);
+                        }
+                        for (PlayerTracker tracker : chunk.getTrackedShortPlayerPositions().values()) {
+                            blockCounts.merge(tracker.ownerIndex, 1, Integer::sum);
+                        }
+                        blockCounts.remove(-1);
+                        List<Integer> indexes = Lists.newArrayList(blockCounts.keySet());
+                        indexes.sort(Comparator.comparing(blockCounts::get).reversed());
+                        IMixinWorldInfo worldInfo = (IMixinWorldInfo) worldserver.getWorldInfo();
+                        Optional<UserStorageService> userStorage = SpongeImpl.getGame().getServiceManager().provide(UserStorageService.class);
+                        List<String> owners = Lists.newArrayList();
+                        for (Integer index : indexes.subList(0, Math.min(TOP_OWNERS, indexes.size()))) {
+                            Optional<UUID> uuid = worldInfo.getUniqueIdForIndex(index);
+                            if (uuid.isPresent()) {
+                                Optional<User> user = userStorage.isPresent() ? userStorage.get().get(uuid.get()) : Optional.empty();
+                                owners.add(user.isPresent() ? user.get().getName() : uuid.get().toString());
+                            }
+                        }
+                        return owners;
+                    }
+
+                    protected String getLightUpdates(WorldServer worldserver) {
+                        LightUpdateQueue lightQueue = ((IMixinWorldServer) worldserver).getLightUpdateQueue();
+                        return String.format("%d processed of %d queued (%d merged, %d pending)", lightQueue.getProcessedCount(),
+                                lightQueue.getQueuedCount(), lightQueue.getDuplicateCount(), lightQueue.getPendingCount());
+                    }
+
+                    protected String getBiomeCacheHitRate(WorldServer worldserver) {
+                        if (!(worldserver.provider.worldChunkMgr instanceof CustomWorldChunkManager)) {
+                            return "N/A";
+                        }
+                        BiomeTileCache biomeCache = ((CustomWorldChunkManager) worldserver.provider.worldChunkMgr).getBiomeCache();
+                        return String.format("%.1f%% (%d tiles)", biomeCache.getHitRate() * 100, biomeCache.getTileCount());
+                    }
                 })
                 .build();
     }
@@ -320,6 +443,59 @@ private static CommandSpec getHeapCommand() {
     }
 
 
+    private static CommandSpec getProfilerCommand() {
+        return CommandSpec.builder()
+                .description(Texts.of("Samples the stack of the server thread"))
+                .permission("sponge.command.profiler")
+                .child(CommandSpec.builder()
+                        .executor((src, args) -> {
+                            // Commands run on the server thread, which is the one to sample
+                            if (!MinecraftServer.getServer().isCallingFromMinecraftThread()) {
+                                throw new CommandException(Texts.of("The profiler can only be started from the server thread"));
+                            }
+                            SpongeConfig.DebugCategory config = SpongeImpl.getGlobalConfig().getConfig().getDebug();
+                            Path file = SpongeImpl.getGameDir().resolve("profiles").resolve(
+                                    "profile-" + DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss").format(LocalDateTime.now()) + ".txt");
+                            if (!SamplingProfiler.getInstance().start(Thread.currentThread(), config.getProfilerInterval(),
+                                    TimeUnit.SECONDS.toMillis(config.getProfilerDuration()), file)) {
+                                throw new CommandException(Texts.of("The profiler is already running"));
+                            }
+                            src.sendMessage(Texts.of("Profiler started, samples will be written to ", file));
+                            return CommandResult.success();
+                        })
+                        .build(), "start")
+                .child(CommandSpec.builder()
+                        .executor((src, args) -> {
+                            Path file = SamplingProfiler.getInstance().stop();
+                            if (file == null) {
+                                throw new CommandException(Texts.of("The profiler is not running"));
+                            }
+                            src.sendMessage(Texts.of("Profiler stopped, samples are being written to ", file));
+                            return CommandResult.success();
+                        })
+                        .build(), "stop")
+                .build();
+    }
+
+    private static CommandSpec getWorldFilesCommand() {
+        return CommandSpec.builder()
+                .description(Texts.of("Print the progress of the world copies and deletions that are running"))
+                .permission("sponge.command.worldfiles")
+                .executor((src, args) -> {
+                    if (ServerUtils.getFileOperations().isEmpty()) {
+                        src.sendMessage(Texts.of("No world files are being copied or deleted"));
+                        return CommandResult.empty();
+                    }
+                    for (WorldFileOperation operation : ServerUtils.getFileOperations()) {
+                        src.sendMessage(Texts.of(title(operation.getName() + ": "), String.format("%.1f%%, %d of %d files, %d of %d KB",
+                                operation.getProgress() * 100, operation.getCompletedFiles(), operation.getTotalFiles(),
+                                operation.getCompletedBytes() / 1024, operation.getTotalBytes() / 1024)));
+                    }
+                    return CommandResult.success();
+                })
+                .build();
+    }
+
     private static CommandSpec getVersionCommand() {
         return CommandSpec.builder()
                 .description(Texts.of("Display Sponge's current version"))
@@ -405,10 +581,89 @@ INDENT, title("Main class: "), !container.getInstance().isPresent() ? " Virtual
                 }).build();
     }
 
+    private static CommandSpec getTasksCommand() {
+        return CommandSpec.builder()
+                .description(Texts.of("Print scheduler statistics per plugin"))
+                .permission("sponge.command.tasks")
+                .executor((src, args) -> {
+                    SpongeScheduler scheduler = SpongeScheduler.getInstance();
+                    Map<String, Integer> syncTasks = countByOwner(scheduler.getScheduledTasks(false));
+                    Map<String, Integer> asyncTasks = countByOwner(scheduler.getScheduledTasks(true));
+                    TextBuilder build = Texts.builder().append(title("Scheduled tasks: "),
+                            Texts.of(syncTasks.values().stream().mapToInt(Integer::intValue).sum(), " sync, ",
+                                    asyncTasks.values().stream().mapToInt(Integer::intValue).sum(), " async"), NEWLINE_TEXT,
+                            title("Async start delay: "), Texts.of(String.format("%.2f ms average, %.2f ms max over %d executions",
+                                    scheduler.getAsyncAverageDueLag(TimeUnit.MICROSECONDS) / 1000.0,
+                                    scheduler.getAsyncMaxDueLag(TimeUnit.MICROSECONDS) / 1000.0, scheduler.getAsyncStartedCount())), NEWLINE_TEXT,
+                            title("Deferred sync tasks: "), Texts.of(scheduler.getSyncDeferredCount()), NEWLINE_TEXT,
+                            title("Pending sync executor runnables: "), Texts.of(scheduler.getSyncExecutorPendingCount()));
+                    Map<String, Long> deferrals = scheduler.getSyncDeferrals();
+                    List<PluginTaskExecutor> executors = Lists.newArrayList(scheduler.getAsyncExecutors());
+                    executors.sort(Comparator.comparing(executor -> executor.getPlugin().getId()));
+                    Set<String> owners = Sets.newTreeSet(syncTasks.keySet());
+                    owners.addAll(asyncTasks.keySet());
+                    owners.addAll(deferrals.keySet());
+                    executors.forEach(executor -> owners.remove(executor.getPlugin().getId()));
+                    for (PluginTaskExecutor executor : executors) {
+                        String id = executor.getPlugin().getId();
+                        build.append(NEWLINE_TEXT, INDENT, title(id), Texts.of(String.format(": %d sync, %d async scheduled; %d active, %d queued, "
+                                        + "%d completed, %d rejected, %.2f ms average run time; %d deferrals",
+                                syncTasks.getOrDefault(id, 0), asyncTasks.getOrDefault(id, 0), executor.getActiveCount(), executor.getQueuedCount(),
+                                executor.getCompletedCount(), executor.getRejectedCount(), executor.getAverageRunTime(TimeUnit.MICROSECONDS) / 1000.0,
+                                deferrals.getOrDefault(id, 0L))));
+                    }
+                    // Plugins that never ran an async task
+                    for (String id : owners) {
+                        build.append(NEWLINE_TEXT, INDENT, title(id), Texts.of(String.format(": %d sync, %d async scheduled; %d deferrals",
+                                syncTasks.getOrDefault(id, 0), asyncTasks.getOrDefault(id, 0), deferrals.getOrDefault(id, 0L))));
+                    }
+                    List<ScheduledTask> timed = scheduler.getTasksWithStatistics();
+                    timed.removeIf(task -> task.getStatistics().getCount() == 0);
+                    timed.sort(Comparator.comparing((ScheduledTask task) -> task.getStatistics().getTotalTime(TimeUnit.NANOSECONDS)).reversed());
+                    build.append(NEWLINE_TEXT, title("Top tasks by total time:"));
+                    appendTaskStatistics(build, timed);
+                    timed.sort(Comparator.comparing((ScheduledTask task) -> task.getStatistics().getMaxTime(TimeUnit.NANOSECONDS)).reversed());
+                    build.append(NEWLINE_TEXT, title("Top tasks by max time:"));
+                    appendTaskStatistics(build, timed);
+                    src.sendMessage(build.build());
+                    return CommandResult.success();
+                }).build();
+    }
+
+    private static void appendTaskStatistics(TextBuilder build, List<ScheduledTask> tasks) {
+        for (ScheduledTask task : tasks.subList(0, Math.min(TOP_TASKS, tasks.size()))) {
+            TaskStatistics stats = task.getStatistics();
+            build.append(NEWLINE_TEXT, INDENT, title(task.getName()), Texts.of(String.format(" (%s): %d runs, %.2f ms total, %.2f ms max, "
+                            + "95%% under %.2f ms", task.getOwner().getId(), stats.getCount(), stats.getTotalTime(TimeUnit.MICROSECONDS) / 1000.0,
+                    stats.getMaxTime(TimeUnit.MICROSECONDS) / 1000.0, stats.getPercentileBound(0.95, TimeUnit.MICROSECONDS) / 1000.0)));
+            if (task.isAsynchronous()) {
+                build.append(Texts.of(String.format("; queue wait %.2f ms average, %.2f ms max", stats.getAverageWaitTime(TimeUnit.MICROSECONDS)
+                        / 1000.0, stats.getMaxWaitTime(TimeUnit.MICROSECONDS) / 1000.0)));
+            }
+        }
+    }
+
+    private static Map<String, Integer> countByOwner(Collection<Task> tasks) {
+        Map<String, Integer> counts = Maps.newHashMap();
+        for (Task task : tasks) {
+            counts.merge(task.getOwner().getId(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
     private static CommandCallable getTimingsCommand() {
         return CommandSpec.builder()
                 .permission("sponge.command.timings")
                 .description(Texts.of("Manages Sponge Timings data to see performance of the server."))
+                .executor((src, args) -> {
+                    TimingHistoryBuffer history = SpongeTimingsFactory.getHistoryBuffer();
+                    Text historyText = history == null ? Texts.of("not allocated") : Texts.of(String.format(
+                            "%d frames, %d of %d entries used (%d dropped), %.1f MB reserved", history.getFrames(), history.getUsedEntries(),
+                            history.getMaxEntries(), history.getDroppedEntries(), history.getReservedBytes() / (1024.0 * 1024.0)));
+                    src.sendMessage(Texts.of(title("Timings: "), Timings.isTimingsEnabled() ? "enabled" : "disabled", NEWLINE_TEXT,
+                            title("History: "), historyText));
+                    return CommandResult.success();
+                })
                 .child(CommandSpec.builder()
                         .executor((src, args) -> {
                             if (!Timings.isTimingsEnabled()) {
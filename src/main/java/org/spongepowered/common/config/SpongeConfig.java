@@ -78,6 +78,10 @@ public enum Type {
     public static final String DEBUG_DUMP_CHUNKS_ON_DEADLOCK = "dump-chunks-on-deadlock";
     public static final String DEBUG_DUMP_HEAP_ON_DEADLOCK = "dump-heap-on-deadlock";
     public static final String DEBUG_DUMP_THREADS_ON_WARN = "dump-threads-on-warn";
+    public static final String DEBUG_PROFILER_INTERVAL = "profiler-interval";
+    public static final String DEBUG_PROFILER_DURATION = "profiler-duration";
+    public static final String DEBUG_LAG_SPIKE_THRESHOLD = "lag-spike-threshold";
+    public static final String DEBUG_LAG_SPIKE_TICKS = "lag-spike-ticks";
 
     // ENTITY
     public static final String ENTITY_MAX_BOUNDING_BOX_SIZE = "max-bounding-box-size";
@@ -126,6 +130,19 @@ public enum Type {
     public static final String BLOCK_TRACKING_BLACKLIST = "block-blacklist";
     public static final String BLOCK_TRACKING_ENABLED = "enabled";
 
+    // SCHEDULER
+    public static final String SCHEDULER_ASYNC_POOL_SIZE = "async-pool-size";
+    public static final String SCHEDULER_ASYNC_QUEUE_SIZE = "async-queue-size";
+    public static final String SCHEDULER_SYNC_TICK_BUDGET = "sync-tick-budget";
+    public static final String SCHEDULER_DEFERRABLE_PLUGINS = "deferrable-plugins";
+    public static final String SCHEDULER_SYNC_EXECUTOR_LIMIT = "sync-executor-limit";
+
+    // METRICS
+    public static final String METRICS_ENABLED = "enabled";
+    public static final String METRICS_ADDRESS = "address";
+    public static final String METRICS_PORT = "port";
+    public static final String METRICS_UPDATE_INTERVAL = "update-interval";
+
     // MODULES
     public static final String MODULE_ENTITY_ACTIVATION_RANGE = "entity-activation-range";
     public static final String MODULE_BUNGEECORD = "bungeecord";
@@ -139,6 +156,19 @@ public enum Type {
     public static final String WORLD_KEEP_SPAWN_LOADED = "keep-spawn-loaded";
     public static final String WORLD_LOAD_ON_STARTUP = "load-on-startup";
     public static final String WORLD_GEN_MODIFIERS = "world-generation-modifiers";
+    public static final String WORLD_INCREMENTAL_CHUNK_SAVE = "incremental-chunk-save";
+    public static final String WORLD_MAX_CHUNK_SAVES_PER_TICK = "max-chunk-saves-per-tick";
+    public static final String WORLD_MAX_CHUNK_SAVE_TIME = "max-chunk-save-time";
+    public static final String WORLD_ENTITY_CHUNK_SAVE_INTERVAL = "entity-chunk-save-interval";
+    public static final String WORLD_MEMORY_MAPPED_REGION_FILES = "memory-mapped-region-files";
+    public static final String WORLD_LINK_REGION_FILES_ON_COPY = "link-region-files-on-copy";
+    public static final String WORLD_ASYNC_GENERATION = "async-generation";
+    public static final String WORLD_GENERATION_PREFETCH_DISTANCE = "generation-prefetch-distance";
+    public static final String WORLD_THREAD_SAFE_GENERATION_POPULATORS = "thread-safe-generation-populators";
+    public static final String WORLD_BATCHED_LIGHTING = "batched-lighting";
+    public static final String WORLD_MAX_LIGHT_UPDATES_PER_TICK = "max-light-updates-per-tick";
+    public static final String WORLD_TICK_COST_TRACKING = "tick-cost-tracking";
+    public static final String WORLD_TICK_COST_INTERVAL = "tick-cost-interval";
 
     private static final String HEADER = "1.0\n"
             + "\n"
@@ -253,6 +283,12 @@ public static class GlobalConfig extends ConfigBase {
         @Setting(MODULE_SHUTDOWN_ON_EULA)
         private ShutdownOnEulaCategory eulaShutdown = new ShutdownOnEulaCategory();
 
+        @Setting(value = "scheduler", comment = "Configuration options related to the scheduler")
+        private SchedulerCategory scheduler = new SchedulerCategory();
+
+        @Setting(value = "metrics", comment = "Configuration options related to the metrics endpoint")
+        private MetricsCategory metrics = new MetricsCategory();
+
         public BungeeCordCategory getBungeeCord() {
             return this.bungeeCord;
         }
@@ -273,6 +309,14 @@ public ModuleCategory getModules() {
             return this.mixins;
         }
 
+        public SchedulerCategory getScheduler() {
+            return this.scheduler;
+        }
+
+        public MetricsCategory getMetrics() {
+            return this.metrics;
+        }
+
         public Map<String, Predicate<InetAddress>> getIpSets() {
             return ImmutableMap.copyOf(Maps.transformValues(this.ipSets, new Function<List<IpSet>, Predicate<InetAddress>>() {
                 @Nullable
@@ -418,6 +462,16 @@ public static class DebugCategory extends Category {
         private boolean dumpHeapOnDeadlock = false;
         @Setting(value = DEBUG_DUMP_THREADS_ON_WARN, comment = "Dump the server thread on deadlock warning")
         private boolean dumpThreadsOnWarn = false;
+        @Setting(value = DEBUG_PROFILER_INTERVAL, comment = "The time in milliseconds between the samples of the profiler")
+        private int profilerInterval = 10;
+        @Setting(value = DEBUG_PROFILER_DURATION, comment = "The time in seconds after which the profiler stops by itself, 0 to run until "
+                + "stopped")
+        private int profilerDuration = 300;
+        @Setting(value = DEBUG_LAG_SPIKE_THRESHOLD, comment = "The time in milliseconds a tick may take before the phases of the last ticks "
+                + "and stack samples of the server thread are written to the lag-spikes folder, 0 to disable")
+        private int lagSpikeThreshold = 0;
+        @Setting(value = DEBUG_LAG_SPIKE_TICKS, comment = "The number of ticks written when a tick exceeds the lag spike threshold")
+        private int lagSpikeTicks = 100;
 
         public boolean isEnableThreadContentionMonitoring() {
             return this.enableThreadContentionMonitoring;
@@ -450,6 +504,38 @@ public boolean dumpThreadsOnWarn() {
         public void setDumpThreadsOnWarn(boolean dumpThreadsOnWarn) {
             this.dumpThreadsOnWarn = dumpThreadsOnWarn;
         }
+
+        public int getProfilerInterval() {
+            return this.profilerInterval;
+        }
+
+        public void setProfilerInterval(int profilerInterval) {
+            this.profilerInterval = profilerInterval;
+        }
+
+        public int getProfilerDuration() {
+            return this.profilerDuration;
+        }
+
+        public void setProfilerDuration(int profilerDuration) {
+            this.profilerDuration = profilerDuration;
+        }
+
+        public int getLagSpikeThreshold() {
+            return this.lagSpikeThreshold;
+        }
+
+        public void setLagSpikeThreshold(int lagSpikeThreshold) {
+            this.lagSpikeThreshold = lagSpikeThreshold;
+        }
+
+        public int getLagSpikeTicks() {
+            return this.lagSpikeTicks;
+        }
+
+        public void setLagSpikeTicks(int lagSpikeTicks) {
+            this.lagSpikeTicks = lagSpikeTicks;
+        }
     }
 
     @ConfigSerializable
@@ -580,6 +666,114 @@ public boolean shouldShutdownServer() {
         }
     }
 
+    @ConfigSerializable
+    public static class SchedulerCategory extends Category {
+
+        @Setting(value = SCHEDULER_ASYNC_POOL_SIZE, comment = "The maximum number of threads running the asynchronous tasks of each plugin")
+        private int asyncPoolSize = 4;
+
+        @Setting(value = SCHEDULER_ASYNC_QUEUE_SIZE, comment = "The maximum number of asynchronous tasks of each plugin waiting for a thread, "
+                + "0 for no limit. While the queue is full, runs of repeating tasks are skipped and counted as rejected, and one time "
+                + "tasks run on the scheduler thread, delaying all other asynchronous tasks.")
+        private int asyncQueueSize = 0;
+
+        @Setting(value = SCHEDULER_SYNC_TICK_BUDGET, comment = "The time in milliseconds a tick may take before deferrable synchronous tasks "
+                + "are carried over to the next tick, 0 for no limit")
+        private int syncTickBudget = 40;
+
+        @Setting(value = SCHEDULER_DEFERRABLE_PLUGINS, comment = "The ids of plugins whose synchronous tasks may be carried over to the next "
+                + "tick when the tick is over budget")
+        private List<String> deferrablePlugins = new ArrayList<>();
+
+        @Setting(value = SCHEDULER_SYNC_EXECUTOR_LIMIT, comment = "The maximum number of runnables submitted to the synchronous executors of "
+                + "plugins run per tick, 0 for no limit. The rest runs in the following ticks.")
+        private int syncExecutorLimit = 0;
+
+        public int getAsyncPoolSize() {
+            return this.asyncPoolSize;
+        }
+
+        public void setAsyncPoolSize(int asyncPoolSize) {
+            this.asyncPoolSize = asyncPoolSize;
+        }
+
+        public int getAsyncQueueSize() {
+            return this.asyncQueueSize;
+        }
+
+        public void setAsyncQueueSize(int asyncQueueSize) {
+            this.asyncQueueSize = asyncQueueSize;
+        }
+
+        public int getSyncTickBudget() {
+            return this.syncTickBudget;
+        }
+
+        public void setSyncTickBudget(int syncTickBudget) {
+            this.syncTickBudget = syncTickBudget;
+        }
+
+        public List<String> getDeferrablePlugins() {
+            return this.deferrablePlugins;
+        }
+
+        public int getSyncExecutorLimit() {
+            return this.syncExecutorLimit;
+        }
+
+        public void setSyncExecutorLimit(int syncExecutorLimit) {
+            this.syncExecutorLimit = syncExecutorLimit;
+        }
+    }
+
+    @ConfigSerializable
+    public static class MetricsCategory extends Category {
+
+        @Setting(value = METRICS_ENABLED, comment = "If enabled, serves server metrics over HTTP in the Prometheus text format")
+        private boolean enabled = false;
+
+        @Setting(value = METRICS_ADDRESS, comment = "The address the metrics endpoint is bound to")
+        private String address = "127.0.0.1";
+
+        @Setting(value = METRICS_PORT, comment = "The port the metrics endpoint listens on")
+        private int port = 9225;
+
+        @Setting(value = METRICS_UPDATE_INTERVAL, comment = "The interval in ticks at which the served metrics are updated")
+        private int updateInterval = 20;
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getAddress() {
+            return this.address;
+        }
+
+        public void setAddress(String address) {
+            this.address = address;
+        }
+
+        public int getPort() {
+            return this.port;
+        }
+
+        public void setPort(int port) {
+            this.port = port;
+        }
+
+        public int getUpdateInterval() {
+            return this.updateInterval;
+        }
+
+        public void setUpdateInterval(int updateInterval) {
+            this.updateInterval = updateInterval;
+        }
+    }
+
     @ConfigSerializable
     public static class EntityActivationRangeCategory extends Category {
 
@@ -856,6 +1050,59 @@ public static class WorldCategory extends Category {
         @Setting(value = WORLD_PVP_ENABLED, comment = "Enable if this world allows PVP combat.")
         protected boolean pvpEnabled = true;
 
+        @Setting(value = WORLD_INCREMENTAL_CHUNK_SAVE, comment = "Save modified chunks a few at a time every tick instead of all at once during "
+                + "the autosave.")
+        protected boolean incrementalChunkSave = false;
+
+        @Setting(value = WORLD_MAX_CHUNK_SAVES_PER_TICK, comment = "The maximum number of chunks saved per tick when incremental chunk saving is "
+                + "enabled. Set to 0 to disable")
+        protected int maxChunkSavesPerTick = 24;
+
+        @Setting(value = WORLD_MAX_CHUNK_SAVE_TIME, comment = "The maximum time in milliseconds spent saving chunks per tick when incremental "
+                + "chunk saving is enabled. Set to 0 to disable")
+        protected int maxChunkSaveTime = 5;
+
+        @Setting(value = WORLD_ENTITY_CHUNK_SAVE_INTERVAL, comment = "Number of ticks between saves of unmodified chunks containing entities "
+                + "when incremental chunk saving is enabled.")
+        protected int entityChunkSaveInterval = 900;
+
+        @Setting(value = WORLD_MEMORY_MAPPED_REGION_FILES, comment = "Read chunks from memory-mapped region files. Speeds up loading large "
+                + "amounts of chunks, such as during pregeneration.")
+        protected boolean memoryMappedRegionFiles = false;
+
+        @Setting(value = WORLD_LINK_REGION_FILES_ON_COPY, comment = "Hard link the region files of this world into copies of it instead of "
+                + "copying them while it is unloaded. A world receives its own copy of a region file once it opens it. Intended for template "
+                + "worlds, requires a filesystem supporting hard links.")
+        protected boolean linkRegionFilesOnCopy = false;
+
+        @Setting(value = WORLD_ASYNC_GENERATION, comment = "Generate the terrain of chunks ahead of moving players on worker threads. Only "
+                + "worlds with a thread-safe base generator, like superflat, are generated ahead.")
+        protected boolean asyncGeneration = false;
+
+        @Setting(value = WORLD_THREAD_SAFE_GENERATION_POPULATORS, comment = "The class names of generation populators of plugins that may "
+                + "generate several chunks at once on the generation workers. Base generators listed here enable async generation for their "
+                + "worlds, other populators run on the main thread.")
+        protected List<String> threadSafeGenerationPopulators = new ArrayList<>();
+
+        @Setting(value = WORLD_GENERATION_PREFETCH_DISTANCE, comment = "The number of chunks beyond the view distance generated ahead of moving "
+                + "players when async generation is enabled.")
+        protected int generationPrefetchDistance = 2;
+
+        @Setting(value = WORLD_BATCHED_LIGHTING, comment = "Queue light updates caused by block changes and process them once at the end of "
+                + "the tick, instead of relighting after every change.")
+        protected boolean batchedLighting = false;
+
+        @Setting(value = WORLD_MAX_LIGHT_UPDATES_PER_TICK, comment = "The maximum number of queued light updates processed per tick when "
+                + "batched lighting is enabled, 0 for no limit. Remaining updates are processed in the following ticks.")
+        protected int maxLightUpdatesPerTick = 10000;
+
+        @Setting(value = WORLD_TICK_COST_TRACKING, comment = "Measure the time spent ticking the entities and tile entities of each chunk "
+                + "and of each entity and tile entity type, reported by /sponge chunks top.")
+        protected boolean tickCostTracking = false;
+
+        @Setting(value = WORLD_TICK_COST_INTERVAL, comment = "The number of ticks the tick costs are measured over before they are reset")
+        protected int tickCostInterval = 1200;
+
         public boolean hasInfiniteWaterSource() {
             return this.infiniteWaterSource;
         }
@@ -903,6 +1150,106 @@ public boolean getPVPEnabled() {
         public void setPVPEnabled(boolean allow) {
             this.pvpEnabled = allow;
         }
+
+        public boolean useIncrementalChunkSave() {
+            return this.incrementalChunkSave;
+        }
+
+        public void setIncrementalChunkSave(boolean state) {
+            this.incrementalChunkSave = state;
+        }
+
+        public int getMaxChunkSavesPerTick() {
+            return this.maxChunkSavesPerTick;
+        }
+
+        public void setMaxChunkSavesPerTick(int maxChunkSavesPerTick) {
+            this.maxChunkSavesPerTick = maxChunkSavesPerTick;
+        }
+
+        public int getMaxChunkSaveTime() {
+            return this.maxChunkSaveTime;
+        }
+
+        public void setMaxChunkSaveTime(int maxChunkSaveTime) {
+            this.maxChunkSaveTime = maxChunkSaveTime;
+        }
+
+        public int getEntityChunkSaveInterval() {
+            return this.entityChunkSaveInterval;
+        }
+
+        public void setEntityChunkSaveInterval(int entityChunkSaveInterval) {
+            this.entityChunkSaveInterval = entityChunkSaveInterval;
+        }
+
+        public boolean useMemoryMappedRegionFiles() {
+            return this.memoryMappedRegionFiles;
+        }
+
+        public void setMemoryMappedRegionFiles(boolean state) {
+            this.memoryMappedRegionFiles = state;
+        }
+
+        public boolean linkRegionFilesOnCopy() {
+            return this.linkRegionFilesOnCopy;
+        }
+
+        public void setLinkRegionFilesOnCopy(boolean state) {
+            this.linkRegionFilesOnCopy = state;
+        }
+
+        public boolean useAsyncGeneration() {
+            return this.asyncGeneration;
+        }
+
+        public void setAsyncGeneration(boolean state) {
+            this.asyncGeneration = state;
+        }
+
+        public List<String> getThreadSafeGenerationPopulators() {
+            return this.threadSafeGenerationPopulators;
+        }
+
+        public int getGenerationPrefetchDistance() {
+            return this.generationPrefetchDistance;
+        }
+
+        public void setGenerationPrefetchDistance(int generationPrefetchDistance) {
+            this.generationPrefetchDistance = generationPrefetchDistance;
+        }
+
+        public boolean useBatchedLighting() {
+            return this.batchedLighting;
+        }
+
+        public void setBatchedLighting(boolean state) {
+            this.batchedLighting = state;
+        }
+
+        public int getMaxLightUpdatesPerTick() {
+            return this.maxLightUpdatesPerTick;
+        }
+
+        public void setMaxLightUpdatesPerTick(int maxLightUpdatesPerTick) {
+            this.maxLightUpdatesPerTick = maxLightUpdatesPerTick;
+        }
+
+        public boolean useTickCostTracking() {
+            return this.tickCostTracking;
+        }
+
+        public void setTickCostTracking(boolean state) {
+            this.tickCostTracking = state;
+        }
+
+        public int getTickCostInterval() {
+            return this.tickCostInterval;
+        }
+
+        public void setTickCostInterval(int tickCostInterval) {
+            this.tickCostInterval = tickCostInterval;
+        }
     }
 
     @ConfigSerializable
@@ -926,6 +1273,18 @@ public static class TimingsCategory extends Category {
         @Setting("history-length")
         private int historyLength = 3600;
 
+        @Setting(value = "history-max-entries", comment = "The number of timings and timing children kept in each history frame. "
+                + "The memory for all frames is reserved on startup.")
+        private int historyMaxEntries = 8192;
+
+        @Setting(value = "export-to-file", comment = "Write timings reports as gzipped JSON to the timings folder of the server instead of "
+                + "uploading them")
+        private boolean exportToFile = false;
+
+        @Setting(value = "export-url", comment = "A local URL timings reports are posted to instead of uploading them, empty for "
+                + "none. Reports written to file are posted after they were written.")
+        private String exportUrl = "";
+
         public boolean isVerbose() {
             return this.verbose;
         }
@@ -958,6 +1317,30 @@ public void setHistoryLength(int historyLength) {
             this.historyLength = historyLength;
         }
 
+        public int getHistoryMaxEntries() {
+            return this.historyMaxEntries;
+        }
+
+        public void setHistoryMaxEntries(int historyMaxEntries) {
+            this.historyMaxEntries = historyMaxEntries;
+        }
+
+        public boolean isExportToFile() {
+            return this.exportToFile;
+        }
+
+        public void setExportToFile(boolean exportToFile) {
+            this.exportToFile = exportToFile;
+        }
+
+        public String getExportUrl() {
+            return this.exportUrl;
+        }
+
+        public void setExportUrl(String exportUrl) {
+            this.exportUrl = exportUrl;
+        }
+
     }
 
     @ConfigSerializable
@@ -32,6 +32,7 @@
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.reflect.TypeToken;
 import org.spongepowered.api.event.Cancellable;
@@ -51,6 +52,7 @@
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -236,6 +238,21 @@ public void unregisterPluginListeners(Object pluginObj) {
         unregister(handler -> plugin.equals(handler.getPlugin()));
     }
 
+    /**
+     * Gets the number of registered listeners of each plugin.
+     *
+     * @return The listener counts by plugin id
+     */
+    public Map<String, Integer> getListenerCounts() {
+        Map<String, Integer> counts = Maps.newHashMap();
+        synchronized (this.lock) {
+            for (RegisteredListener<?> handler : this.handlersByEvent.values()) {
+                counts.merge(handler.getPlugin().getId(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
     protected RegisteredListener.Cache getHandlerCache(Event event) {
         return this.handlersCache.getUnchecked(checkNotNull(event, "event").getClass());
     }
@@ -58,4 +58,14 @@ public interface IMixinChunk {
 
     void setTrackedShortPlayerPositions(Map<Short, PlayerTracker> trackedPlayerPositions);
 
+    boolean hasEntities();
+
+    boolean isQueuedForSave();
+
+    void setQueuedForSave(boolean queued);
+
+    boolean isQueuedForEntitySave();
+
+    void setQueuedForEntitySave(boolean queued);
+
 }
@@ -36,4 +36,13 @@ public interface IMixinMinecraftServer {
 
     void setSaveEnabled(boolean enabled);
 
+    boolean isSaveEnabled();
+
+    /**
+     * Gets whether the periodic autosave of all worlds is in progress.
+     *
+     * @return True if autosaving
+     */
+    boolean isAutoSaving();
+
 }
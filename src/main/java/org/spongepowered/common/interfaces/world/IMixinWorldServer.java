@@ -22,30 +22,18 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-package co.aikar.timings;
+package org.spongepowered.common.interfaces.world;
 
-import co.aikar.util.JSONUtil;
-import com.google.gson.JsonArray;
+import org.spongepowered.common.world.LightUpdateQueue;
+import org.spongepowered.common.world.TickCostTracker;
+import org.spongepowered.common.world.storage.ChunkSaveScheduler;
 
-class TimingHistoryEntry {
+public interface IMixinWorldServer {
 
-    final TimingData data;
-    final TimingData[] children;
+    ChunkSaveScheduler getChunkSaveScheduler();
 
-    TimingHistoryEntry(TimingHandler handler) {
-        this.data = handler.record.clone();
-        this.children = new TimingData[handler.children.size()];
-        int i = 0;
-        for (TimingData child : handler.children.valueCollection()) {
-            this.children[i++] = child.clone();
-        }
-    }
+    LightUpdateQueue getLightUpdateQueue();
+
+    TickCostTracker getTickCostTracker();
 
-    JsonArray export() {
-        JsonArray result = this.data.export();
-        if (this.children.length > 0) {
-            result.add(JSONUtil.mapArray(this.children, TimingData::export));
-        }
-        return result;
-    }
 }
@@ -0,0 +1,155 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.minecraft.server.MinecraftServer;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.common.config.SpongeConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.annotation.Nullable;
+
+/**
+ * Serves server metrics over HTTP in the Prometheus text format. The values
+ * of the server are read on the main thread at the configured interval, the
+ * requests are answered on a separate thread from the last values read, so a
+ * scrape never waits for the main thread.
+ */
+public final class MetricsServer {
+
+    private static final MetricsServer INSTANCE = new MetricsServer();
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Nullable private HttpServer server;
+    @Nullable private ExecutorService executor;
+    @Nullable private volatile MetricsSnapshot snapshot;
+    private boolean started;
+    private int ticks;
+
+    private MetricsServer() {
+    }
+
+    public static MetricsServer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts the endpoint on the first tick if it is enabled and updates the
+     * served values at the configured interval. Must be called on the main
+     * thread at the end of each tick.
+     *
+     * @param server The server
+     */
+    public void tick(MinecraftServer server) {
+        SpongeConfig.MetricsCategory config = SpongeImpl.getGlobalConfig().getConfig().getMetrics();
+        if (!this.started) {
+            if (!config.isEnabled()) {
+                return;
+            }
+            this.started = true;
+            start(config);
+        }
+        if (this.server == null || ++this.ticks < Math.max(1, config.getUpdateInterval())) {
+            return;
+        }
+        this.ticks = 0;
+        this.snapshot = MetricsSnapshot.capture(server);
+    }
+
+    private void start(SpongeConfig.MetricsCategory config) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("Sponge Metrics")
+                .setDaemon(true)
+                .build());
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(config.getAddress(), config.getPort()), 0);
+            server.createContext("/metrics", this::handle);
+            server.setExecutor(executor);
+            server.start();
+            this.server = server;
+            this.executor = executor;
+            SpongeImpl.getLogger().info("Serving metrics on http://{}:{}/metrics", config.getAddress(), config.getPort());
+        } catch (IOException | RuntimeException e) {
+            executor.shutdown();
+            SpongeImpl.getLogger().error("Could not start the metrics endpoint on {}:{}", config.getAddress(), config.getPort(), e);
+        }
+    }
+
+    /**
+     * Stops the endpoint if it is running.
+     */
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.server = null;
+        }
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+            this.executor = null;
+        }
+        this.snapshot = null;
+        this.started = false;
+        this.ticks = 0;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            MetricsSnapshot snapshot = this.snapshot;
+            if (snapshot == null) {
+                // Nothing was read from the server yet
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            StringBuilder builder = new StringBuilder(8192);
+            snapshot.write(builder);
+            byte[] body = builder.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+}
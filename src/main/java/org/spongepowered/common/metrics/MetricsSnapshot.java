@@ -0,0 +1,283 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.metrics;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.WorldServer;
+import org.spongepowered.api.Server;
+import org.spongepowered.api.event.EventManager;
+import org.spongepowered.api.world.World;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.common.event.SpongeEventManager;
+import org.spongepowered.common.interfaces.IMixinMinecraftServer;
+import org.spongepowered.common.interfaces.world.IMixinWorldServer;
+import org.spongepowered.common.scheduler.PluginTaskExecutor;
+import org.spongepowered.common.scheduler.SpongeScheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The values of the server read on the main thread, which the metrics
+ * endpoint formats without touching the server.
+ */
+final class MetricsSnapshot {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99};
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final long time = System.currentTimeMillis();
+    private final double ticksPerSecond;
+    // The recent tick times in nanoseconds, sorted
+    private final long[] tickTimes;
+    private final int players;
+    private final List<WorldValues> worlds;
+    private final int syncTasks;
+    private final int asyncTasks;
+    private final int syncExecutorPending;
+    private final int syncDeferred;
+    private final List<ExecutorValues> asyncExecutors;
+    private final Map<String, Integer> listeners;
+
+    private MetricsSnapshot(MinecraftServer server) {
+        this.ticksPerSecond = ((Server) server).getTicksPerSecond();
+        this.tickTimes = Arrays.stream(server.tickTimeArray).filter(time -> time != 0).sorted().toArray();
+        this.players = server.getCurrentPlayerCount();
+
+        ImmutableList.Builder<WorldValues> worlds = ImmutableList.builder();
+        for (World spongeWorld : ((Server) server).getWorlds()) {
+            worlds.add(new WorldValues(server, (WorldServer) spongeWorld));
+        }
+        this.worlds = worlds.build();
+
+        SpongeScheduler scheduler = SpongeScheduler.getInstance();
+        this.syncTasks = scheduler.getScheduledTasks(false).size();
+        this.asyncTasks = scheduler.getScheduledTasks(true).size();
+        this.syncExecutorPending = scheduler.getSyncExecutorPendingCount();
+        this.syncDeferred = scheduler.getSyncDeferredCount();
+        ImmutableList.Builder<ExecutorValues> executors = ImmutableList.builder();
+        for (PluginTaskExecutor executor : scheduler.getAsyncExecutors()) {
+            executors.add(new ExecutorValues(executor));
+        }
+        this.asyncExecutors = executors.build();
+
+        EventManager eventManager = SpongeImpl.getGame().getEventManager();
+        this.listeners = eventManager instanceof SpongeEventManager
+                ? ImmutableMap.copyOf(((SpongeEventManager) eventManager).getListenerCounts()) : ImmutableMap.of();
+    }
+
+    /**
+     * Reads the current values of the server, must be called on the main
+     * thread.
+     *
+     * @param server The server
+     * @return The snapshot
+     */
+    static MetricsSnapshot capture(MinecraftServer server) {
+        return new MetricsSnapshot(server);
+    }
+
+    /**
+     * Formats the snapshot and the current JVM memory usage in the Prometheus
+     * text format.
+     *
+     * @param builder The builder to append to
+     */
+    void write(StringBuilder builder) {
+        header(builder, "sponge_metrics_timestamp_seconds", "gauge", "The time the server values were read");
+        sample(builder, "sponge_metrics_timestamp_seconds", "", this.time / 1000.0);
+
+        header(builder, "sponge_tps", "gauge", "The ticks per second over the last 100 ticks");
+        sample(builder, "sponge_tps", "", this.ticksPerSecond);
+
+        header(builder, "sponge_tick_duration_milliseconds", "summary", "The duration of the last 100 ticks");
+        long sum = 0;
+        for (long tickTime : this.tickTimes) {
+            sum += tickTime;
+        }
+        if (this.tickTimes.length != 0) {
+            for (double quantile : QUANTILES) {
+                int index = Math.min(this.tickTimes.length - 1, Math.max(0, (int) Math.ceil(quantile * this.tickTimes.length) - 1));
+                sample(builder, "sponge_tick_duration_milliseconds", label("quantile", Double.toString(quantile)),
+                        this.tickTimes[index] / NANOS_PER_MILLI);
+            }
+        }
+        sample(builder, "sponge_tick_duration_milliseconds_sum", "", sum / NANOS_PER_MILLI);
+        sample(builder, "sponge_tick_duration_milliseconds_count", "", this.tickTimes.length);
+
+        header(builder, "sponge_players", "gauge", "The number of online players");
+        sample(builder, "sponge_players", "", this.players);
+
+        header(builder, "sponge_world_loaded_chunks", "gauge", "The number of loaded chunks of each world");
+        for (WorldValues world : this.worlds) {
+            sample(builder, "sponge_world_loaded_chunks", world.labels, world.loadedChunks);
+        }
+        header(builder, "sponge_world_active_chunks", "gauge", "The number of chunks near players of each world");
+        for (WorldValues world : this.worlds) {
+            sample(builder, "sponge_world_active_chunks", world.labels, world.activeChunks);
+        }
+        header(builder, "sponge_world_pending_chunk_saves", "gauge", "The number of chunks of each world waiting to be saved");
+        for (WorldValues world : this.worlds) {
+            sample(builder, "sponge_world_pending_chunk_saves", world.labels, world.pendingChunkSaves);
+        }
+        header(builder, "sponge_world_entities", "gauge", "The number of loaded entities of each world");
+        for (WorldValues world : this.worlds) {
+            sample(builder, "sponge_world_entities", world.labels, world.entities);
+        }
+        header(builder, "sponge_world_tile_entities", "gauge", "The number of loaded tile entities of each world");
+        for (WorldValues world : this.worlds) {
+            sample(builder, "sponge_world_tile_entities", world.labels, world.tileEntities);
+        }
+        header(builder, "sponge_world_players", "gauge", "The number of players in each world");
+        for (WorldValues world : this.worlds) {
+            sample(builder, "sponge_world_players", world.labels, world.players);
+        }
+        header(builder, "sponge_world_tick_duration_milliseconds", "gauge", "The average duration of the last 100 ticks of each world");
+        for (WorldValues world : this.worlds) {
+            if (world.averageTickTime >= 0) {
+                sample(builder, "sponge_world_tick_duration_milliseconds", world.labels, world.averageTickTime / NANOS_PER_MILLI);
+            }
+        }
+
+        header(builder, "sponge_scheduler_tasks", "gauge", "The number of scheduled tasks");
+        sample(builder, "sponge_scheduler_tasks", label("type", "sync"), this.syncTasks);
+        sample(builder, "sponge_scheduler_tasks", label("type", "async"), this.asyncTasks);
+        header(builder, "sponge_scheduler_sync_executor_pending", "gauge", "The number of runnables waiting for the next tick");
+        sample(builder, "sponge_scheduler_sync_executor_pending", "", this.syncExecutorPending);
+        header(builder, "sponge_scheduler_sync_deferred", "gauge", "The number of synchronous tasks carried over to a later tick");
+        sample(builder, "sponge_scheduler_sync_deferred", "", this.syncDeferred);
+        header(builder, "sponge_scheduler_async_queued", "gauge", "The number of asynchronous tasks waiting for a thread");
+        for (ExecutorValues executor : this.asyncExecutors) {
+            sample(builder, "sponge_scheduler_async_queued", executor.labels, executor.queued);
+        }
+        header(builder, "sponge_scheduler_async_active", "gauge", "The number of asynchronous tasks running");
+        for (ExecutorValues executor : this.asyncExecutors) {
+            sample(builder, "sponge_scheduler_async_active", executor.labels, executor.active);
+        }
+        header(builder, "sponge_scheduler_async_rejected_total", "counter", "The number of asynchronous tasks rejected because the queue was full");
+        for (ExecutorValues executor : this.asyncExecutors) {
+            sample(builder, "sponge_scheduler_async_rejected_total", executor.labels, executor.rejected);
+        }
+
+        header(builder, "sponge_event_listeners", "gauge", "The number of registered event listeners");
+        for (Map.Entry<String, Integer> entry : this.listeners.entrySet()) {
+            sample(builder, "sponge_event_listeners", label("plugin", entry.getKey()), entry.getValue());
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        MemoryUsage heap = memory.getHeapMemoryUsage();
+        MemoryUsage nonHeap = memory.getNonHeapMemoryUsage();
+        header(builder, "jvm_memory_bytes_used", "gauge", "The memory used by the JVM");
+        sample(builder, "jvm_memory_bytes_used", label("area", "heap"), heap.getUsed());
+        sample(builder, "jvm_memory_bytes_used", label("area", "nonheap"), nonHeap.getUsed());
+        header(builder, "jvm_memory_bytes_committed", "gauge", "The memory committed by the JVM");
+        sample(builder, "jvm_memory_bytes_committed", label("area", "heap"), heap.getCommitted());
+        sample(builder, "jvm_memory_bytes_committed", label("area", "nonheap"), nonHeap.getCommitted());
+        header(builder, "jvm_memory_bytes_max", "gauge", "The maximum memory the JVM may use, -1 if undefined");
+        sample(builder, "jvm_memory_bytes_max", label("area", "heap"), heap.getMax());
+        sample(builder, "jvm_memory_bytes_max", label("area", "nonheap"), nonHeap.getMax());
+    }
+
+    private static void header(StringBuilder builder, String name, String type, String help) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder builder, String name, String labels, double value) {
+        builder.append(name);
+        if (!labels.isEmpty()) {
+            builder.append('{').append(labels).append('}');
+        }
+        builder.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            builder.append((long) value);
+        } else {
+            builder.append(value);
+        }
+        builder.append('\n');
+    }
+
+    private static String label(String name, String value) {
+        StringBuilder builder = new StringBuilder(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                builder.append('\\').append(c);
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    private static final class WorldValues {
+
+        final String labels;
+        final int loadedChunks;
+        final int activeChunks;
+        final int pendingChunkSaves;
+        final int entities;
+        final int tileEntities;
+        final int players;
+        final long averageTickTime;
+
+        WorldValues(MinecraftServer server, WorldServer world) {
+            int dimension = world.provider.getDimensionId();
+            this.labels = label("world", ((World) world).getName()) + ',' + label("dimension", Integer.toString(dimension));
+            this.loadedChunks = world.theChunkProviderServer.loadedChunks.size();
+            this.activeChunks = world.activeChunkSet.size();
+            this.pendingChunkSaves = ((IMixinWorldServer) world).getChunkSaveScheduler().getPendingCount();
+            this.entities = world.loadedEntityList.size();
+            this.tileEntities = world.loadedTileEntityList.size();
+            this.players = world.playerEntities.size();
+            long[] tickTimes = ((IMixinMinecraftServer) server).getWorldTickTimes().get(dimension);
+            this.averageTickTime = tickTimes == null ? -1 : (long) Arrays.stream(tickTimes).average().orElse(0);
+        }
+    }
+
+    private static final class ExecutorValues {
+
+        final String labels;
+        final int queued;
+        final int active;
+        final long rejected;
+
+        ExecutorValues(PluginTaskExecutor executor) {
+            this.labels = label("plugin", executor.getPlugin().getId());
+            this.queued = executor.getQueuedCount();
+            this.active = executor.getActiveCount();
+            this.rejected = executor.getRejectedCount();
+        }
+    }
+
+}
@@ -75,6 +75,7 @@
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.common.SpongeImpl;
 import org.spongepowered.common.SpongeImplFactory;
@@ -86,10 +87,13 @@
 import org.spongepowered.common.interfaces.world.IMixinWorldInfo;
 import org.spongepowered.common.interfaces.world.IMixinWorldProvider;
 import org.spongepowered.common.interfaces.world.IMixinWorldSettings;
+import org.spongepowered.common.metrics.MetricsServer;
 import org.spongepowered.common.profile.SpongeProfileManager;
+import org.spongepowered.common.profiler.LagSpikeRecorder;
 import org.spongepowered.common.registry.type.world.DimensionRegistryModule;
 import org.spongepowered.common.registry.type.world.WorldPropertyRegistryModule;
 import org.spongepowered.common.resourcepack.SpongeResourcePack;
+import org.spongepowered.common.scheduler.SpongeScheduler;
 import org.spongepowered.common.text.sink.SpongeMessageSinkFactory;
 import org.spongepowered.common.util.ServerUtils;
 import org.spongepowered.common.util.SpongeHooks;
@@ -141,9 +145,11 @@ public abstract class MixinMinecraftServer implements Server, ConsoleSource, IMi
     @Shadow protected abstract void convertMapIfNeeded(String worldNameIn);
     @Shadow protected abstract void setResourcePackFromWorld(String worldNameIn, ISaveHandler saveHandlerIn);
     @Shadow public abstract boolean getAllowNether();
+    @Shadow protected abstract void saveAllWorlds(boolean dontLog);
 
     private ResourcePack resourcePack;
     private boolean enableSaving = true;
+    private boolean autoSaving;
     private GameProfileManager profileManager = new SpongeProfileManager();
 
     @Override
@@ -791,6 +797,54 @@ public void setSaveEnabled(boolean enabled) {
         this.enableSaving = enabled;
     }
 
+    @Override
+    public boolean isSaveEnabled() {
+        return this.enableSaving;
+    }
+
+    @Override
+    public boolean isAutoSaving() {
+        return this.autoSaving;
+    }
+
+    @Inject(method = "tick()V", at = @At("HEAD"))
+    private void onTickStart(CallbackInfo ci) {
+        LagSpikeRecorder.getInstance().startTick(this.tickCounter + 1);
+        SpongeScheduler.getInstance().markTickStart();
+    }
+
+    @Inject(method = "tick()V", at = @At("RETURN"))
+    private void onTickEnd(CallbackInfo ci) {
+        MetricsServer.getInstance().tick((MinecraftServer) (Object) this);
+        LagSpikeRecorder.getInstance().endTick();
+    }
+
+    @Inject(method = "updateTimeLightAndEntities", at = @At(value = "INVOKE", target = "Lnet/minecraft/network/NetworkSystem;networkTick()V"))
+    private void onNetworkTickBegin(CallbackInfo ci) {
+        LagSpikeRecorder.getInstance().startPhase(LagSpikeRecorder.NO_WORLD, LagSpikeRecorder.Phase.NETWORK);
+    }
+
+    @Inject(method = "updateTimeLightAndEntities", at = @At(value = "INVOKE", target = "Lnet/minecraft/network/NetworkSystem;networkTick()V",
+            shift = At.Shift.AFTER))
+    private void onNetworkTickEnd(CallbackInfo ci) {
+        LagSpikeRecorder.getInstance().endPhase();
+    }
+
+    @Redirect(method = "tick()V", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/MinecraftServer;saveAllWorlds(Z)V"))
+    private void onAutoSave(MinecraftServer server, boolean dontLog) {
+        this.autoSaving = true;
+        try {
+            this.saveAllWorlds(dontLog);
+        } finally {
+            this.autoSaving = false;
+        }
+    }
+
+    @Inject(method = "stopServer()V", at = @At("RETURN"))
+    public void onServerStopped(CallbackInfo ci) {
+        MetricsServer.getInstance().stop();
+    }
+
     @Inject(method = "saveAllWorlds(Z)V", at = @At("HEAD"), cancellable = true)
     private void onSaveWorlds(boolean dontLog, CallbackInfo ci) {
         if (!this.enableSaving) {
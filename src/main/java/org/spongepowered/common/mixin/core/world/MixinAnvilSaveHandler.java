@@ -32,6 +32,10 @@
 import org.spongepowered.api.util.annotation.NonnullByDefault;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.common.world.storage.ChunkIOExecutor;
 
 import java.io.File;
 
@@ -52,4 +56,10 @@ public IChunkLoader getChunkLoader(WorldProvider provider) {
         // This allows users to remove our mod and maintain world compatibility.
         return new AnvilChunkLoader(this.getWorldDirectory());
     }
+
+    @Inject(method = "flush", at = @At("HEAD"))
+    public void onFlush(CallbackInfo ci) {
+        // The region files are closed after this, so the chunk writes must be done
+        ChunkIOExecutor.waitForFinish();
+    }
 }
@@ -62,6 +62,7 @@
 import org.spongepowered.api.world.Chunk;
 import org.spongepowered.api.world.biome.BiomeType;
 import org.spongepowered.api.world.extent.Extent;
+import org.spongepowered.asm.lib.Opcodes;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
@@ -76,6 +77,7 @@
 import org.spongepowered.common.interfaces.IMixinChunk;
 import org.spongepowered.common.interfaces.world.IMixinWorld;
 import org.spongepowered.common.interfaces.world.IMixinWorldInfo;
+import org.spongepowered.common.interfaces.world.IMixinWorldServer;
 import org.spongepowered.common.util.SpongeHooks;
 import org.spongepowered.common.util.VecHelper;
 import org.spongepowered.common.world.extent.ExtentViewDownsize;
@@ -96,6 +98,8 @@ public abstract class MixinChunk implements Chunk, IMixinChunk {
     public Map<Integer, PlayerTracker> trackedIntBlockPositions = Maps.newHashMap();
     public Map<Short, PlayerTracker> trackedShortBlockPositions = Maps.newHashMap();
     private Cause populateCause;
+    private boolean queuedForSave;
+    private boolean queuedForEntitySave;
 
     private static final int NUM_XZ_BITS = 4;
     private static final int NUM_SHORT_Y_BITS = 8;
@@ -121,6 +125,7 @@ public abstract class MixinChunk implements Chunk, IMixinChunk {
     @Shadow private boolean isChunkLoaded;
     @Shadow private boolean isTerrainPopulated;
     @Shadow private boolean isModified;
+    @Shadow private boolean hasEntities;
     @Shadow private ExtendedBlockStorage[] storageArrays;
     @Shadow private int[] precipitationHeightMap;
     @Shadow private int[] heightMap;
@@ -152,6 +157,22 @@ public void onConstructed(World world, int x, int z, CallbackInfo ci) {
     public void onChunkLoadInject(CallbackInfo ci) {
         if (!this.worldObj.isRemote) {
             SpongeHooks.logChunkLoad(this.worldObj, this.chunkPos);
+            if (this.worldObj instanceof IMixinWorldServer) {
+                if (this.isModified) {
+                    markDirtyForSave();
+                }
+                if (this.hasEntities) {
+                    ((IMixinWorldServer) this.worldObj).getChunkSaveScheduler().markEntityChunk((net.minecraft.world.chunk.Chunk) (Object) this);
+                }
+            }
+        }
+    }
+
+    @Inject(method = "onChunkUnload()V", at = @At("HEAD"))
+    public void onChunkUnloadBegin(CallbackInfo ci) {
+        if (!this.worldObj.isRemote && this.worldObj instanceof IMixinWorldServer) {
+            // Queued light changes would not be saved with the chunk otherwise
+            ((IMixinWorldServer) this.worldObj).getLightUpdateQueue().flushChunk(this.xPosition, this.zPosition);
         }
     }
 
@@ -159,9 +180,67 @@ public void onChunkLoadInject(CallbackInfo ci) {
     public void onChunkUnloadInject(CallbackInfo ci) {
         if (!this.worldObj.isRemote) {
             SpongeHooks.logChunkUnload(this.worldObj, this.chunkPos);
+            if (this.worldObj instanceof IMixinWorldServer) {
+                // The chunk provider saves the chunk itself while unloading it
+                ((IMixinWorldServer) this.worldObj).getChunkSaveScheduler().remove((net.minecraft.world.chunk.Chunk) (Object) this);
+            }
+        }
+    }
+
+    @Inject(method = "setChunkModified()V", at = @At("HEAD"))
+    public void onSetChunkModified(CallbackInfo ci) {
+        markDirtyForSave();
+    }
+
+    @Inject(method = "setModified(Z)V", at = @At("HEAD"))
+    public void onSetModified(boolean modified, CallbackInfo ci) {
+        if (modified) {
+            markDirtyForSave();
+        }
+    }
+
+    @Inject(method = {"setLightFor", "generateSkylightMap"}, at = @At(value = "FIELD", target = "Lnet/minecraft/world/chunk/Chunk;isModified:Z",
+            opcode = Opcodes.PUTFIELD))
+    public void onMarkModified(CallbackInfo ci) {
+        markDirtyForSave();
+    }
+
+    @Inject(method = {"addEntity", "removeEntityAtIndex"}, at = @At("RETURN"))
+    public void onEntityListChanged(CallbackInfo ci) {
+        markDirtyForSave();
+    }
+
+    private void markDirtyForSave() {
+        if (!this.queuedForSave && this.isChunkLoaded && this.worldObj instanceof IMixinWorldServer) {
+            ((IMixinWorldServer) this.worldObj).getChunkSaveScheduler().markDirty((net.minecraft.world.chunk.Chunk) (Object) this);
         }
     }
 
+    @Override
+    public boolean hasEntities() {
+        return this.hasEntities;
+    }
+
+    @Override
+    public boolean isQueuedForSave() {
+        return this.queuedForSave;
+    }
+
+    @Override
+    public void setQueuedForSave(boolean queued) {
+        this.queuedForSave = queued;
+    }
+
+    @Override
+    public boolean isQueuedForEntitySave() {
+        return this.queuedForEntitySave;
+    }
+
+    @Override
+    public void setQueuedForEntitySave(boolean queued) {
+        this.queuedForEntitySave = queued;
+    }
+
     @Override
     public Vector3i getPosition() {
         return this.chunkPos;
@@ -483,6 +562,7 @@ public IBlockState setBlockState(BlockPos pos, IBlockState newState, IBlockState
             }
 
             this.isModified = true;
+            markDirtyForSave();
             return currentState;
         }
     }
@@ -191,9 +191,11 @@
 import org.spongepowered.common.interfaces.entity.IMixinEntity;
 import org.spongepowered.common.interfaces.world.IMixinWorld;
 import org.spongepowered.common.interfaces.world.IMixinWorldInfo;
+import org.spongepowered.common.interfaces.world.IMixinWorldServer;
 import org.spongepowered.common.interfaces.world.IMixinWorldSettings;
 import org.spongepowered.common.interfaces.world.IMixinWorldType;
 import org.spongepowered.common.interfaces.world.gen.IPopulatorProvider;
+import org.spongepowered.common.profiler.LagSpikeRecorder;
 import org.spongepowered.common.registry.provider.DirectionFacingProvider;
 import org.spongepowered.common.scoreboard.SpongeScoreboard;
 import org.spongepowered.common.util.SpongeHooks;
@@ -202,6 +204,7 @@
 import org.spongepowered.common.world.CaptureType;
 import org.spongepowered.common.world.DimensionManager;
 import org.spongepowered.common.world.SpongeChunkPreGenerate;
+import org.spongepowered.common.world.TickCostTracker;
 import org.spongepowered.common.world.border.PlayerBorderListener;
 import org.spongepowered.common.world.extent.ExtentViewDownsize;
 import org.spongepowered.common.world.extent.ExtentViewTransform;
@@ -399,9 +402,12 @@ public boolean setBlockState(BlockPos pos, IBlockState newState, int flags) {
                 Block block1 = iblockstate1.getBlock();
 
                 if (block.getLightOpacity() != block1.getLightOpacity() || block.getLightValue() != oldLight) {
-                    this.theProfiler.startSection("checkLight");
-                    this.checkLight(pos);
-                    this.theProfiler.endSection();
+                    // Relit at the end of the tick when batched lighting is enabled
+                    if (this.isRemote || !((IMixinWorldServer) this).getLightUpdateQueue().queue(pos)) {
+                        this.theProfiler.startSection("checkLight");
+                        this.checkLight(pos);
+                        this.theProfiler.endSection();
+                    }
                 }
 
                 // Don't notify clients or update physics while capturing blockstates
@@ -449,6 +455,28 @@ public void onForceBlockUpdateTick(Block block, net.minecraft.world.World worldI
         this.processingCaptureCause = false;
     }
 
+    @Inject(method = "updateEntities", at = @At("HEAD"))
+    private void onUpdateEntitiesBegin(CallbackInfo ci) {
+        if (!this.isRemote) {
+            LagSpikeRecorder.getInstance().startPhase(this.provider.getDimensionId(), LagSpikeRecorder.Phase.ENTITIES);
+        }
+    }
+
+    @Inject(method = "updateEntities", at = @At(value = "INVOKE_STRING", target = "Lnet/minecraft/profiler/Profiler;endStartSection(Ljava/lang/String;)V",
+            args = "ldc=blockEntities"))
+    private void onUpdateTileEntitiesBegin(CallbackInfo ci) {
+        if (!this.isRemote) {
+            LagSpikeRecorder.getInstance().startPhase(this.provider.getDimensionId(), LagSpikeRecorder.Phase.TILE_ENTITIES);
+        }
+    }
+
+    @Inject(method = "updateEntities", at = @At("RETURN"))
+    private void onUpdateEntitiesEnd(CallbackInfo ci) {
+        if (!this.isRemote) {
+            LagSpikeRecorder.getInstance().endPhase();
+        }
+    }
+
     @Redirect(method = "updateEntities", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/Entity;onUpdate()V") )
     public void onUpdateEntities(net.minecraft.entity.Entity entityIn) {
         if (this.isRemote || this.currentTickEntity != null) {
@@ -458,8 +486,13 @@ public void onUpdateEntities(net.minecraft.entity.Entity entityIn) {
 
         this.processingCaptureCause = true;
         this.currentTickEntity = (Entity) entityIn;
+        final TickCostTracker tickCostTracker = ((IMixinWorldServer) this).getTickCostTracker();
+        final long start = tickCostTracker.isEnabled() ? System.nanoTime() : 0;
         entityIn.onUpdate();
         handlePostTickCaptures(Cause.of(NamedCause.source(entityIn)));
+        if (tickCostTracker.isEnabled()) {
+            tickCostTracker.record(entityIn.chunkCoordX, entityIn.chunkCoordZ, entityIn.getClass(), System.nanoTime() - start);
+        }
         this.currentTickEntity = null;
         this.processingCaptureCause = false;
     }
@@ -473,8 +506,14 @@ public void onUpdateTileEntities(IUpdatePlayerListBox tile) {
 
         this.processingCaptureCause = true;
         this.currentTickTileEntity = (TileEntity) tile;
+        final TickCostTracker tickCostTracker = ((IMixinWorldServer) this).getTickCostTracker();
+        final long start = tickCostTracker.isEnabled() ? System.nanoTime() : 0;
         tile.update();
         handlePostTickCaptures(Cause.of(NamedCause.source(tile)));
+        if (tickCostTracker.isEnabled()) {
+            BlockPos pos = ((net.minecraft.tileentity.TileEntity) tile).getPos();
+            tickCostTracker.record(pos.getX() >> 4, pos.getZ() >> 4, tile.getClass(), System.nanoTime() - start);
+        }
         this.currentTickTileEntity = null;
         this.processingCaptureCause = false;
     }
@@ -488,8 +527,13 @@ public void onCallEntityUpdate(net.minecraft.entity.Entity entity) {
 
         this.processingCaptureCause = true;
         this.currentTickEntity = (Entity) entity;
+        final TickCostTracker tickCostTracker = ((IMixinWorldServer) this).getTickCostTracker();
+        final long start = tickCostTracker.isEnabled() ? System.nanoTime() : 0;
         entity.onUpdate();
         handlePostTickCaptures(Cause.of(NamedCause.source(entity)));
+        if (tickCostTracker.isEnabled()) {
+            tickCostTracker.record(entity.chunkCoordX, entity.chunkCoordZ, entity.getClass(), System.nanoTime() - start);
+        }
         this.currentTickEntity = null;
         this.processingCaptureCause = false;
     }
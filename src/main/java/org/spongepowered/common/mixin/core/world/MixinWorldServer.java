@@ -31,13 +31,16 @@
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.scoreboard.ScoreboardSaveData;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.BlockPos;
+import net.minecraft.util.IProgressUpdate;
 import net.minecraft.village.VillageCollection;
 import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.NextTickListEntry;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.WorldSettings;
+import net.minecraft.world.chunk.IChunkProvider;
 import org.spongepowered.api.block.ScheduledBlockUpdate;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.entity.living.player.User;
@@ -58,10 +61,17 @@
 import org.spongepowered.common.entity.PlayerTracker;
 import org.spongepowered.common.interfaces.IMixinBlockUpdate;
 import org.spongepowered.common.interfaces.IMixinChunk;
+import org.spongepowered.common.interfaces.IMixinMinecraftServer;
 import org.spongepowered.common.interfaces.IMixinScoreboardSaveData;
+import org.spongepowered.common.interfaces.world.IMixinWorldServer;
+import org.spongepowered.common.profiler.LagSpikeRecorder;
 import org.spongepowered.common.util.SpongeHooks;
 import org.spongepowered.common.util.StaticMixinHelper;
 import org.spongepowered.common.util.VecHelper;
+import org.spongepowered.common.world.LightUpdateQueue;
+import org.spongepowered.common.world.TickCostTracker;
+import org.spongepowered.common.world.gen.ChunkPrefetcher;
+import org.spongepowered.common.world.storage.ChunkSaveScheduler;
 
 import java.util.Collection;
 import java.util.Map;
@@ -72,14 +82,19 @@
 
 @NonnullByDefault
 @Mixin(WorldServer.class)
-public abstract class MixinWorldServer extends MixinWorld {
+public abstract class MixinWorldServer extends MixinWorld implements IMixinWorldServer {
 
     private Map<BlockPos, User> trackedBlockEvents = Maps.newHashMap();
+    private final ChunkSaveScheduler chunkSaveScheduler = new ChunkSaveScheduler((WorldServer) (Object) this);
+    private final ChunkPrefetcher chunkPrefetcher = new ChunkPrefetcher((WorldServer) (Object) this);
+    private final LightUpdateQueue lightUpdateQueue = new LightUpdateQueue((WorldServer) (Object) this);
+    private final TickCostTracker tickCostTracker = new TickCostTracker((WorldServer) (Object) this);
 
     @Shadow public abstract void updateBlockTick(BlockPos p_175654_1_, Block p_175654_2_, int p_175654_3_, int p_175654_4_);
     @Shadow public abstract boolean fireBlockEvent(BlockEventData event);
     @Shadow private Set<NextTickListEntry> pendingTickListEntriesHashSet;
     @Shadow private TreeSet<NextTickListEntry> pendingTickListEntriesTreeSet;
+    @Shadow private MinecraftServer mcServer;
 
     @Inject(method = "createSpawnPosition(Lnet/minecraft/world/WorldSettings;)V", at = @At("HEAD"), cancellable = true)
     public void onCreateSpawnPosition(WorldSettings settings, CallbackInfo ci) {
@@ -109,6 +124,66 @@ public void onInit(CallbackInfoReturnable<World> cir, ScoreboardSaveData scorebo
         this.spongeScoreboard.getScoreboards().add(this.worldScoreboard);
     }
 
+    @Inject(method = "tick()V", at = @At("HEAD"))
+    public void onTickBegin(CallbackInfo ci) {
+        LagSpikeRecorder.getInstance().startPhase(this.provider.getDimensionId(), LagSpikeRecorder.Phase.WORLD);
+    }
+
+    @Inject(method = "tick()V", at = @At(value = "INVOKE_STRING", target = "Lnet/minecraft/profiler/Profiler;endStartSection(Ljava/lang/String;)V", args = "ldc=tickPending"))
+    public void onTickPendingBegin(CallbackInfo ci) {
+        LagSpikeRecorder.getInstance().startPhase(this.provider.getDimensionId(), LagSpikeRecorder.Phase.BLOCK_TICKS);
+    }
+
+    @Inject(method = "tick()V", at = @At(value = "INVOKE_STRING", target = "Lnet/minecraft/profiler/Profiler;endStartSection(Ljava/lang/String;)V", args = "ldc=chunkMap"))
+    public void onUpdateBlocksEnd(CallbackInfo ci) {
+        // The rest of the world tick, and the time until its entities are
+        // updated, is counted for the world
+        LagSpikeRecorder.getInstance().startPhase(this.provider.getDimensionId(), LagSpikeRecorder.Phase.WORLD);
+    }
+
+    @Inject(method = "tick()V", at = @At("RETURN"))
+    public void onTickEnd(CallbackInfo ci) {
+        this.chunkSaveScheduler.tick();
+        this.chunkPrefetcher.tick();
+        this.tickCostTracker.tick();
+    }
+
+    @Inject(method = "updateEntities", at = @At("RETURN"))
+    public void onUpdateEntitiesEnd(CallbackInfo ci) {
+        // Entities and tile entities change blocks too, their light is
+        // rechecked in the same tick
+        this.lightUpdateQueue.tick();
+    }
+
+    @Redirect(method = "saveAllChunks", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/world/chunk/IChunkProvider;saveChunks(ZLnet/minecraft/util/IProgressUpdate;)Z"))
+    public boolean onSaveChunks(IChunkProvider chunkProvider, boolean saveAllChunks, IProgressUpdate progressCallback) {
+        if (this.chunkSaveScheduler.isEnabled() && ((IMixinMinecraftServer) this.mcServer).isAutoSaving()) {
+            // Chunks are written a few at a time every tick instead
+            return true;
+        }
+        boolean result = chunkProvider.saveChunks(saveAllChunks, progressCallback);
+        if (saveAllChunks) {
+            this.chunkSaveScheduler.clear();
+        }
+        return result;
+    }
+
+    @Override
+    public ChunkSaveScheduler getChunkSaveScheduler() {
+        return this.chunkSaveScheduler;
+    }
+
+    @Override
+    public LightUpdateQueue getLightUpdateQueue() {
+        return this.lightUpdateQueue;
+    }
+
+    @Override
+    public TickCostTracker getTickCostTracker() {
+        return this.tickCostTracker;
+    }
+
     @Redirect(method = "updateBlocks", at = @At(value = "INVOKE", target = "Lnet/minecraft/block/Block;randomTick(Lnet/minecraft/world/World;Lnet/minecraft/util/BlockPos;Lnet/minecraft/block/state/IBlockState;Ljava/util/Random;)V"))
     public void onUpdateBlocks(Block block, net.minecraft.world.World worldIn, BlockPos pos, IBlockState state, Random rand) {
         if (this.isRemote || this.currentTickBlock != null) {
@@ -27,22 +27,64 @@
 import com.google.common.collect.Maps;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
+import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
 import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import net.minecraft.world.storage.IThreadedFileIO;
+import net.minecraft.world.storage.ThreadedFileIOBase;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 import org.spongepowered.common.data.util.NbtDataUtil;
 import org.spongepowered.common.entity.PlayerTracker;
 import org.spongepowered.common.interfaces.IMixinChunk;
+import org.spongepowered.common.interfaces.world.IMixinAnvilChunkLoader;
+import org.spongepowered.common.util.SpongeHooks;
+import org.spongepowered.common.world.storage.ChunkIOExecutor;
+import org.spongepowered.common.world.storage.MappedRegionFileCache;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
 
 @Mixin(AnvilChunkLoader.class)
-public class MixinAnvilChunkLoader {
+public abstract class MixinAnvilChunkLoader implements IMixinAnvilChunkLoader {
+
+    @Shadow private Map<ChunkCoordIntPair, NBTTagCompound> chunksToRemove;
+    @Shadow private File chunkSaveLocation;
+
+    @Shadow protected abstract net.minecraft.world.chunk.Chunk checkedReadChunkFromNBT(World worldIn, int x, int z, NBTTagCompound compound);
+
+    @Inject(method = "loadChunk", at = @At("HEAD"), cancellable = true)
+    public void onLoadChunk(World worldIn, int x, int z, CallbackInfoReturnable<net.minecraft.world.chunk.Chunk> cir) throws IOException {
+        if (!SpongeHooks.getActiveConfig(worldIn).getConfig().getWorld().useMemoryMappedRegionFiles()) {
+            return;
+        }
+        NBTTagCompound compound = this.chunksToRemove.get(new ChunkCoordIntPair(x, z));
+        if (compound == null) {
+            compound = MappedRegionFileCache.readChunk(this.chunkSaveLocation, x, z);
+            if (compound == null) {
+                cir.setReturnValue(null);
+                return;
+            }
+        }
+        cir.setReturnValue(this.checkedReadChunkFromNBT(worldIn, x, z, compound));
+    }
+
+    @Override
+    public boolean chunkExistsInStorage(int chunkX, int chunkZ) {
+        if (this.chunksToRemove.containsKey(new ChunkCoordIntPair(chunkX, chunkZ))) {
+            return true;
+        }
+        File file = new File(new File(this.chunkSaveLocation, "region"), "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
+        return file.exists() && RegionFileCache.createOrLoadRegionFile(this.chunkSaveLocation, chunkX, chunkZ).isChunkSaved(chunkX & 31, chunkZ & 31);
+    }
 
     @Inject(method = "writeChunkToNBT", at = @At(value = "RETURN"))
     public void onWriteChunkToNBT(net.minecraft.world.chunk.Chunk chunkIn, World worldIn, NBTTagCompound compound, CallbackInfo ci) {
@@ -119,4 +161,16 @@ public void onReadChunkFromNBT(World worldIn, NBTTagCompound compound, CallbackI
             chunk.setTrackedShortPlayerPositions(trackedShortPlayerPositions);
         }
     }
+
+    @Inject(method = "saveExtraData", at = @At("HEAD"))
+    public void onSaveExtraData(CallbackInfo ci) {
+        // Don't write the remaining chunks while the executor is still writing
+        ChunkIOExecutor.waitForFinish();
+    }
+
+    @Redirect(method = "addChunkToPending", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/world/storage/ThreadedFileIOBase;queueIO(Lnet/minecraft/world/storage/IThreadedFileIO;)V"))
+    public void onQueueIO(ThreadedFileIOBase threadedFileIO, IThreadedFileIO fileIO) {
+        ChunkIOExecutor.queue(fileIO);
+    }
 }
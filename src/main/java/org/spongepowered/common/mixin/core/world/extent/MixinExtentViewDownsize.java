@@ -57,6 +57,7 @@
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.common.util.VecHelper;
+import org.spongepowered.common.world.extent.ExtentBlockCache;
 import org.spongepowered.common.world.extent.ExtentViewDownsize;
 import org.spongepowered.common.world.extent.ExtentViewTransform;
 
@@ -68,6 +69,8 @@
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import javax.annotation.Nullable;
+
 @Mixin(ExtentViewDownsize.class)
 public abstract class MixinExtentViewDownsize implements Extent {
 
@@ -79,6 +82,15 @@ public abstract class MixinExtentViewDownsize implements Extent {
     @Shadow(remap = false) private Vector2i biomeMax;
     @Shadow(remap = false) private Vector2i biomeSize;
 
+    @Nullable private ExtentBlockCache blockCache;
+
+    private ExtentBlockCache getBlockCache() {
+        if (this.blockCache == null) {
+            this.blockCache = new ExtentBlockCache((net.minecraft.world.World) this.extent);
+        }
+        return this.blockCache;
+    }
+
     @Override
     public UUID getUniqueId() {
         return this.extent.getUniqueId();
@@ -161,13 +173,15 @@ private void checkRange(int x, int y, int z) {
 
     @Override
     public BlockType getBlockType(int x, int y, int z) {
-        checkRange(x, y, z);
-        return this.extent.getBlockType(x, y, z);
+        return getBlock(x, y, z).getType();
     }
 
     @Override
     public BlockState getBlock(int x, int y, int z) {
         checkRange(x, y, z);
+        if (this.extent instanceof net.minecraft.world.World) {
+            return getBlockCache().getBlock(x, y, z);
+        }
         return this.extent.getBlock(x, y, z);
     }
 
@@ -49,6 +49,7 @@
 import org.spongepowered.api.util.Direction;
 import org.spongepowered.api.util.DiscreteTransform3;
 import org.spongepowered.api.util.Functional;
+import org.spongepowered.api.util.PositionOutOfBoundsException;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.biome.BiomeType;
@@ -56,6 +57,7 @@
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.common.util.VecHelper;
+import org.spongepowered.common.world.extent.ExtentBlockCache;
 import org.spongepowered.common.world.extent.ExtentViewDownsize;
 import org.spongepowered.common.world.extent.ExtentViewTransform;
 
@@ -67,6 +69,8 @@
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import javax.annotation.Nullable;
+
 @Mixin(ExtentViewTransform.class)
 public abstract class MixinExtentViewTransform implements Extent {
 
@@ -81,6 +85,15 @@ public abstract class MixinExtentViewTransform implements Extent {
     @Shadow(remap = false) private DiscreteTransform3 inverseTransform;
     @Shadow(remap = false) private ExtentViewTransform.DiscreteTransform3to2 inverseTransform2;
 
+    @Nullable private ExtentBlockCache blockCache;
+
+    private ExtentBlockCache getBlockCache() {
+        if (this.blockCache == null) {
+            this.blockCache = new ExtentBlockCache((net.minecraft.world.World) this.extent);
+        }
+        return this.blockCache;
+    }
+
     @Override
     public UUID getUniqueId() {
         return this.extent.getUniqueId();
@@ -144,14 +157,22 @@ public boolean containsBlock(int x, int y, int z) {
 
     @Override
     public BlockType getBlockType(int x, int y, int z) {
-        return this.extent.getBlockType(this.inverseTransform.transformX(x, y, z), this.inverseTransform.transformY(x, y, z), this.inverseTransform
-                .transformZ(x, y, z));
+        return getBlock(x, y, z).getType();
     }
 
     @Override
     public BlockState getBlock(int x, int y, int z) {
-        return this.extent.getBlock(this.inverseTransform.transformX(x, y, z), this.inverseTransform.transformY(x, y, z), this.inverseTransform
-                .transformZ(x, y, z));
+        final int xBacking = this.inverseTransform.transformX(x, y, z);
+        final int yBacking = this.inverseTransform.transformY(x, y, z);
+        final int zBacking = this.inverseTransform.transformZ(x, y, z);
+        if (this.extent instanceof net.minecraft.world.World) {
+            // The world checks the bounds for us otherwise
+            if (!this.extent.containsBlock(xBacking, yBacking, zBacking)) {
+                throw new PositionOutOfBoundsException(new Vector3i(x, y, z), this.blockMin, this.blockMax);
+            }
+            return getBlockCache().getBlock(xBacking, yBacking, zBacking);
+        }
+        return this.extent.getBlock(xBacking, yBacking, zBacking);
     }
 
     @Override
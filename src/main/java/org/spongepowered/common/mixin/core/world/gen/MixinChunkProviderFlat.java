@@ -44,13 +44,14 @@
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.common.interfaces.world.gen.IPopulatorProvider;
+import org.spongepowered.common.interfaces.world.gen.IThreadSafeGenerationPopulator;
 import org.spongepowered.common.world.gen.WorldGenConstants;
 import org.spongepowered.common.world.gen.populators.FilteredPopulator;
 
 import java.util.List;
 
 @Mixin(ChunkProviderFlat.class)
-public class MixinChunkProviderFlat implements GenerationPopulator, IPopulatorProvider {
+public class MixinChunkProviderFlat implements GenerationPopulator, IPopulatorProvider, IThreadSafeGenerationPopulator {
 
     @Shadow private IBlockState[] cachedBlockIDs;
     @Shadow private List structureGenerators;
@@ -0,0 +1,466 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.profiler;
+
+import com.google.common.collect.ImmutableMap;
+import net.minecraft.world.WorldServer;
+import org.spongepowered.api.world.World;
+import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.common.config.SpongeConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the time spent in each phase of the last ticks in a ring and writes
+ * them to a file when a tick takes longer than the configured threshold,
+ * together with stack samples of the server thread taken while the tick was
+ * running over the threshold.
+ *
+ * <p>Each tick is split into consecutive phases, starting a phase ends the
+ * previous one, so a phase costs a single {@link System#nanoTime()} call and
+ * a few array writes on the main thread. The samples are taken and the files
+ * written on a separate thread.</p>
+ */
+public final class LagSpikeRecorder {
+
+    /**
+     * The dimension of the phases that do not belong to a world.
+     */
+    public static final int NO_WORLD = Integer.MIN_VALUE;
+
+    private static final LagSpikeRecorder INSTANCE = new LagSpikeRecorder();
+    // Phases kept per tick, the time of further phases is added to the last one
+    private static final int MAX_PHASES = 256;
+    // The minimum time between two reports, so a server that keeps lagging
+    // does not write one for every tick
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(30);
+    private static final int MAX_SAMPLES = 5;
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    public enum Phase {
+        SERVER("server"),
+        NETWORK("network"),
+        SCHEDULER("scheduler"),
+        WORLD("other"),
+        BLOCK_TICKS("block ticks"),
+        ENTITIES("entities"),
+        TILE_ENTITIES("tile entities");
+
+        final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+    }
+
+    // Only used by the main thread
+    private long thresholdNanos;
+    private int ticks;
+    private long[] tickStarts = new long[0];
+    private long[] tickDurations = new long[0];
+    private int[] tickNumbers = new int[0];
+    private int[] phaseCounts = new int[0];
+    // Indexed by tick * MAX_PHASES + phase
+    private byte[] phases = new byte[0];
+    private int[] dimensions = new int[0];
+    private long[] phaseDurations = new long[0];
+    private int current = -1;
+    private int recorded;
+    private boolean inTick;
+    private Phase phase = Phase.SERVER;
+    private int phaseDimension = NO_WORLD;
+    private long phaseStart;
+    private long lastReport;
+    @Nullable private Watchdog watchdog;
+
+    // Read by the watchdog, the start is 0 outside of ticks
+    volatile int runningTick;
+    volatile long runningTickStart;
+
+    private LagSpikeRecorder() {
+    }
+
+    public static LagSpikeRecorder getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts recording a tick if the recorder is enabled in the config. Must
+     * be called on the main thread at the start of each tick.
+     *
+     * @param tick The number of the tick
+     */
+    public void startTick(int tick) {
+        SpongeConfig.DebugCategory config = SpongeImpl.getGlobalConfig().getConfig().getDebug();
+        configure(config.getLagSpikeThreshold(), config.getLagSpikeTicks());
+        if (this.ticks == 0) {
+            return;
+        }
+        final long now = System.nanoTime();
+        this.current = (this.current + 1) % this.ticks;
+        this.recorded = Math.min(this.recorded + 1, this.ticks);
+        this.tickStarts[this.current] = now;
+        this.tickNumbers[this.current] = tick;
+        this.phaseCounts[this.current] = 0;
+        this.phase = Phase.SERVER;
+        this.phaseDimension = NO_WORLD;
+        this.phaseStart = now;
+        this.inTick = true;
+        this.runningTick = tick;
+        this.runningTickStart = now;
+    }
+
+    /**
+     * Ends the current phase of the tick and starts the given one.
+     *
+     * @param dimension The dimension of the world the phase belongs to, or
+     *     {@link #NO_WORLD}
+     * @param phase The phase to start
+     */
+    public void startPhase(int dimension, Phase phase) {
+        if (!this.inTick) {
+            return;
+        }
+        final long now = System.nanoTime();
+        addPhase(now);
+        this.phase = phase;
+        this.phaseDimension = dimension;
+        this.phaseStart = now;
+    }
+
+    /**
+     * Ends the current phase, the time until the next phase is counted for
+     * the server.
+     */
+    public void endPhase() {
+        startPhase(NO_WORLD, Phase.SERVER);
+    }
+
+    /**
+     * Ends the current tick and hands the recorded ticks to the watchdog if
+     * it took longer than the threshold. Must be called on the main thread at
+     * the end of each tick.
+     */
+    public void endTick() {
+        if (!this.inTick) {
+            return;
+        }
+        final long now = System.nanoTime();
+        addPhase(now);
+        this.inTick = false;
+        this.runningTickStart = 0;
+        final long duration = now - this.tickStarts[this.current];
+        this.tickDurations[this.current] = duration;
+        if (duration >= this.thresholdNanos && now - this.lastReport >= REPORT_INTERVAL && this.watchdog != null) {
+            this.lastReport = now;
+            this.watchdog.spikes.add(createSpike());
+        }
+    }
+
+    private void addPhase(long now) {
+        final int base = this.current * MAX_PHASES;
+        final int count = this.phaseCounts[this.current];
+        if (count == MAX_PHASES) {
+            this.phaseDurations[base + count - 1] += now - this.phaseStart;
+            return;
+        }
+        this.phases[base + count] = (byte) this.phase.ordinal();
+        this.dimensions[base + count] = this.phaseDimension;
+        this.phaseDurations[base + count] = now - this.phaseStart;
+        this.phaseCounts[this.current] = count + 1;
+    }
+
+    private void configure(int thresholdMillis, int ticks) {
+        if (thresholdMillis <= 0 || ticks <= 0) {
+            if (this.ticks != 0) {
+                this.ticks = 0;
+                this.inTick = false;
+                this.runningTickStart = 0;
+                allocate(0);
+                if (this.watchdog != null) {
+                    this.watchdog.running = false;
+                    this.watchdog.interrupt();
+                    this.watchdog = null;
+                }
+            }
+            return;
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        if (this.ticks != ticks) {
+            this.ticks = ticks;
+            allocate(ticks);
+        }
+        if (this.watchdog == null) {
+            this.lastReport = System.nanoTime() - REPORT_INTERVAL;
+            this.watchdog = new Watchdog(Thread.currentThread());
+            this.watchdog.start();
+        }
+        this.watchdog.thresholdNanos = this.thresholdNanos;
+    }
+
+    private void allocate(int ticks) {
+        this.tickStarts = new long[ticks];
+        this.tickDurations = new long[ticks];
+        this.tickNumbers = new int[ticks];
+        this.phaseCounts = new int[ticks];
+        this.phases = new byte[ticks * MAX_PHASES];
+        this.dimensions = new int[ticks * MAX_PHASES];
+        this.phaseDurations = new long[ticks * MAX_PHASES];
+        this.current = -1;
+        this.recorded = 0;
+    }
+
+    private Spike createSpike() {
+        final int[] tickNumbers = new int[this.recorded];
+        final long[] tickDurations = new long[this.recorded];
+        final int[] phaseOffsets = new int[this.recorded + 1];
+        int phaseCount = 0;
+        for (int i = 0; i < this.recorded; i++) {
+            phaseCount += this.phaseCounts[(this.current - this.recorded + 1 + i + this.ticks) % this.ticks];
+        }
+        final byte[] phases = new byte[phaseCount];
+        final int[] dimensions = new int[phaseCount];
+        final long[] phaseDurations = new long[phaseCount];
+        int offset = 0;
+        // Oldest first
+        for (int i = 0; i < this.recorded; i++) {
+            final int tick = (this.current - this.recorded + 1 + i + this.ticks) % this.ticks;
+            final int count = this.phaseCounts[tick];
+            tickNumbers[i] = this.tickNumbers[tick];
+            tickDurations[i] = this.tickDurations[tick];
+            phaseOffsets[i] = offset;
+            System.arraycopy(this.phases, tick * MAX_PHASES, phases, offset, count);
+            System.arraycopy(this.dimensions, tick * MAX_PHASES, dimensions, offset, count);
+            System.arraycopy(this.phaseDurations, tick * MAX_PHASES, phaseDurations, offset, count);
+            offset += count;
+        }
+        phaseOffsets[this.recorded] = offset;
+
+        final ImmutableMap.Builder<Integer, String> worldNames = ImmutableMap.builder();
+        for (World world : SpongeImpl.getGame().getServer().getWorlds()) {
+            worldNames.put(((WorldServer) world).provider.getDimensionId(), world.getName());
+        }
+        return new Spike(this.thresholdNanos, tickNumbers, tickDurations, phaseOffsets, phases, dimensions, phaseDurations,
+                worldNames.build());
+    }
+
+    private static final class Spike {
+
+        final long time = System.currentTimeMillis();
+        final long thresholdNanos;
+        final int[] tickNumbers;
+        final long[] tickDurations;
+        // The index of the first phase of each tick, and the end of the last
+        final int[] phaseOffsets;
+        final byte[] phases;
+        final int[] dimensions;
+        final long[] phaseDurations;
+        final Map<Integer, String> worldNames;
+
+        Spike(long thresholdNanos, int[] tickNumbers, long[] tickDurations, int[] phaseOffsets, byte[] phases, int[] dimensions,
+                long[] phaseDurations, Map<Integer, String> worldNames) {
+            this.thresholdNanos = thresholdNanos;
+            this.tickNumbers = tickNumbers;
+            this.tickDurations = tickDurations;
+            this.phaseOffsets = phaseOffsets;
+            this.phases = phases;
+            this.dimensions = dimensions;
+            this.phaseDurations = phaseDurations;
+            this.worldNames = worldNames;
+        }
+
+        int getTick() {
+            return this.tickNumbers[this.tickNumbers.length - 1];
+        }
+
+        long getDuration() {
+            return this.tickDurations[this.tickDurations.length - 1];
+        }
+    }
+
+    private static final class Sample {
+
+        final int tick;
+        final long elapsed;
+        final StackTraceElement[] stack;
+
+        Sample(int tick, long elapsed, StackTraceElement[] stack) {
+            this.tick = tick;
+            this.elapsed = elapsed;
+            this.stack = stack;
+        }
+    }
+
+    /**
+     * Samples the server thread while a tick runs over the threshold and
+     * writes the reports of the spikes.
+     */
+    private static final class Watchdog extends Thread {
+
+        private final Thread serverThread;
+        final ConcurrentLinkedQueue<Spike> spikes = new ConcurrentLinkedQueue<>();
+        private final ArrayDeque<Sample> samples = new ArrayDeque<>();
+        volatile long thresholdNanos;
+        volatile boolean running = true;
+
+        Watchdog(Thread serverThread) {
+            super("Sponge Lag Spike Recorder");
+            setDaemon(true);
+            this.serverThread = serverThread;
+        }
+
+        @Override
+        public void run() {
+            while (this.running) {
+                try {
+                    // Check a few times within the threshold
+                    Thread.sleep(Math.max(5, Math.min(100, TimeUnit.NANOSECONDS.toMillis(this.thresholdNanos) / 4)));
+                } catch (InterruptedException e) {
+                    break;
+                }
+                sample();
+                Spike spike;
+                while ((spike = this.spikes.poll()) != null) {
+                    write(spike);
+                }
+            }
+        }
+
+        private void sample() {
+            final LagSpikeRecorder recorder = INSTANCE;
+            final long start = recorder.runningTickStart;
+            final int tick = recorder.runningTick;
+            if (start == 0 || recorder.runningTickStart != start) {
+                return;
+            }
+            final long elapsed = System.nanoTime() - start;
+            final long threshold = this.thresholdNanos;
+            if (elapsed < threshold) {
+                return;
+            }
+            int count = 0;
+            long lastElapsed = 0;
+            for (Sample sample : this.samples) {
+                if (sample.tick == tick) {
+                    count++;
+                    lastElapsed = sample.elapsed;
+                }
+            }
+            // Sample again every half threshold while the tick keeps running
+            if (count >= MAX_SAMPLES || count > 0 && elapsed - lastElapsed < threshold / 2) {
+                return;
+            }
+            this.samples.add(new Sample(tick, elapsed, this.serverThread.getStackTrace()));
+            while (this.samples.size() > MAX_SAMPLES * 4) {
+                this.samples.removeFirst();
+            }
+        }
+
+        private void write(Spike spike) {
+            final Path file = SpongeImpl.getGameDir().resolve("lag-spikes").resolve("spike-"
+                    + DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss").format(LocalDateTime.ofInstant(Instant.ofEpochMilli(spike.time),
+                    ZoneId.systemDefault())) + ".txt");
+            try {
+                Files.createDirectories(file.getParent());
+                try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                    writer.write(String.format("Tick %d took %.2f ms, the threshold is %.0f ms%n%n", spike.getTick(),
+                            spike.getDuration() / NANOS_PER_MILLI, spike.thresholdNanos / NANOS_PER_MILLI));
+                    writer.write(String.format("Phases of the last %d ticks in milliseconds, oldest first:%n", spike.tickNumbers.length));
+                    for (int i = 0; i < spike.tickNumbers.length; i++) {
+                        writeTick(writer, spike, i);
+                    }
+                    writer.newLine();
+
+                    boolean sampled = false;
+                    for (Sample sample : this.samples) {
+                        if (sample.tick != spike.getTick()) {
+                            continue;
+                        }
+                        sampled = true;
+                        writer.write(String.format("Server thread at %.2f ms into the tick:%n", sample.elapsed / NANOS_PER_MILLI));
+                        for (StackTraceElement element : sample.stack) {
+                            writer.write("    at " + element);
+                            writer.newLine();
+                        }
+                        writer.newLine();
+                    }
+                    if (!sampled) {
+                        writer.write("The server thread was not sampled during the tick.");
+                        writer.newLine();
+                    }
+                }
+            } catch (IOException e) {
+                SpongeImpl.getLogger().error("Could not write lag spike report to " + file, e);
+                return;
+            }
+            SpongeImpl.getLogger().warn("Tick {} took {} ms, wrote the last {} ticks to {}", spike.getTick(),
+                    TimeUnit.NANOSECONDS.toMillis(spike.getDuration()), spike.tickNumbers.length, file);
+        }
+
+        private static void writeTick(BufferedWriter writer, Spike spike, int index) throws IOException {
+            // Sum the phases of each world, in the order they first ran
+            final Map<Long, long[]> totals = new LinkedHashMap<>();
+            for (int i = spike.phaseOffsets[index]; i < spike.phaseOffsets[index + 1]; i++) {
+                final long key = (long) spike.dimensions[i] << 8 | spike.phases[i];
+                long[] total = totals.get(key);
+                if (total == null) {
+                    total = new long[1];
+                    totals.put(key, total);
+                }
+                total[0] += spike.phaseDurations[i];
+            }
+            final StringBuilder line = new StringBuilder(String.format("Tick %d: %.2f total", spike.tickNumbers[index],
+                    spike.tickDurations[index] / NANOS_PER_MILLI));
+            for (Map.Entry<Long, long[]> entry : totals.entrySet()) {
+                final int dimension = (int) (entry.getKey() >> 8);
+                final Phase phase = Phase.values()[(int) (entry.getKey() & 0xFF)];
+                line.append(", ");
+                if (dimension != NO_WORLD) {
+                    final String name = spike.worldNames.get(dimension);
+                    line.append(name != null ? name : "DIM" + dimension).append(' ');
+                }
+                line.append(phase.name).append(String.format(" %.2f", entry.getValue()[0] / NANOS_PER_MILLI));
+            }
+            writer.write(line.toString());
+            writer.newLine();
+        }
+    }
+
+}
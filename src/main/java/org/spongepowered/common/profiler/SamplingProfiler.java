@@ -0,0 +1,287 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.profiler;
+
+import com.google.common.collect.Maps;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+/**
+ * Samples the stack of a thread at a fixed interval and writes the samples
+ * in the collapsed stack format read by flamegraph tools. Nothing runs while
+ * the profiler is stopped.
+ */
+public final class SamplingProfiler {
+
+    private static final SamplingProfiler INSTANCE = new SamplingProfiler();
+    // Attributed to samples without plugin code on the stack
+    private static final String SERVER_OWNER = "server";
+
+    @Nullable private volatile Sampler sampler;
+
+    private SamplingProfiler() {
+    }
+
+    public static SamplingProfiler getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isRunning() {
+        Sampler sampler = this.sampler;
+        return sampler != null && sampler.isAlive();
+    }
+
+    /**
+     * Starts sampling the given thread.
+     *
+     * @param thread The thread to sample
+     * @param interval The time between samples in milliseconds
+     * @param duration The time after which the profiler stops by itself in
+     *     milliseconds, 0 to run until stopped
+     * @param output The file to write the samples to
+     * @return False if the profiler is already running
+     */
+    public synchronized boolean start(Thread thread, long interval, long duration, Path output) {
+        if (isRunning()) {
+            return false;
+        }
+        Sampler sampler = new Sampler(thread.getId(), Math.max(1, interval), duration, output,
+                new PluginOwners(getPluginPackages(SpongeImpl.getGame().getPluginManager().getPlugins())));
+        this.sampler = sampler;
+        sampler.start();
+        return true;
+    }
+
+    /**
+     * Stops the profiler, the samples are written to the output file by the
+     * sampling thread once it finished.
+     *
+     * @return The file the samples are written to, or null if the profiler
+     *     was not running
+     */
+    @Nullable
+    public synchronized Path stop() {
+        Sampler sampler = this.sampler;
+        if (sampler == null || !sampler.isAlive()) {
+            return null;
+        }
+        sampler.running = false;
+        sampler.interrupt();
+        this.sampler = null;
+        return sampler.output;
+    }
+
+    /**
+     * Gets the package of the main class of every plugin, followed by a dot,
+     * mapped to the plugin id.
+     */
+    static Map<String, String> getPluginPackages(Iterable<PluginContainer> plugins) {
+        Map<String, String> packages = Maps.newHashMap();
+        for (PluginContainer plugin : plugins) {
+            Optional<Package> pluginPackage = plugin.getInstance().map(instance -> instance.getClass().getPackage());
+            if (pluginPackage.isPresent()) {
+                packages.put(pluginPackage.get().getName() + '.', plugin.getId());
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Finds the plugin owning a class by the packages of the plugins.
+     */
+    static final class PluginOwners {
+
+        // Package prefixes sorted longest first, so nested packages win
+        private final List<Map.Entry<String, String>> pluginPackages;
+        // Plugin owning each class seen so far
+        private final Map<String, String> classOwners = Maps.newHashMap();
+
+        PluginOwners(Map<String, String> pluginPackages) {
+            this.pluginOwners = pluginOwners;
+        }
+
+        /**
+         * Gets the id of the plugin owning a class.
+         *
+         * @param className The fully qualified name of the class
+         * @return The plugin id, or null if no plugin owns the class
+         */
+        @Nullable
+        String getOwner(String className) {
+            String owner = this.classOwners.get(className);
+            if (owner == null && !this.classOwners.containsKey(className)) {
+                for (Map.Entry<String, String> entry : this.pluginPackages) {
+                    if (className.startsWith(entry.getKey())) {
+                        owner = entry.getValue();
+                        break;
+                    }
+                }
+                this.classOwners.put(className, owner);
+            }
+            return owner;
+        }
+    }
+
+    private static final class Sampler extends Thread {
+
+        private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        private final long threadId;
+        private final long interval;
+        private final long duration;
+        final Path output;
+        private final PluginOwners pluginOwners;
+        private final TObjectIntHashMap<String> ownerSamples = new TObjectIntHashMap<>();
+        private final Node root = new Node();
+        private int samples;
+        volatile boolean running = true;
+
+        Sampler(long threadId, long interval, long duration, Path output, PluginOwners pluginOwners) {
+            super("Sponge Profiler");
+            setDaemon(true);
+            this.threadId = threadId;
+            this.interval = interval;
+            this.duration = duration;
+            this.output = output;
+            this.pluginPackages = new ArrayList<>(pluginPackages.entrySet());
+            this.pluginPackages.sort(Comparator.comparing((Map.Entry<String, String> entry) -> entry.getKey().length()).reversed());
+        }
+
+        @Override
+        public void run() {
+            final long end = this.duration > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.duration) : Long.MAX_VALUE;
+            while (this.running && System.nanoTime() < end) {
+                ThreadInfo info = this.threadBean.getThreadInfo(this.threadId, Integer.MAX_VALUE);
+                if (info == null) {
+                    // The thread died
+                    break;
+                }
+                sample(info.getStackTrace());
+                try {
+                    Thread.sleep(this.interval);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            write();
+        }
+
+        private void sample(StackTraceElement[] stack) {
+            if (stack.length == 0) {
+                return;
+            }
+            this.samples++;
+            // The innermost frame of a plugin gets the sample
+            String owner = SERVER_OWNER;
+            for (StackTraceElement element : stack) {
+                String plugin = this.pluginOwners.getOwner(element.getClassName());
+                if (plugin != null) {
+                    owner = plugin;
+                    break;
+                }
+            }
+            this.ownerSamples.adjustOrPutValue(owner, 1, 1);
+
+            Node node = this.root;
+            for (int i = stack.length - 1; i >= 0; i--) {
+                node = node.getChild(stack[i].getClassName() + '.' + stack[i].getMethodName());
+            }
+            node.samples++;
+        }
+
+        private void write() {
+            try {
+                Files.createDirectories(this.output.getParent());
+                try (BufferedWriter writer = Files.newBufferedWriter(this.output, StandardCharsets.UTF_8)) {
+                    StringBuilder path = new StringBuilder();
+                    for (Map.Entry<String, Node> entry : this.root.children.entrySet()) {
+                        entry.getValue().write(writer, path, entry.getKey());
+                    }
+                }
+            } catch (IOException e) {
+                SpongeImpl.getLogger().error("Could not write profiler samples to " + this.output, e);
+                return;
+            }
+
+            StringBuilder summary = new StringBuilder();
+            List<String> owners = new ArrayList<>(this.ownerSamples.keySet());
+            owners.sort(Comparator.comparing(this.ownerSamples::get).reversed());
+            for (String owner : owners) {
+                summary.append(summary.length() == 0 ? "" : ", ")
+                        .append(String.format("%s %.1f%%", owner, this.ownerSamples.get(owner) * 100.0 / this.samples));
+            }
+            SpongeImpl.getLogger().info("Profiler wrote {} samples to {}: {}", this.samples, this.output, summary);
+        }
+    }
+
+    private static final class Node {
+
+        final Map<String, Node> children = Maps.newHashMap();
+        int samples;
+
+        Node getChild(String frame) {
+            Node child = this.children.get(frame);
+            if (child == null) {
+                child = new Node();
+                this.children.put(frame, child);
+            }
+            return child;
+        }
+
+        void write(BufferedWriter writer, StringBuilder path, String frame) throws IOException {
+            final int length = path.length();
+            if (length > 0) {
+                path.append(';');
+            }
+            path.append(frame);
+            if (this.samples > 0) {
+                writer.append(path).append(' ').append(Integer.toString(this.samples));
+                writer.newLine();
+            }
+            for (Map.Entry<String, Node> entry : this.children.entrySet()) {
+                entry.getValue().write(writer, path, entry.getKey());
+            }
+            path.setLength(length);
+        }
+    }
+
+}
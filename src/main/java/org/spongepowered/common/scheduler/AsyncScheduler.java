@@ -24,27 +24,36 @@
  */
 package org.spongepowered.common.scheduler;
 
-import org.spongepowered.api.scheduler.Task;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.common.config.SpongeConfig;
 
-import java.util.Set;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AsyncScheduler extends SchedulerBase {
 
-    // Adjustable timeout for pending Tasks
-    private long minimumTimeout = Long.MAX_VALUE;
-    private long lastProcessingTimestamp;
-    // Locking mechanism
-    private final Lock lock = new ReentrantLock();
-    private final Condition condition = this.lock.newCondition();
-    // The dynamic thread pooling executor of asynchronous tasks.
+    // Tasks ordered by when they are due, the scheduler thread sleeps until the first one is
+    private final DelayQueue<DelayedTask> queue = new DelayQueue<>();
+    // The dynamic thread pooling executor of Sponge's own asynchronous work.
     private final ExecutorService executor = Executors.newCachedThreadPool();
+    // The bounded executors of the plugins' asynchronous tasks, by plugin id
+    private final ConcurrentMap<String, PluginTaskExecutor> pluginExecutors = Maps.newConcurrentMap();
+    // The time the task being started was due at, only used by the scheduler thread
+    private long startingDueTime;
+    // How late tasks start compared to when they were due
+    private final LongAdder dueLagCount = new LongAdder();
+    private final LongAdder dueLagTotal = new LongAdder();
+    private final AtomicLong dueLagMax = new AtomicLong();
 
     AsyncScheduler() {
         super(ScheduledTask.TaskSynchronicity.ASYNCHRONOUS);
@@ -59,89 +68,153 @@ ExecutorService getExecutor() {
         return this.executor;
     }
 
+    Collection<PluginTaskExecutor> getPluginExecutors() {
+        return Collections.unmodifiableCollection(this.pluginExecutors.values());
+    }
+
+    private PluginTaskExecutor getPluginExecutor(PluginContainer plugin) {
+        return this.pluginExecutors.computeIfAbsent(plugin.getId(), id -> {
+            SpongeConfig.SchedulerCategory config = SpongeImpl.getGlobalConfig().getConfig().getScheduler();
+            return new PluginTaskExecutor(plugin, config.getAsyncPoolSize(), config.getAsyncQueueSize());
+        });
+    }
+
     private void mainLoop() {
-        this.lastProcessingTimestamp = System.nanoTime();
         while (true) {
-            recalibrateMinimumTimeout();
             this.runTick();
         }
     }
 
-    private void recalibrateMinimumTimeout() {
-        this.lock.lock();
+    /**
+     * Waits for the next task to become due, then starts every task that is
+     * due.
+     */
+    @Override
+    protected void processTasks() {
+        DelayedTask next;
         try {
-            Set<Task> tasks = this.getScheduledTasks();
-            this.minimumTimeout = Long.MAX_VALUE;
-            long now = System.nanoTime();
-            for (Task tmpTask : tasks) {
-                ScheduledTask task = (ScheduledTask) tmpTask;
-                // Recalibrate the wait delay for processing tasks before new
-                // tasks cause the scheduler to process pending tasks.
-                if (task.offset == 0 && task.period == 0) {
-                    this.minimumTimeout = 0;
-                }
-                // The time since the task last executed or was added to the map
-                long timeSinceLast = now - task.getTimestamp();
-
-                if (task.offset > 0 && task.getState() == ScheduledTask.ScheduledTaskState.WAITING) {
-                    // There is an offset and the task hasn't run yet
-                    this.minimumTimeout = Math.min(task.offset - timeSinceLast, this.minimumTimeout);
-                }
-                if (task.period > 0 && task.getState().isActive) {
-                    // The task repeats and has run after the initial delay
-                    this.minimumTimeout = Math.min(task.period - timeSinceLast, this.minimumTimeout);
-                }
-                if (this.minimumTimeout <= 0) {
-                    break;
-                }
-            }
-            if (!tasks.isEmpty()) {
-                long latency = System.nanoTime() - this.lastProcessingTimestamp;
-                this.minimumTimeout -= (latency <= 0) ? 0 : latency;
-                this.minimumTimeout = (this.minimumTimeout < 0) ? 0 : this.minimumTimeout;
-            }
-        } finally {
-            this.lock.unlock();
+            next = this.queue.take();
+        } catch (InterruptedException ignored) {
+            return;
         }
+        do {
+            process(next);
+        } while ((next = this.queue.poll()) != null);
     }
 
-    @Override
-    protected void preTick() {
-        this.lock.lock();
-        try {
-            this.condition.await(this.minimumTimeout, TimeUnit.NANOSECONDS);
-        } catch (InterruptedException ignored) {
-            // The taskMap has been modified; there is work to do.
-            // Continue on without handling the Exception.
-        } catch (IllegalMonitorStateException e) {
-            SpongeImpl.getLogger().error("The scheduler internal state machine suffered a catastrophic error", e);
+    private void process(DelayedTask delayed) {
+        final ScheduledTask task = delayed.task;
+        if (task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
+            this.removeTask(task);
+            return;
+        }
+        task.setState(ScheduledTask.ScheduledTaskState.SWITCHING);
+        task.setTimestamp(this.getTimestamp(task));
+        this.startingDueTime = delayed.dueTime;
+        startTask(task);
+        if (task.period == 0L) {
+            this.removeTask(task);
+        } else {
+            this.queue.add(new DelayedTask(task, task.getTimestamp() + task.period));
         }
     }
 
     @Override
-    protected void postTick() {
-        this.lastProcessingTimestamp = System.nanoTime();
+    protected void executeTaskRunnable(ScheduledTask task, Runnable runnable) {
+        final long dueTime = this.startingDueTime;
+        final long submitTime = System.nanoTime();
+        final PluginTaskExecutor executor = getPluginExecutor(task.getOwner());
+        final Runnable timedRunnable = () -> {
+            final long startTime = System.nanoTime();
+            recordDueLag(startTime - dueTime);
+            task.getStatistics().recordWait(startTime - submitTime);
+            runnable.run();
+        };
+        if (executor.execute(timedRunnable)) {
+            return;
+        }
+        if (task.period == 0L) {
+            // One time shots may be futures someone waits for, they must not be
+            // lost, so they run on the scheduler thread and hold up the next
+            // tasks until the plugin catches up
+            timedRunnable.run();
+        } else {
+            final long rejected = executor.getRejectedCount();
+            // Avoid flooding the log when a plugin keeps its pool saturated
+            if (rejected == 1 || rejected % 1000 == 0) {
+                SpongeImpl.getLogger().warn("The asynchronous task queue of {} is full, skipped a run of {} ({} rejected so far)",
+                        task.getOwner().getId(), task.getName(), rejected);
+            }
+        }
     }
 
     @Override
-    protected void finallyPostTick() {
-        this.lock.unlock();
+    protected void addTask(ScheduledTask task) {
+        super.addTask(task);
+        // Wakes up the scheduler thread if the task is due before all others
+        this.queue.add(new DelayedTask(task, task.getTimestamp() + task.offset));
     }
 
-    @Override
-    protected void executeTaskRunnable(Runnable runnable) {
-        this.executor.submit(runnable);
+    private void recordDueLag(long lag) {
+        final long positiveLag = Math.max(0, lag);
+        this.dueLagCount.increment();
+        this.dueLagTotal.add(positiveLag);
+        this.dueLagMax.accumulateAndGet(positiveLag, Math::max);
     }
 
-    @Override
-    protected void addTask(ScheduledTask task) {
-        this.lock.lock();
-        try {
-            super.addTask(task);
-            this.condition.signalAll();
-        } finally {
-            this.lock.unlock();
+    /**
+     * Gets the number of tasks started since the due lag was last reset.
+     *
+     * @return The number of started tasks
+     */
+    long getDueLagCount() {
+        return this.dueLagCount.sum();
+    }
+
+    /**
+     * Gets the average time between when tasks were due and when they started
+     * running, in nanoseconds.
+     *
+     * @return The average due lag
+     */
+    long getAverageDueLag() {
+        final long count = this.dueLagCount.sum();
+        return count == 0 ? 0 : this.dueLagTotal.sum() / count;
+    }
+
+    long getMaxDueLag() {
+        return this.dueLagMax.get();
+    }
+
+    void resetDueLag() {
+        this.dueLagCount.reset();
+        this.dueLagTotal.reset();
+        this.dueLagMax.set(0);
+    }
+
+    private static final class DelayedTask implements Delayed {
+
+        final ScheduledTask task;
+        final long dueTime;
+
+        DelayedTask(ScheduledTask task, long dueTime) {
+            this.task = task;
+            this.dueTime = dueTime;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.dueTime - System.nanoTime(), TimeUnit.NANOSECONDS);
         }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof DelayedTask) {
+                return Long.signum(this.dueTime - ((DelayedTask) other).dueTime);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
     }
 
 }
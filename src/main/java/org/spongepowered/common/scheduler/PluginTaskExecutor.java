@@ -0,0 +1,124 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.scheduler;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the asynchronous tasks of a single plugin on a bounded pool, so a
+ * plugin blocking in its tasks can only use up its own threads.
+ */
+public class PluginTaskExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final PluginContainer plugin;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder runTime = new LongAdder();
+
+    PluginTaskExecutor(PluginContainer plugin, int poolSize, int queueSize) {
+        this.plugin = plugin;
+        final BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new LinkedBlockingQueue<>();
+        final int threads = Math.max(1, poolSize);
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, new ThreadFactoryBuilder()
+                .setNameFormat("Sponge Async Task - " + plugin.getId() + " #%d")
+                .setDaemon(true)
+                .build());
+        // Idle plugins do not keep threads around
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public PluginContainer getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Runs a task on the pool of the plugin.
+     *
+     * @param runnable The task
+     * @return Whether the task was accepted, false if the queue is full
+     */
+    boolean execute(Runnable runnable) {
+        try {
+            this.executor.execute(() -> {
+                final long start = System.nanoTime();
+                try {
+                    runnable.run();
+                } finally {
+                    this.runTime.add(System.nanoTime() - start);
+                    this.completed.increment();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the number of threads currently running tasks.
+     *
+     * @return The number of running tasks
+     */
+    public int getActiveCount() {
+        return this.executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return this.executor.getQueue().size();
+    }
+
+    public long getCompletedCount() {
+        return this.completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Gets the average time it took the tasks to run.
+     *
+     * @param unit The unit of the result
+     * @return The average run time
+     */
+    public long getAverageRunTime(TimeUnit unit) {
+        final long count = this.completed.sum();
+        return count == 0 ? 0 : unit.convert(this.runTime.sum() / count, TimeUnit.NANOSECONDS);
+    }
+
+}
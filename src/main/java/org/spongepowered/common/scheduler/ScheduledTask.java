@@ -41,6 +41,9 @@ public class ScheduledTask implements Task {
     final long period; //nanoseconds or ticks
     final boolean delayIsTicks;
     final boolean intervalIsTicks;
+    final Priority priority;
+    // Whether the task was carried over to a later tick since it was due, only used by the synchronous scheduler
+    boolean deferred;
     private final PluginContainer owner;
     private final Consumer<Task> consumer;
     private long timestamp;
@@ -49,6 +52,7 @@ public class ScheduledTask implements Task {
     private final String name;
     private final TaskSynchronicity syncType;
     private final String stringRepresentation;
+    private final TaskStatistics statistics = new TaskStatistics();
 
     // Internal Task state. Not for user-service use.
     public enum ScheduledTaskState {
@@ -76,8 +80,20 @@ public enum ScheduledTaskState {
         }
     }
 
+    // Internal Task priority, only used by the synchronous scheduler.
+    public enum Priority {
+        /**
+         * Always runs in the tick it is due.
+         */
+        CRITICAL,
+        /**
+         * May be carried over to later ticks when the tick is over its budget.
+         */
+        DEFERRABLE
+    }
+
     ScheduledTask(TaskSynchronicity syncType, Consumer<Task> task, String taskName, long delay, boolean delayIsTicks, long interval,
-            boolean intervalIsTicks, PluginContainer pluginContainer) {
+            boolean intervalIsTicks, PluginContainer pluginContainer, Priority priority) {
         // All tasks begin waiting.
         this.setState(ScheduledTaskState.WAITING);
         this.offset = delay;
@@ -89,6 +105,7 @@ public enum ScheduledTaskState {
         this.id = UUID.randomUUID();
         this.name = taskName;
         this.syncType = syncType;
+        this.priority = priority;
 
         this.stringRepresentation = Objects.toStringHelper(this)
                 .add("name", this.name)
@@ -97,6 +114,7 @@ public enum ScheduledTaskState {
                 .add("owner", this.owner)
                 .add("id", this.id)
                 .add("isAsync", this.isAsynchronous())
+                .add("priority", this.priority)
                 .toString();
     }
 
@@ -153,6 +171,10 @@ public boolean isAsynchronous() {
         return this.syncType == TaskSynchronicity.ASYNCHRONOUS;
     }
 
+    public TaskStatistics getStatistics() {
+        return this.statistics;
+    }
+
     long getTimestamp() {
         return this.timestamp;
     }
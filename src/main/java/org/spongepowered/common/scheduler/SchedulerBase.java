@@ -24,12 +24,15 @@
  */
 package org.spongepowered.common.scheduler;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.common.SpongeImpl;
 
+import java.util.ArrayDeque;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -37,8 +40,12 @@
 
 abstract class SchedulerBase {
 
+    // The number of finished tasks kept for their statistics
+    private static final int MAX_FINISHED_TASKS = 100;
+
     // The simple queue of all pending (and running) ScheduledTasks
     private final Map<UUID, ScheduledTask> taskMap = Maps.newConcurrentMap();
+    private final ArrayDeque<ScheduledTask> finishedTasks = new ArrayDeque<>();
     private long sequenceNumber = 0L;
     private final String taskNameFmt;
 
@@ -83,16 +90,51 @@ protected void addTask(ScheduledTask task) {
      */
     protected void removeTask(ScheduledTask task) {
         this.taskMap.remove(task.getUniqueId());
+        // One time shots are recorded once they ran, which may be after they
+        // were removed if they run asynchronously
+        if (task.period != 0L && task.getStatistics().getCount() > 0) {
+            this.addFinishedTask(task);
+        }
+    }
+
+    private void addFinishedTask(ScheduledTask task) {
+        synchronized (this.finishedTasks) {
+            if (this.finishedTasks.size() >= MAX_FINISHED_TASKS) {
+                this.finishedTasks.poll();
+            }
+            this.finishedTasks.add(task);
+        }
+    }
+
+    /**
+     * Gets the tasks that ran and are no longer scheduled, the most recently
+     * finished last.
+     *
+     * @return The finished tasks
+     */
+    protected List<ScheduledTask> getFinishedTasks() {
+        synchronized (this.finishedTasks) {
+            return Lists.newArrayList(this.finishedTasks);
+        }
     }
 
     protected Optional<Task> getTask(UUID id) {
-        return Optional.<Task>ofNullable(this.taskMap.get(id));
+        ScheduledTask task = this.taskMap.get(id);
+        // Cancelled tasks may stay in the map until they would be due
+        if (task == null || task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
+            return Optional.empty();
+        }
+        return Optional.of(task);
     }
 
     protected Set<Task> getScheduledTasks() {
-        synchronized (this.taskMap) {
-            return Sets.<Task>newHashSet(this.taskMap.values());
+        Set<Task> tasks = Sets.newHashSet();
+        for (ScheduledTask task : this.taskMap.values()) {
+            if (task.getState() != ScheduledTask.ScheduledTaskState.CANCELED) {
+                tasks.add(task);
+            }
         }
+        return tasks;
     }
 
     /**
@@ -101,13 +143,18 @@ protected Set<Task> getScheduledTasks() {
     protected final void runTick() {
         this.preTick();
         try {
-            this.taskMap.values().forEach(this::processTask);
+            this.processTasks();
             this.postTick();
         } finally {
             this.finallyPostTick();
         }
     }
 
+    /**
+     * Processes the tasks that may be due.
+     */
+    protected abstract void processTasks();
+
     /**
      * Fired when the scheduler begins to tick, before any tasks are processed.
      */
@@ -127,57 +174,25 @@ protected void postTick() {
     protected void finallyPostTick() {
     }
 
-    /**
-     * Processes the task.
-     *
-     * @param task The task to process
-     */
-    protected void processTask(ScheduledTask task) {
-        // If the task is now slated to be cancelled, we just remove it as if it
-        // no longer exists.
-        if (task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
-            this.removeTask(task);
-            return;
-        }
-        long threshold = Long.MAX_VALUE;
-        // Figure out if we start a delayed Task after threshold ticks or, start
-        // it after the interval (period) of the repeating task parameter.
-        if (task.getState() == ScheduledTask.ScheduledTaskState.WAITING) {
-            threshold = task.offset;
-        } else if (task.getState() == ScheduledTask.ScheduledTaskState.RUNNING) {
-            threshold = task.period;
-        }
-        // This moment is 'now'
-        long now = this.getTimestamp(task);
-        // So, if the current time minus the timestamp of the task is greater
-        // than the delay to wait before starting the task, then start the task.
-        // Repeating tasks get a reset-timestamp each time they are set RUNNING
-        // If the task has a period of 0 (zero) this task will not repeat, and
-        // is removed after we start it.
-        if (threshold <= (now - task.getTimestamp())) {
-            task.setState(ScheduledTask.ScheduledTaskState.SWITCHING);
-            task.setTimestamp(this.getTimestamp(task));
-            startTask(task);
-            // If task is one time shot, remove it from the map.
-            if (task.period == 0L) {
-                this.removeTask(task);
-            }
-        }
-    }
-
     /**
      * Begin the execution of a task. Exceptions are caught and logged.
      *
      * @param task The task to start
      */
     protected void startTask(final ScheduledTask task) {
-        this.executeTaskRunnable(() -> {
+        this.executeTaskRunnable(task, () -> {
             task.setState(ScheduledTask.ScheduledTaskState.RUNNING);
+            final long start = System.nanoTime();
             try {
                 task.getConsumer().accept(task);
             } catch (Throwable t) {
                 SpongeImpl.getLogger().error("The Scheduler tried to run the task {} owned by {}, but an error occured.", task.getName(),
                                              task.getOwner(), t);
+            } finally {
+                task.getStatistics().record(System.nanoTime() - start);
+                if (task.period == 0L) {
+                    this.addFinishedTask(task);
+                }
             }
         });
     }
@@ -185,8 +200,9 @@ protected void startTask(final ScheduledTask task) {
     /**
      * Actually run the runnable that will begin the task
      *
+     * @param task The task being started
      * @param runnable The runnable to run
      */
-    protected abstract void executeTaskRunnable(Runnable runnable);
+    protected abstract void executeTaskRunnable(ScheduledTask task, Runnable runnable);
 
 }
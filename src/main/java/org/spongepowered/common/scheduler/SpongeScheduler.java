@@ -27,6 +27,7 @@
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -35,8 +36,13 @@
 import org.spongepowered.api.scheduler.SpongeExecutorService;
 import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.common.SpongeImpl;
+import org.spongepowered.common.config.SpongeConfig;
+import org.spongepowered.common.profiler.LagSpikeRecorder;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -179,11 +185,101 @@ void submit(ScheduledTask task) {
         getDelegate(task).addTask(task);
     }
 
+    /**
+     * Gets the scheduled tasks together with the last tasks that finished,
+     * which the run time statistics are kept for.
+     *
+     * @return The tasks with statistics
+     */
+    public List<ScheduledTask> getTasksWithStatistics() {
+        List<ScheduledTask> tasks = Lists.newArrayList();
+        for (SchedulerBase scheduler : new SchedulerBase[] {this.syncScheduler, this.asyncScheduler}) {
+            for (Task task : scheduler.getScheduledTasks()) {
+                tasks.add((ScheduledTask) task);
+            }
+            tasks.addAll(scheduler.getFinishedTasks());
+        }
+        return tasks;
+    }
+
+    /**
+     * Gets the executors running the asynchronous tasks of the plugins that
+     * scheduled any.
+     *
+     * @return The plugin executors
+     */
+    public Collection<PluginTaskExecutor> getAsyncExecutors() {
+        return this.asyncScheduler.getPluginExecutors();
+    }
+
+    /**
+     * Gets the average time between when asynchronous tasks were due and when
+     * they started running.
+     *
+     * @param unit The unit of the result
+     * @return The average due lag
+     */
+    public long getAsyncAverageDueLag(TimeUnit unit) {
+        return unit.convert(this.asyncScheduler.getAverageDueLag(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getAsyncMaxDueLag(TimeUnit unit) {
+        return unit.convert(this.asyncScheduler.getMaxDueLag(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getAsyncStartedCount() {
+        return this.asyncScheduler.getDueLagCount();
+    }
+
+    public void resetAsyncDueLag() {
+        this.asyncScheduler.resetDueLag();
+    }
+
     /**
      * Ticks the synchronous scheduler.
      */
     public void tickSyncScheduler() {
-        this.syncScheduler.tick();
+        SpongeConfig.SchedulerCategory config = SpongeImpl.getGlobalConfig().getConfig().getScheduler();
+        this.syncScheduler.setTickBudget(TimeUnit.MILLISECONDS.toNanos(config.getSyncTickBudget()));
+        this.syncScheduler.setImmediateLimit(config.getSyncExecutorLimit());
+        LagSpikeRecorder.getInstance().startPhase(LagSpikeRecorder.NO_WORLD, LagSpikeRecorder.Phase.SCHEDULER);
+        try {
+            this.syncScheduler.tick();
+        } finally {
+            LagSpikeRecorder.getInstance().endPhase();
+        }
+    }
+
+    /**
+     * Marks the start of a server tick, which the budget of the synchronous
+     * tasks is measured from.
+     */
+    public void markTickStart() {
+        this.syncScheduler.markTickStart();
+    }
+
+    /**
+     * Gets the number of times synchronous tasks of each plugin were carried
+     * over to a later tick because the tick was over budget.
+     *
+     * @return The deferrals by plugin id
+     */
+    public Map<String, Long> getSyncDeferrals() {
+        return this.syncScheduler.getDeferrals();
+    }
+
+    public int getSyncDeferredCount() {
+        return this.syncScheduler.getDeferredCount();
+    }
+
+    /**
+     * Gets the number of runnables submitted to the synchronous executors that
+     * are waiting for the next tick.
+     *
+     * @return The number of pending runnables
+     */
+    public int getSyncExecutorPendingCount() {
+        return this.syncScheduler.getImmediateCount();
     }
 
     private ListeningExecutorService listeningExec = null;
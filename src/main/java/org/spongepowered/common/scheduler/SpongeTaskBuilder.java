@@ -30,10 +30,13 @@
 
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.scheduler.Task;
+import org.spongepowered.common.SpongeImpl;
 
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
+
 public class SpongeTaskBuilder implements Task.Builder {
 
     private Consumer<Task> consumer;
@@ -43,6 +46,7 @@ public class SpongeTaskBuilder implements Task.Builder {
     private long interval; //nanoseconds or ticks
     private boolean delayIsTicks;
     private boolean intervalIsTicks;
+    @Nullable private ScheduledTask.Priority priority;
 
     public SpongeTaskBuilder() {
         this.syncType = ScheduledTask.TaskSynchronicity.SYNCHRONOUS;
@@ -92,6 +96,18 @@ public Task.Builder intervalTicks(long interval) {
         return this;
     }
 
+    /**
+     * Sets the priority of a synchronous task. By default tasks are critical,
+     * unless their plugin is configured to have deferrable tasks.
+     *
+     * @param priority The priority
+     * @return This builder, for chaining
+     */
+    public Task.Builder priority(ScheduledTask.Priority priority) {
+        this.priority = checkNotNull(priority, "priority");
+        return this;
+    }
+
     @Override
     public Task.Builder name(String name) {
         checkArgument(checkNotNull(name, "name").length() > 0, "Name cannot be empty");
@@ -118,7 +134,13 @@ public Task submit(Object plugin) {
             interval = intervalIsTicks ? interval * SpongeScheduler.TICK_DURATION_NS : interval;
             delayIsTicks = intervalIsTicks = false;
         }
-        ScheduledTask task = new ScheduledTask(this.syncType, this.consumer, name, delay, delayIsTicks, interval, intervalIsTicks, pluginContainer);
+        ScheduledTask.Priority priority = this.priority;
+        if (priority == null) {
+            priority = SpongeImpl.getGlobalConfig().getConfig().getScheduler().getDeferrablePlugins().contains(pluginContainer.getId())
+                    ? ScheduledTask.Priority.DEFERRABLE : ScheduledTask.Priority.CRITICAL;
+        }
+        ScheduledTask task = new ScheduledTask(this.syncType, this.consumer, name, delay, delayIsTicks, interval, intervalIsTicks, pluginContainer,
+                priority);
         SpongeScheduler.getInstance().submit(task);
         return task;
     }
@@ -131,6 +153,7 @@ public Task.Builder from(Task value) {
         this.delay = value.getDelay();
         this.delayIsTicks = false;
         this.name = value.getName();
+        this.priority = value instanceof ScheduledTask ? ((ScheduledTask) value).priority : null;
         return this;
     }
 
@@ -142,6 +165,7 @@ public Task.Builder reset() {
         this.delay = 0;
         this.delayIsTicks = false;
         this.name = null;
+        this.priority = null;
         return this;
     }
 }
@@ -24,10 +24,42 @@
  */
 package org.spongepowered.common.scheduler;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.common.SpongeImpl;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class SyncScheduler extends SchedulerBase {
 
     // The number of ticks elapsed since this scheduler began.
     private volatile long counter = 0L;
+    // Tasks submitted since the last tick, possibly from other threads
+    private final Queue<ScheduledTask> submittedTasks = new ConcurrentLinkedQueue<>();
+    // Tasks waiting for a number of ticks
+    private final TimingWheel<ScheduledTask> tickTasks = new TimingWheel<>(0L);
+    // Tasks waiting for an amount of real time, ordered by when they are due
+    private final PriorityQueue<WallClockEntry> wallClockTasks = new PriorityQueue<>();
+    private final List<ScheduledTask> dueTasks = Lists.newArrayList();
+    // Due deferrable tasks by plugin id, and the plugins with such tasks in the order they run
+    private final Map<String, ArrayDeque<ScheduledTask>> deferrableTasks = Maps.newHashMap();
+    private final ArrayDeque<String> deferrableOwners = new ArrayDeque<>();
+    private final Map<String, Long> deferrals = Maps.newHashMap();
+    // Runnables handed to the synchronous executors, run without creating tasks
+    private final Queue<ImmediateRunnable> immediateRunnables = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger immediateCount = new AtomicInteger();
+    private int immediateLimit;
+    private long tickBudget;
+    private long tickStartTime;
+    private boolean tickStartMarked;
 
     SyncScheduler() {
         super(ScheduledTask.TaskSynchronicity.SYNCHRONOUS);
@@ -37,6 +69,10 @@ public class SyncScheduler extends SchedulerBase {
      * The hook to update the Ticks known by the SyncScheduler.
      */
     void tick() {
+        if (!this.tickStartMarked) {
+            this.tickStartTime = System.nanoTime();
+        }
+        this.tickStartMarked = false;
         this.counter++;
         this.runTick();
     }
@@ -62,8 +98,246 @@ protected long getTimestamp(ScheduledTask task) {
     }
 
     @Override
-    protected void executeTaskRunnable(Runnable runnable) {
+    protected void addTask(ScheduledTask task) {
+        super.addTask(task);
+        this.submittedTasks.add(task);
+    }
+
+    /**
+     * Only looks at the tasks that are due in this tick, instead of checking
+     * every scheduled task.
+     */
+    @Override
+    protected void processTasks() {
+        ScheduledTask submitted;
+        while ((submitted = this.submittedTasks.poll()) != null) {
+            schedule(submitted);
+        }
+        final List<ScheduledTask> due = this.dueTasks;
+        while (this.tickTasks.getCurrentTick() < this.counter) {
+            this.tickTasks.advance(due);
+        }
+        if (!this.wallClockTasks.isEmpty()) {
+            final long now = System.nanoTime();
+            while (!this.wallClockTasks.isEmpty() && this.wallClockTasks.peek().dueTime - now <= 0) {
+                due.add(this.wallClockTasks.poll().task);
+            }
+        }
+        try {
+            for (ScheduledTask task : due) {
+                if (task.priority == ScheduledTask.Priority.DEFERRABLE) {
+                    queueDeferrable(task);
+                } else {
+                    run(task);
+                }
+            }
+        } finally {
+            due.clear();
+        }
+        runImmediate();
+        runDeferrable();
+    }
+
+    /**
+     * Queues a runnable to run on the main thread during the next tick. Unlike
+     * a task, it can't be looked up, delayed or cancelled.
+     *
+     * @param plugin The plugin submitting the runnable
+     * @param runnable The runnable
+     */
+    void executeImmediate(PluginContainer plugin, Runnable runnable) {
+        this.immediateRunnables.add(new ImmediateRunnable(plugin, runnable));
+        this.immediateCount.incrementAndGet();
+    }
+
+    /**
+     * Runs the runnables that were queued before this point, so runnables
+     * queueing more runnables run them in the next tick.
+     */
+    private void runImmediate() {
+        int count = this.immediateCount.get();
+        if (this.immediateLimit > 0) {
+            count = Math.min(count, this.immediateLimit);
+        }
+        for (int i = 0; i < count; i++) {
+            final ImmediateRunnable immediate = this.immediateRunnables.poll();
+            if (immediate == null) {
+                break;
+            }
+            this.immediateCount.decrementAndGet();
+            try {
+                immediate.runnable.run();
+            } catch (Throwable t) {
+                SpongeImpl.getLogger().error("The Scheduler tried to run a runnable submitted to the synchronous executor of {}, but an error "
+                        + "occured.", immediate.plugin.getId(), t);
+            }
+        }
+    }
+
+    int getImmediateCount() {
+        return this.immediateCount.get();
+    }
+
+    /**
+     * Sets the maximum number of runnables submitted to the synchronous
+     * executors run per tick.
+     *
+     * @param immediateLimit The limit, 0 for no limit
+     */
+    void setImmediateLimit(int immediateLimit) {
+        this.immediateLimit = immediateLimit;
+    }
+
+    private void run(ScheduledTask task) {
+        if (task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
+            this.removeTask(task);
+            return;
+        }
+        task.setState(ScheduledTask.ScheduledTaskState.SWITCHING);
+        task.setTimestamp(this.getTimestamp(task));
+        startTask(task);
+        // One time shots and tasks that cancelled themselves are done
+        if (task.period == 0L || task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
+            this.removeTask(task);
+        } else {
+            schedule(task);
+        }
+    }
+
+    private void queueDeferrable(ScheduledTask task) {
+        final String owner = task.getOwner().getId();
+        ArrayDeque<ScheduledTask> tasks = this.deferrableTasks.get(owner);
+        if (tasks == null) {
+            tasks = new ArrayDeque<>();
+            this.deferrableTasks.put(owner, tasks);
+        }
+        if (tasks.isEmpty()) {
+            this.deferrableOwners.add(owner);
+        }
+        tasks.add(task);
+    }
+
+    /**
+     * Runs the due deferrable tasks, one task per plugin in turn, until the
+     * tick exceeds its budget. The remaining tasks are carried over to the next
+     * tick, continuing with the plugin that was next in line. At least one task
+     * runs every tick.
+     */
+    private void runDeferrable() {
+        boolean first = true;
+        while (!this.deferrableOwners.isEmpty()) {
+            if (!first && this.tickBudget > 0 && System.nanoTime() - this.tickStartTime > this.tickBudget) {
+                for (ArrayDeque<ScheduledTask> tasks : this.deferrableTasks.values()) {
+                    for (ScheduledTask task : tasks) {
+                        if (!task.deferred) {
+                            task.deferred = true;
+                            this.deferrals.merge(task.getOwner().getId(), 1L, Long::sum);
+                        }
+                    }
+                }
+                return;
+            }
+            first = false;
+            final String owner = this.deferrableOwners.poll();
+            final ArrayDeque<ScheduledTask> tasks = this.deferrableTasks.get(owner);
+            final ScheduledTask task = tasks.poll();
+            task.deferred = false;
+            run(task);
+            if (!tasks.isEmpty()) {
+                this.deferrableOwners.add(owner);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of times tasks of each plugin were carried over to a
+     * later tick because the tick was over budget. A task waiting for several
+     * ticks is only counted once.
+     *
+     * @return The deferrals by plugin id
+     */
+    Map<String, Long> getDeferrals() {
+        return Collections.unmodifiableMap(this.deferrals);
+    }
+
+    /**
+     * Gets the number of deferrable tasks waiting for a tick with time left.
+     *
+     * @return The number of deferred tasks
+     */
+    int getDeferredCount() {
+        int count = 0;
+        for (ArrayDeque<ScheduledTask> tasks : this.deferrableTasks.values()) {
+            count += tasks.size();
+        }
+        return count;
+    }
+
+    /**
+     * Sets the time a tick may take before deferrable tasks are carried over
+     * to the next tick.
+     *
+     * @param tickBudget The budget in nanoseconds, 0 for no limit
+     */
+    void setTickBudget(long tickBudget) {
+        this.tickBudget = tickBudget;
+    }
+
+    /**
+     * Marks the start of the server tick, which the tick budget is measured
+     * from. Without it the budget is measured from when the scheduler ticks.
+     */
+    void markTickStart() {
+        this.tickStartTime = System.nanoTime();
+        this.tickStartMarked = true;
+    }
+
+    /**
+     * Puts a task into the wheel or the wall clock queue, depending on whether
+     * its next execution is measured in ticks or in real time.
+     */
+    private void schedule(ScheduledTask task) {
+        final boolean ticks = task.getState() == ScheduledTask.ScheduledTaskState.WAITING ? task.delayIsTicks : task.intervalIsTicks;
+        if (ticks) {
+            this.tickTasks.add(task, task.nextExecutionTimestamp());
+        } else {
+            this.wallClockTasks.add(new WallClockEntry(task, task.nextExecutionTimestamp()));
+        }
+    }
+
+    @Override
+    protected void executeTaskRunnable(ScheduledTask task, Runnable runnable) {
         runnable.run();
     }
 
+    private static final class ImmediateRunnable {
+
+        final PluginContainer plugin;
+        final Runnable runnable;
+
+        ImmediateRunnable(PluginContainer plugin, Runnable runnable) {
+            this.plugin = plugin;
+            this.runnable = runnable;
+        }
+
+    }
+
+    private static final class WallClockEntry implements Comparable<WallClockEntry> {
+
+        final ScheduledTask task;
+        final long dueTime;
+
+        WallClockEntry(ScheduledTask task, long dueTime) {
+            this.task = task;
+            this.dueTime = dueTime;
+        }
+
+        @Override
+        public int compareTo(WallClockEntry other) {
+            // Nano times may overflow, only their difference is meaningful
+            return Long.signum(this.dueTime - other.dueTime);
+        }
+
+    }
+
 }
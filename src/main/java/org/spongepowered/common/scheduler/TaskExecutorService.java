@@ -88,7 +88,12 @@ public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedE
 
     @Override
     public void execute(Runnable command) {
-        this.createTask(command).submit(this.plugin);
+        if (this.scheduler instanceof SyncScheduler) {
+            // Hopping to the main thread is common enough to skip creating a task
+            ((SyncScheduler) this.scheduler).executeImmediate(this.plugin, command);
+        } else {
+            this.createTask(command).submit(this.plugin);
+        }
     }
 
     @Override
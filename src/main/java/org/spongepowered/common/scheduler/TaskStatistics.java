@@ -0,0 +1,119 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run times of a scheduled task, counted into a fixed set of buckets. For
+ * asynchronous tasks the time spent waiting in the queue of the executor is
+ * recorded separately.
+ */
+public final class TaskStatistics {
+
+    // Upper bounds of the buckets in microseconds, the last bucket has no bound
+    private static final long[] BUCKET_BOUNDS = {50, 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000};
+
+    private final long[] buckets = new long[BUCKET_BOUNDS.length + 1];
+    private long count;
+    private long totalTime;
+    private long maxTime;
+    private long waitCount;
+    private long totalWaitTime;
+    private long maxWaitTime;
+
+    /**
+     * Records an execution of the task.
+     *
+     * @param nanos The time the execution took in nanoseconds
+     */
+    synchronized void record(long nanos) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && micros >= BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        this.buckets[bucket]++;
+        this.count++;
+        this.totalTime += nanos;
+        if (nanos > this.maxTime) {
+            this.maxTime = nanos;
+        }
+    }
+
+    /**
+     * Records the time an execution waited for a thread.
+     *
+     * @param nanos The time waited in nanoseconds
+     */
+    synchronized void recordWait(long nanos) {
+        this.waitCount++;
+        this.totalWaitTime += nanos;
+        if (nanos > this.maxWaitTime) {
+            this.maxWaitTime = nanos;
+        }
+    }
+
+    public synchronized long getCount() {
+        return this.count;
+    }
+
+    public synchronized long getTotalTime(TimeUnit unit) {
+        return unit.convert(this.totalTime, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getMaxTime(TimeUnit unit) {
+        return unit.convert(this.maxTime, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getAverageWaitTime(TimeUnit unit) {
+        return this.waitCount == 0 ? 0 : unit.convert(this.totalWaitTime / this.waitCount, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getMaxWaitTime(TimeUnit unit) {
+        return unit.convert(this.maxWaitTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the upper bound of the bucket containing the given percentile of
+     * the executions.
+     *
+     * @param percentile The percentile, between 0 and 1
+     * @param unit The unit of the result
+     * @return The upper bound, or the maximum time for the last bucket
+     */
+    public synchronized long getPercentileBound(double percentile, TimeUnit unit) {
+        final long target = (long) Math.ceil(this.count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            seen += this.buckets[i];
+            if (seen >= target) {
+                return unit.convert(BUCKET_BOUNDS[i], TimeUnit.MICROSECONDS);
+            }
+        }
+        return unit.convert(this.maxTime, TimeUnit.NANOSECONDS);
+    }
+
+}
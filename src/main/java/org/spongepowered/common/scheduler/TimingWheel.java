@@ -0,0 +1,148 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.scheduler;
+
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel of ticks. Adding an element and advancing by a
+ * tick take constant time, regardless of how many elements are waiting.
+ *
+ * <p>Each level has 64 slots, a slot of a level spanning all slots of the
+ * level below. Elements due within the current span of a level are kept in
+ * that level, and are moved down a level when the wheel reaches their slot.
+ * Elements further away than the highest level are kept in an overflow list
+ * that is looked at once per turn of the highest level.</p>
+ *
+ * @param <E> The type of the elements
+ */
+final class TimingWheel<E> {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final List<List<Entry<E>>> slots = Lists.newArrayListWithCapacity(LEVELS * SLOTS);
+    private List<Entry<E>> overflow = Lists.newArrayList();
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long currentTick) {
+        this.currentTick = currentTick;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            this.slots.add(null);
+        }
+    }
+
+    long getCurrentTick() {
+        return this.currentTick;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds an element, due at the given tick. Elements due at or before the
+     * current tick are returned by the next call to {@link #advance}.
+     *
+     * @param element The element
+     * @param dueTick The tick at which the element is due
+     */
+    void add(E element, long dueTick) {
+        place(new Entry<>(element, Math.max(dueTick, this.currentTick + 1)));
+        this.size++;
+    }
+
+    /**
+     * Advances the wheel by one tick.
+     *
+     * @param due The list receiving the elements due at the new tick
+     */
+    void advance(List<E> due) {
+        final long tick = ++this.currentTick;
+        if ((tick & (1L << SLOT_BITS * LEVELS) - 1) == 0 && !this.overflow.isEmpty()) {
+            final List<Entry<E>> entries = this.overflow;
+            this.overflow = Lists.newArrayList();
+            entries.forEach(this::place);
+        }
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & (1L << SLOT_BITS * level) - 1) == 0) {
+                final List<Entry<E>> entries = takeSlot(level, (int) (tick >>> SLOT_BITS * level) & SLOT_MASK);
+                if (entries != null) {
+                    entries.forEach(this::place);
+                }
+            }
+        }
+        final List<Entry<E>> entries = takeSlot(0, (int) tick & SLOT_MASK);
+        if (entries != null) {
+            for (Entry<E> entry : entries) {
+                due.add(entry.element);
+            }
+            this.size -= entries.size();
+        }
+    }
+
+    /**
+     * Puts an entry into the lowest level whose current span contains the tick
+     * at which the entry is due.
+     */
+    private void place(Entry<E> entry) {
+        for (int level = 0; level < LEVELS; level++) {
+            final int shift = SLOT_BITS * (level + 1);
+            if (entry.dueTick >>> shift == this.currentTick >>> shift) {
+                final int index = level * SLOTS + ((int) (entry.dueTick >>> SLOT_BITS * level) & SLOT_MASK);
+                List<Entry<E>> slot = this.slots.get(index);
+                if (slot == null) {
+                    slot = Lists.newArrayList();
+                    this.slots.set(index, slot);
+                }
+                slot.add(entry);
+                return;
+            }
+        }
+        this.overflow.add(entry);
+    }
+
+    private List<Entry<E>> takeSlot(int level, int slot) {
+        return this.slots.set(level * SLOTS + slot, null);
+    }
+
+    private static final class Entry<E> {
+
+        final E element;
+        final long dueTick;
+
+        Entry(E element, long dueTick) {
+            this.element = element;
+            this.dueTick = dueTick;
+        }
+
+    }
+
+}
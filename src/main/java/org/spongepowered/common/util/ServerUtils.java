@@ -28,6 +28,7 @@
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -35,24 +36,31 @@
 import net.minecraft.world.MinecraftException;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.storage.WorldInfo;
-import org.apache.commons.io.FileUtils;
 import org.spongepowered.api.world.storage.WorldProperties;
+import org.spongepowered.common.SpongeImpl;
 import org.spongepowered.common.interfaces.IMixinMinecraftServer;
 import org.spongepowered.common.interfaces.world.IMixinWorldInfo;
 import org.spongepowered.common.registry.type.world.WorldPropertyRegistryModule;
 import org.spongepowered.common.scheduler.SpongeScheduler;
 import org.spongepowered.common.world.DimensionManager;
+import org.spongepowered.common.world.storage.WorldFileOperation;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.function.Predicate;
 
 public class ServerUtils {
 
     private static final ListeningExecutorService executor = SpongeScheduler.getInstance().getListeningExecService();
+    private static final Set<WorldFileOperation> fileOperations = Sets.newConcurrentHashSet();
 
     public static ListenableFuture<Optional<WorldProperties>> copyWorld(MinecraftServer server, WorldProperties worldProperties, String copyName) {
         checkArgument(WorldPropertyRegistryModule.getInstance().isWorldRegistered(worldProperties.getUniqueId()), "World properties not registered");
@@ -67,7 +75,10 @@ public static ListenableFuture<Optional<WorldProperties>> copyWorld(MinecraftSer
             }
             ((IMixinMinecraftServer) server).setSaveEnabled(false);
         }
-        ListenableFuture<Optional<WorldProperties>> future = executor.submit(new CopyWorldTask(info, copyName));
+        // Hard linked region files would be written to through region files the loaded world already has open
+        boolean linkRegionFiles = world == null && SpongeHooks.getActiveConfig(worldProperties.getDimensionType().getId(), info.getWorldName())
+                .getConfig().getWorld().linkRegionFilesOnCopy();
+        ListenableFuture<Optional<WorldProperties>> future = executor.submit(new CopyWorldTask(info, copyName, linkRegionFiles));
         if (world != null) { // World was loaded
             future.addListener(() -> {
                 ((IMixinMinecraftServer) server).setSaveEnabled(true);
@@ -82,14 +93,25 @@ public static ListenableFuture<Boolean> deleteWorld(WorldProperties worldPropert
         return executor.submit(new DeleteWorldTask(worldProperties));
     }
 
+    /**
+     * Gets the copy and delete operations currently running.
+     *
+     * @return The running operations
+     */
+    public static Collection<WorldFileOperation> getFileOperations() {
+        return Collections.unmodifiableSet(fileOperations);
+    }
+
     private static class CopyWorldTask implements Callable<Optional<WorldProperties>> {
 
         private final WorldInfo oldInfo;
         private final String newName;
+        private final boolean linkRegionFiles;
 
-        public CopyWorldTask(WorldInfo info, String newName) {
+        public CopyWorldTask(WorldInfo info, String newName, boolean linkRegionFiles) {
             this.oldInfo = info;
             this.newName = newName;
+            this.linkRegionFiles = linkRegionFiles;
         }
 
         @Override
@@ -105,15 +127,21 @@ public Optional<WorldProperties> call() throws Exception {
                 return Optional.empty();
             }
 
-            FileFilter filter = null;
+            Predicate<Path> skipDirectory = (dir) -> false;
             if (((IMixinWorldInfo) this.oldInfo).getDimensionId() == 0) {
                 oldDir = rootDir;
-                filter = (file) -> !file.isDirectory() || !new File(file, "level.dat").exists();
+                // Leave out the directories of the other worlds
+                skipDirectory = (dir) -> Files.exists(dir.resolve("level.dat"));
             }
+            WorldFileOperation operation = new WorldFileOperation("Copying world " + this.oldInfo.getWorldName() + " to " + this.newName);
+            fileOperations.add(operation);
             try {
-                FileUtils.copyDirectory(oldDir, newDir, filter);
+                operation.copy(oldDir.toPath(), newDir.toPath(), skipDirectory, this.linkRegionFiles);
             } catch (IOException e) {
+                SpongeImpl.getLogger().error("Failed to copy world " + this.oldInfo.getWorldName(), e);
                 return Optional.empty();
+            } finally {
+                fileOperations.remove(operation);
             }
 
             WorldInfo info = new WorldInfo(this.oldInfo);
@@ -143,12 +171,19 @@ public Boolean call() throws Exception {
                 return false;
             }
             File dir = new File(rootDir, this.props.getWorldName());
+            WorldFileOperation operation = new WorldFileOperation("Deleting world " + this.props.getWorldName());
+            fileOperations.add(operation);
             try {
-                FileUtils.deleteDirectory(dir);
+                if (dir.exists()) {
+                    operation.delete(dir.toPath());
+                }
                 WorldPropertyRegistryModule.getInstance().unregister(this.props);
                 return true;
             } catch (IOException e) {
+                SpongeImpl.getLogger().error("Failed to delete world " + this.props.getWorldName(), e);
                 return false;
+            } finally {
+                fileOperations.remove(operation);
             }
         }
 
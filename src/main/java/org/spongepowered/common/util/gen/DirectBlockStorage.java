@@ -0,0 +1,175 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.util.gen;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import net.minecraft.block.Block;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockTypes;
+import org.spongepowered.common.util.DirectBufferUtil;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores block state ids as shorts outside of the Java heap, either in
+ * directly allocated memory or in a memory-mapped file.
+ *
+ * <p>The memory is only returned once the storage is {@link #release()
+ * released} or, failing that, once the garbage collector finds the buffer
+ * unreachable. Using the storage after releasing it throws an
+ * {@link IllegalStateException}.</p>
+ */
+public final class DirectBlockStorage {
+
+    @SuppressWarnings("ConstantConditions")
+    private static final BlockState AIR = BlockTypes.AIR.getDefaultState();
+    private static final int MAX_LENGTH = Integer.MAX_VALUE / 2;
+
+    private final int length;
+    @Nullable private volatile ByteBuffer buffer;
+
+    private DirectBlockStorage(ByteBuffer buffer, int length) {
+        this.buffer = buffer.order(ByteOrder.nativeOrder());
+        this.length = length;
+    }
+
+    /**
+     * Allocates a storage in direct memory, with every entry set to air.
+     *
+     * @param length The number of blocks
+     * @return The storage
+     */
+    public static DirectBlockStorage allocate(int length) {
+        checkArgument(length >= 0 && length <= MAX_LENGTH, "Cannot store %s blocks off-heap", length);
+        return new DirectBlockStorage(ByteBuffer.allocateDirect(length * 2), length);
+    }
+
+    /**
+     * Maps a file as storage. Changes are written through to the file, which
+     * is created or grown as necessary.
+     *
+     * @param file The file
+     * @param length The number of blocks
+     * @return The storage
+     * @throws IOException If the file could not be mapped
+     */
+    public static DirectBlockStorage map(Path file, int length) throws IOException {
+        checkArgument(length >= 0 && length <= MAX_LENGTH, "Cannot store %s blocks off-heap", length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return new DirectBlockStorage(channel.map(FileChannel.MapMode.READ_WRITE, 0, length * 2L), length);
+        }
+    }
+
+    private ByteBuffer buffer() {
+        ByteBuffer buffer = this.buffer;
+        checkState(buffer != null, "Block storage was released");
+        return buffer;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    public boolean isReleased() {
+        return this.buffer == null;
+    }
+
+    public BlockState get(int index) {
+        BlockState block = (BlockState) Block.BLOCK_STATE_IDS.getByValue(buffer().getShort(index * 2));
+        return block == null ? AIR : block;
+    }
+
+    public void set(int index, BlockState block) {
+        buffer().putShort(index * 2, (short) Block.BLOCK_STATE_IDS.get(block));
+    }
+
+    /**
+     * Copies the entries into a new storage in direct memory.
+     *
+     * @return The copy
+     */
+    public DirectBlockStorage copy() {
+        ByteBuffer source = buffer().duplicate();
+        source.clear();
+        ByteBuffer copy = ByteBuffer.allocateDirect(source.capacity());
+        copy.put(source);
+        return new DirectBlockStorage(copy, this.length);
+    }
+
+    /**
+     * Writes the entries to a file, straight from the off-heap memory. The
+     * file can be read back with {@link #map(Path, int)}.
+     *
+     * @param file The file to write to
+     * @throws IOException If the file could not be written
+     */
+    public void writeTo(Path file) throws IOException {
+        ByteBuffer source = buffer().duplicate();
+        source.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Writes changes to a memory-mapped file through to the disk. Does
+     * nothing for storage in direct memory.
+     */
+    public void flush() {
+        ByteBuffer buffer = buffer();
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    /**
+     * Frees the memory of this storage immediately instead of waiting for
+     * the garbage collector. No other thread may be using the storage at
+     * the same time.
+     */
+    public void release() {
+        ByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            return;
+        }
+        this.buffer = null;
+        DirectBufferUtil.free(buffer);
+    }
+
+}
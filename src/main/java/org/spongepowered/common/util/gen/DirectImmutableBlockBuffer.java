@@ -0,0 +1,118 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.util.gen;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.util.DiscreteTransform3;
+import org.spongepowered.api.util.annotation.NonnullByDefault;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
+import org.spongepowered.api.world.extent.MutableBlockVolume;
+import org.spongepowered.api.world.extent.StorageType;
+import org.spongepowered.api.world.extent.UnmodifiableBlockVolume;
+import org.spongepowered.common.world.extent.ImmutableBlockViewDownsize;
+import org.spongepowered.common.world.extent.ImmutableBlockViewTransform;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Immutable block volume storing its blocks off the Java heap.
+ */
+@NonnullByDefault
+public class DirectImmutableBlockBuffer extends AbstractBlockBuffer implements ImmutableBlockVolume {
+
+    private final DirectBlockStorage blocks;
+
+    /**
+     * Creates a new immutable buffer. The storage is not copied, so no
+     * reference to it may be kept elsewhere.
+     *
+     * @param blocks The blocks to store
+     * @param start The start of the volume
+     * @param size The size of the volume
+     */
+    public DirectImmutableBlockBuffer(DirectBlockStorage blocks, Vector3i start, Vector3i size) {
+        super(start, size);
+        this.blocks = blocks;
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        checkRange(x, y, z);
+        return this.blocks.get(getIndex(x, y, z));
+    }
+
+    @Override
+    public ImmutableBlockVolume getBlockView(Vector3i newMin, Vector3i newMax) {
+        checkRange(newMin.getX(), newMin.getY(), newMin.getZ());
+        checkRange(newMax.getX(), newMax.getY(), newMax.getZ());
+        return new ImmutableBlockViewDownsize(this, newMin, newMax);
+    }
+
+    @Override
+    public ImmutableBlockVolume getBlockView(DiscreteTransform3 transform) {
+        return new ImmutableBlockViewTransform(this, transform);
+    }
+
+    @Override
+    public ImmutableBlockVolume getRelativeBlockView() {
+        return getBlockView(DiscreteTransform3.fromTranslation(this.start.negate()));
+    }
+
+    @Override
+    public UnmodifiableBlockVolume getUnmodifiableBlockView() {
+        return this;
+    }
+
+    @Override
+    public MutableBlockVolume getBlockCopy(StorageType type) {
+        switch (type) {
+            case STANDARD:
+                return new DirectMutableBlockBuffer(this.blocks.copy(), this.start, this.size);
+            case THREAD_SAFE:
+            default:
+                throw new UnsupportedOperationException(type.name());
+        }
+    }
+
+    @Override
+    public ImmutableBlockVolume getImmutableBlockCopy() {
+        return this;
+    }
+
+    /**
+     * Writes the blocks of this buffer to a file, straight from the off-heap
+     * memory.
+     *
+     * @param file The file to write to
+     * @throws IOException If the file could not be written
+     * @see DirectBlockStorage#map(Path, int)
+     */
+    public void writeTo(Path file) throws IOException {
+        this.blocks.writeTo(file);
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.util.gen;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockTypes;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores block states as indices into a palette of the states that are
+ * actually used, packed into as few bits as the palette size allows.
+ *
+ * <p>Every entry starts out as air. The number of bits per entry grows,
+ * repacking all entries, when a state is added that doesn't fit into the
+ * palette anymore. Entries never cross the boundary of a long.</p>
+ */
+public final class PaletteBlockStorage {
+
+    @SuppressWarnings("ConstantConditions")
+    private static final BlockState AIR = BlockTypes.AIR.getDefaultState();
+    private static final int MAX_BITS = 32;
+
+    private final int length;
+    private final List<BlockState> palette;
+    private final Map<BlockState, Integer> ids;
+    private int bits;
+    private int valuesPerLong;
+    private long mask;
+    private long[] data;
+
+    // Neighbouring blocks are usually the same, skip the palette lookup then
+    private BlockState lastState;
+    private int lastId;
+
+    public PaletteBlockStorage(int length) {
+        checkArgument(length >= 0, "length");
+        this.length = length;
+        this.palette = Lists.newArrayList();
+        this.ids = Maps.newIdentityHashMap();
+        this.palette.add(AIR);
+        this.ids.put(AIR, 0);
+        this.lastState = AIR;
+        this.lastId = 0;
+        setBits(1);
+        this.data = new long[dataLength(length, this.valuesPerLong)];
+    }
+
+    private PaletteBlockStorage(PaletteBlockStorage storage) {
+        this.length = storage.length;
+        this.palette = Lists.newArrayList(storage.palette);
+        this.ids = Maps.newIdentityHashMap(storage.ids);
+        this.lastState = storage.lastState;
+        this.lastId = storage.lastId;
+        setBits(storage.bits);
+        this.data = storage.data.clone();
+    }
+
+    private void setBits(int bits) {
+        this.bits = bits;
+        this.valuesPerLong = 64 / bits;
+        this.mask = (1L << bits) - 1;
+    }
+
+    private static int dataLength(int length, int valuesPerLong) {
+        return (length + valuesPerLong - 1) / valuesPerLong;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    public int getPaletteSize() {
+        return this.palette.size();
+    }
+
+    public int getBitsPerEntry() {
+        return this.bits;
+    }
+
+    /**
+     * Gets the approximate number of bytes used to store the entries.
+     *
+     * @return The size of the entry data in bytes
+     */
+    public long getDataSize() {
+        return (long) this.data.length * 8;
+    }
+
+    public BlockState get(int index) {
+        return this.palette.get(getId(index));
+    }
+
+    private int getId(int index) {
+        int word = index / this.valuesPerLong;
+        int shift = (index - word * this.valuesPerLong) * this.bits;
+        return (int) (this.data[word] >>> shift & this.mask);
+    }
+
+    public void set(int index, BlockState state) {
+        int id;
+        if (state == this.lastState) {
+            id = this.lastId;
+        } else {
+            Integer existing = this.ids.get(state);
+            if (existing == null) {
+                id = this.palette.size();
+                this.palette.add(state);
+                this.ids.put(state, id);
+                if (id > this.mask) {
+                    resize(this.bits + 1);
+                }
+            } else {
+                id = existing;
+            }
+            this.lastState = state;
+            this.lastId = id;
+        }
+        setId(index, id);
+    }
+
+    private void setId(int index, int id) {
+        int word = index / this.valuesPerLong;
+        int shift = (index - word * this.valuesPerLong) * this.bits;
+        this.data[word] = this.data[word] & ~(this.mask << shift) | (long) id << shift;
+    }
+
+    private void resize(int bits) {
+        checkArgument(bits <= MAX_BITS, "Too many different block states");
+        long[] oldData = this.data;
+        int oldBits = this.bits;
+        int oldValuesPerLong = this.valuesPerLong;
+        long oldMask = this.mask;
+
+        setBits(bits);
+        this.data = new long[dataLength(this.length, this.valuesPerLong)];
+        for (int i = 0; i < this.length; i++) {
+            int word = i / oldValuesPerLong;
+            int id = (int) (oldData[word] >>> (i - word * oldValuesPerLong) * oldBits & oldMask);
+            if (id != 0) {
+                setId(i, id);
+            }
+        }
+    }
+
+    public PaletteBlockStorage copy() {
+        return new PaletteBlockStorage(this);
+    }
+
+}
@@ -0,0 +1,377 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.minecraft.block.Block;
+import net.minecraft.block.ITileEntityProvider;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.init.Blocks;
+import net.minecraft.network.Packet;
+import net.minecraft.network.play.server.S21PacketChunkData;
+import net.minecraft.network.play.server.S22PacketMultiBlockChange;
+import net.minecraft.network.play.server.S23PacketBlockChange;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.management.PlayerManager;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.World;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets many blocks of a world at once. The blocks are written directly to the
+ * chunk sections; lighting, neighbor notifications and client updates are
+ * done once per section and chunk when the session is committed, instead of
+ * for every block.
+ *
+ * <p>This bypasses block events, the {@code onBlockAdded} and
+ * {@code breakBlock} callbacks and block captures. Tile entities are still
+ * created and removed. A session must be used on the main thread.</p>
+ */
+public class BlockEditSession {
+
+    // Above this many changes in a chunk, the changed sections are resent instead of the blocks
+    private static final int MAX_MULTI_BLOCK_CHANGES = 64;
+
+    private final WorldServer world;
+    private final boolean hasSky;
+    private final Map<Long, ChunkEdit> chunks = Maps.newLinkedHashMap();
+    private boolean notifyNeighbors = true;
+    private boolean committed;
+    private int changeCount;
+
+    public BlockEditSession(World world) {
+        this.world = (WorldServer) checkNotNull(world, "world");
+        this.hasSky = !this.world.provider.getHasNoSky();
+    }
+
+    /**
+     * Sets whether neighboring blocks are notified of the changes when the
+     * session is committed. Enabled by default.
+     *
+     * @param notifyNeighbors Whether to notify neighbors
+     * @return This session, for chaining
+     */
+    public BlockEditSession notifyNeighbors(boolean notifyNeighbors) {
+        this.notifyNeighbors = notifyNeighbors;
+        return this;
+    }
+
+    public int getChangeCount() {
+        return this.changeCount;
+    }
+
+    /**
+     * Sets a block. The change is visible in the world right away, but the
+     * lighting and the clients are only updated on {@link #commit()}.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param block The new block
+     * @return Whether the block was changed
+     */
+    public boolean setBlock(int x, int y, int z, BlockState block) {
+        checkState(!this.committed, "Session was already committed");
+        checkState(MinecraftServer.getServer().isCallingFromMinecraftThread(), "Blocks can only be set on the main thread");
+        if (y < 0 || y > 255) {
+            return false;
+        }
+        final IBlockState newState = (IBlockState) checkNotNull(block, "block");
+        final Chunk chunk = this.world.getChunkFromChunkCoords(x >> 4, z >> 4);
+        final int sectionY = y >> 4;
+        final ExtendedBlockStorage[] sections = chunk.getBlockStorageArray();
+        ExtendedBlockStorage section = sections[sectionY];
+        final IBlockState oldState = section == null ? Blocks.air.getDefaultState() : section.get(x & 15, y & 15, z & 15);
+        if (oldState == newState) {
+            return false;
+        }
+        final Block oldBlock = oldState.getBlock();
+        final Block newBlock = newState.getBlock();
+        final BlockPos pos = new BlockPos(x, y, z);
+        final ChunkEdit edit = getEdit(chunk);
+
+        if (section == null) {
+            section = new ExtendedBlockStorage(sectionY << 4, this.hasSky);
+            sections[sectionY] = section;
+            edit.opacityChanged = true;
+        }
+        if (oldBlock.hasTileEntity() && oldBlock != newBlock) {
+            this.world.removeTileEntity(pos);
+        }
+        section.set(x & 15, y & 15, z & 15, newState);
+
+        if (newBlock instanceof ITileEntityProvider) {
+            TileEntity tileEntity = chunk.getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK);
+            if (tileEntity == null) {
+                tileEntity = ((ITileEntityProvider) newBlock).createNewTileEntity(this.world, newBlock.getMetaFromState(newState));
+                this.world.setTileEntity(pos, tileEntity);
+            } else {
+                tileEntity.updateContainingBlockInfo();
+            }
+        }
+
+        final int index = (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        edit.getChanges(sectionY).set(index);
+        if (oldBlock.getLightOpacity() != newBlock.getLightOpacity()) {
+            edit.opacityChanged = true;
+            edit.getLightChecks(sectionY).set(index);
+            if (this.hasSky) {
+                edit.getSkyLightChecks(sectionY).set(index);
+            }
+        } else if (oldBlock.getLightValue() != newBlock.getLightValue()) {
+            edit.getLightChecks(sectionY).set(index);
+        }
+        edit.changeCount++;
+        this.changeCount++;
+        return true;
+    }
+
+    /**
+     * Updates the lighting, notifies the neighbors and sends the changes to
+     * the players watching the changed chunks.
+     */
+    public void commit() {
+        checkState(!this.committed, "Session was already committed");
+        this.committed = true;
+        final PlayerManager playerManager = this.world.getPlayerManager();
+        for (ChunkEdit edit : this.chunks.values()) {
+            final Chunk chunk = edit.chunk;
+            if (edit.opacityChanged) {
+                if (this.hasSky) {
+                    chunk.generateSkylightMap();
+                } else {
+                    chunk.generateHeightMap();
+                }
+            }
+            relight(edit);
+            chunk.setChunkModified();
+            if (this.notifyNeighbors) {
+                notifyNeighbors(edit);
+            }
+            final Packet packet = createPacket(edit);
+            final List<Packet> tileEntityPackets = createTileEntityPackets(edit);
+            for (EntityPlayerMP player : this.world.playerEntities) {
+                if (playerManager.isPlayerWatchingChunk(player, chunk.xPosition, chunk.zPosition)) {
+                    player.playerNetServerHandler.sendPacket(packet);
+                    for (Packet tileEntityPacket : tileEntityPackets) {
+                        player.playerNetServerHandler.sendPacket(tileEntityPacket);
+                    }
+                }
+            }
+        }
+        this.chunks.clear();
+    }
+
+    private ChunkEdit getEdit(Chunk chunk) {
+        final long key = ((long) chunk.xPosition & 0xffffffffL) | ((long) chunk.zPosition & 0xffffffffL) << 32;
+        ChunkEdit edit = this.chunks.get(key);
+        if (edit == null) {
+            edit = new ChunkEdit(chunk);
+            this.chunks.put(key, edit);
+        }
+        return edit;
+    }
+
+    /**
+     * Rechecks the light, section by section. The sky light is rechecked where
+     * the opacity changed, as the sky light map of the chunk only covers the
+     * columns. Only positions that emit or could receive block light are
+     * checked for it, the light spreads from them into the other changed
+     * positions.
+     */
+    private void relight(ChunkEdit edit) {
+        final Chunk chunk = edit.chunk;
+        final int xBase = chunk.xPosition << 4;
+        final int zBase = chunk.zPosition << 4;
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            final BitSet skyChecks = edit.skyLightChecks[sectionY];
+            if (skyChecks != null) {
+                for (int index = skyChecks.nextSetBit(0); index >= 0; index = skyChecks.nextSetBit(index + 1)) {
+                    this.world.checkLightFor(EnumSkyBlock.SKY, new BlockPos(xBase | index & 15, sectionY << 4 | index >> 8, zBase | index >> 4 & 15));
+                }
+            }
+            final BitSet checks = edit.lightChecks[sectionY];
+            if (checks == null) {
+                continue;
+            }
+            for (int index = checks.nextSetBit(0); index >= 0; index = checks.nextSetBit(index + 1)) {
+                final BlockPos pos = new BlockPos(xBase | index & 15, sectionY << 4 | index >> 8, zBase | index >> 4 & 15);
+                if (needsBlockLightCheck(pos)) {
+                    this.world.checkLightFor(EnumSkyBlock.BLOCK, pos);
+                }
+            }
+        }
+    }
+
+    private boolean needsBlockLightCheck(BlockPos pos) {
+        if (this.world.getBlockState(pos).getBlock().getLightValue() > 0 || this.world.getLightFor(EnumSkyBlock.BLOCK, pos) > 0) {
+            return true;
+        }
+        for (EnumFacing facing : EnumFacing.values()) {
+            if (this.world.getLightFor(EnumSkyBlock.BLOCK, pos.offset(facing)) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void notifyNeighbors(ChunkEdit edit) {
+        final Chunk chunk = edit.chunk;
+        final int xBase = chunk.xPosition << 4;
+        final int zBase = chunk.zPosition << 4;
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            final BitSet changes = edit.changes[sectionY];
+            if (changes == null) {
+                continue;
+            }
+            for (int index = changes.nextSetBit(0); index >= 0; index = changes.nextSetBit(index + 1)) {
+                final BlockPos pos = new BlockPos(xBase | index & 15, sectionY << 4 | index >> 8, zBase | index >> 4 & 15);
+                this.world.notifyNeighborsOfStateChange(pos, chunk.getBlock(pos));
+            }
+        }
+    }
+
+    private Packet createPacket(ChunkEdit edit) {
+        final Chunk chunk = edit.chunk;
+        if (edit.changeCount == 1) {
+            for (int sectionY = 0; sectionY < 16; sectionY++) {
+                final BitSet changes = edit.changes[sectionY];
+                if (changes != null) {
+                    final int index = changes.nextSetBit(0);
+                    return new S23PacketBlockChange(this.world, new BlockPos(chunk.xPosition << 4 | index & 15, sectionY << 4 | index >> 8,
+                            chunk.zPosition << 4 | index >> 4 & 15));
+                }
+            }
+        }
+        if (edit.changeCount <= MAX_MULTI_BLOCK_CHANGES) {
+            final short[] positions = new short[edit.changeCount];
+            int count = 0;
+            for (int sectionY = 0; sectionY < 16; sectionY++) {
+                final BitSet changes = edit.changes[sectionY];
+                if (changes == null) {
+                    continue;
+                }
+                for (int index = changes.nextSetBit(0); index >= 0; index = changes.nextSetBit(index + 1)) {
+                    positions[count++] = (short) ((index & 15) << 12 | (index >> 4 & 15) << 8 | sectionY << 4 | index >> 8);
+                }
+            }
+            return new S22PacketMultiBlockChange(count, positions, chunk);
+        }
+        int sectionMask = 0;
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            if (edit.changes[sectionY] != null) {
+                sectionMask |= 1 << sectionY;
+            }
+        }
+        return new S21PacketChunkData(chunk, false, sectionMask);
+    }
+
+    /**
+     * Creates the description packets of the tile entities at the changed
+     * positions, which none of the block change packets contain, like the
+     * player manager does when it sends block changes.
+     */
+    private List<Packet> createTileEntityPackets(ChunkEdit edit) {
+        final Chunk chunk = edit.chunk;
+        final int xBase = chunk.xPosition << 4;
+        final int zBase = chunk.zPosition << 4;
+        final List<Packet> packets = Lists.newArrayList();
+        for (int sectionY = 0; sectionY < 16; sectionY++) {
+            final BitSet changes = edit.changes[sectionY];
+            if (changes == null) {
+                continue;
+            }
+            for (int index = changes.nextSetBit(0); index >= 0; index = changes.nextSetBit(index + 1)) {
+                final BlockPos pos = new BlockPos(xBase | index & 15, sectionY << 4 | index >> 8, zBase | index >> 4 & 15);
+                final TileEntity tileEntity = chunk.getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK);
+                if (tileEntity != null) {
+                    final Packet packet = tileEntity.getDescriptionPacket();
+                    if (packet != null) {
+                        packets.add(packet);
+                    }
+                }
+            }
+        }
+        return packets;
+    }
+
+    private static final class ChunkEdit {
+
+        final Chunk chunk;
+        final BitSet[] changes = new BitSet[16];
+        final BitSet[] lightChecks = new BitSet[16];
+        final BitSet[] skyLightChecks = new BitSet[16];
+        boolean opacityChanged;
+        int changeCount;
+
+        ChunkEdit(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        BitSet getChanges(int sectionY) {
+            BitSet changes = this.changes[sectionY];
+            if (changes == null) {
+                changes = new BitSet(4096);
+                this.changes[sectionY] = changes;
+            }
+            return changes;
+        }
+
+        BitSet getLightChecks(int sectionY) {
+            BitSet checks = this.lightChecks[sectionY];
+            if (checks == null) {
+                checks = new BitSet(4096);
+                this.lightChecks[sectionY] = checks;
+            }
+            return checks;
+        }
+
+        BitSet getSkyLightChecks(int sectionY) {
+            BitSet checks = this.skyLightChecks[sectionY];
+            if (checks == null) {
+                checks = new BitSet(4096);
+                this.skyLightChecks[sectionY] = checks;
+            }
+            return checks;
+        }
+
+    }
+
+}
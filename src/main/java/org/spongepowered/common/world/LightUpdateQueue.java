@@ -0,0 +1,193 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world;
+
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.WorldServer;
+import org.spongepowered.common.config.SpongeConfig;
+import org.spongepowered.common.util.SpongeHooks;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects the positions of a world that need their light rechecked after a
+ * block change, and rechecks them once the entities of the world were
+ * updated.
+ *
+ * <p>Positions changed several times in a tick are only rechecked once, and
+ * are processed section by section so the relighting of neighboring blocks
+ * works on the same chunks. The number of rechecks per tick is bounded, the
+ * rest carries over to the next ticks. The positions of a chunk are rechecked
+ * before the chunk is unloaded, so its light is saved correctly.</p>
+ */
+public class LightUpdateQueue {
+
+    private static final long CHUNK_OFFSET = 1 << 25;
+
+    private final WorldServer world;
+    // Positions within each chunk section, keyed by section
+    private final TreeMap<Long, BitSet> sections = new TreeMap<>();
+    private boolean enabled;
+    private int pendingCount;
+    private long queuedCount;
+    private long duplicateCount;
+    private long processedCount;
+
+    public LightUpdateQueue(WorldServer world) {
+        this.world = world;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Queues the light of a position to be rechecked.
+     *
+     * @param pos The position
+     * @return Whether the position was queued, false if the queue is disabled
+     *     and the light should be checked right away
+     */
+    public boolean queue(BlockPos pos) {
+        if (!this.enabled) {
+            return false;
+        }
+        this.queuedCount++;
+        final long key = sectionKey(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4);
+        BitSet positions = this.sections.get(key);
+        if (positions == null) {
+            positions = new BitSet(4096);
+            this.sections.put(key, positions);
+        }
+        final int index = (pos.getY() & 15) << 8 | (pos.getZ() & 15) << 4 | (pos.getX() & 15);
+        if (positions.get(index)) {
+            this.duplicateCount++;
+        } else {
+            positions.set(index);
+            this.pendingCount++;
+        }
+        return true;
+    }
+
+    public void tick() {
+        SpongeConfig.WorldCategory config = SpongeHooks.getActiveConfig(this.world).getConfig().getWorld();
+        final boolean wasEnabled = this.enabled;
+        this.enabled = config.useBatchedLighting();
+        if (this.sections.isEmpty()) {
+            return;
+        }
+        // Everything left is processed at once when the queue was turned off
+        final int maxUpdates = wasEnabled && this.enabled ? config.getMaxLightUpdatesPerTick() : 0;
+        int updates = 0;
+        final Iterator<Map.Entry<Long, BitSet>> iterator = this.sections.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Long, BitSet> entry = iterator.next();
+            final long key = entry.getKey();
+            final int xBase = (int) ((key >>> 30) - CHUNK_OFFSET) << 4;
+            final int zBase = (int) ((key >>> 4 & 0x3ffffff) - CHUNK_OFFSET) << 4;
+            final int yBase = (int) (key & 15) << 4;
+            if (!this.world.theChunkProviderServer.chunkExists(xBase >> 4, zBase >> 4)) {
+                // Kept until the chunk is loaded again
+                continue;
+            }
+            final BitSet positions = entry.getValue();
+            for (int index = positions.nextSetBit(0); index >= 0; index = positions.nextSetBit(index + 1)) {
+                if (maxUpdates > 0 && updates >= maxUpdates) {
+                    return;
+                }
+                positions.clear(index);
+                checkLight(xBase, yBase, zBase, index);
+                updates++;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Rechecks all queued positions of a chunk, regardless of the limit per
+     * tick. Called before the chunk is unloaded.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     */
+    public void flushChunk(int chunkX, int chunkZ) {
+        if (this.sections.isEmpty()) {
+            return;
+        }
+        final Map<Long, BitSet> chunkSections = this.sections.subMap(sectionKey(chunkX, 0, chunkZ), true, sectionKey(chunkX, 15, chunkZ), true);
+        for (Map.Entry<Long, BitSet> entry : chunkSections.entrySet()) {
+            final BitSet positions = entry.getValue();
+            final int yBase = (int) (entry.getKey() & 15) << 4;
+            for (int index = positions.nextSetBit(0); index >= 0; index = positions.nextSetBit(index + 1)) {
+                checkLight(chunkX << 4, yBase, chunkZ << 4, index);
+            }
+        }
+        chunkSections.clear();
+    }
+
+    private void checkLight(int xBase, int yBase, int zBase, int index) {
+        this.pendingCount--;
+        this.world.checkLight(new BlockPos(xBase | index & 15, yBase | index >> 8, zBase | index >> 4 & 15));
+        this.processedCount++;
+    }
+
+    /**
+     * Gets the number of positions waiting for their light to be rechecked.
+     *
+     * @return The number of pending positions
+     */
+    public int getPendingCount() {
+        return this.pendingCount;
+    }
+
+    public long getQueuedCount() {
+        return this.queuedCount;
+    }
+
+    /**
+     * Gets the number of queued positions that were already waiting to be
+     * rechecked.
+     *
+     * @return The number of merged positions
+     */
+    public long getDuplicateCount() {
+        return this.duplicateCount;
+    }
+
+    public long getProcessedCount() {
+        return this.processedCount;
+    }
+
+    /**
+     * Orders sections by chunk, then from the bottom to the top of the chunk.
+     */
+    private static long sectionKey(int chunkX, int sectionY, int chunkZ) {
+        return (chunkX + CHUNK_OFFSET) << 30 | (chunkZ + CHUNK_OFFSET) << 4 | sectionY;
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TObjectLongHashMap;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.WorldServer;
+import org.spongepowered.common.config.SpongeConfig;
+import org.spongepowered.common.util.SpongeHooks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sums up the time spent ticking entities and tile entities per chunk and per
+ * type over an interval of ticks, to find the chunks lagging the server.
+ *
+ * <p>Reports show the last complete interval, or the current one before the
+ * first interval completed.</p>
+ */
+public class TickCostTracker {
+
+    private final WorldServer world;
+    private boolean enabled;
+    private int ticks;
+    private TLongLongHashMap chunkTimes = new TLongLongHashMap();
+    private TObjectLongHashMap<Class<?>> typeTimes = new TObjectLongHashMap<>();
+    private int lastTicks;
+    private TLongLongHashMap lastChunkTimes = new TLongLongHashMap();
+    private TObjectLongHashMap<Class<?>> lastTypeTimes = new TObjectLongHashMap<>();
+
+    public TickCostTracker(WorldServer world) {
+        this.world = world;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Adds the time an entity or tile entity took to tick.
+     *
+     * @param chunkX The x coordinate of the chunk it is in
+     * @param chunkZ The z coordinate of the chunk it is in
+     * @param type The class of the entity or tile entity
+     * @param nanos The time in nanoseconds
+     */
+    public void record(int chunkX, int chunkZ, Class<?> type, long nanos) {
+        this.chunkTimes.adjustOrPutValue(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ), nanos, nanos);
+        this.typeTimes.adjustOrPutValue(type, nanos, nanos);
+    }
+
+    public void tick() {
+        SpongeConfig.WorldCategory config = SpongeHooks.getActiveConfig(this.world).getConfig().getWorld();
+        final boolean wasEnabled = this.enabled;
+        this.enabled = config.useTickCostTracking();
+        if (!this.enabled) {
+            if (wasEnabled) {
+                this.ticks = 0;
+                this.lastTicks = 0;
+                this.chunkTimes.clear();
+                this.typeTimes.clear();
+                this.lastChunkTimes.clear();
+                this.lastTypeTimes.clear();
+            }
+            return;
+        }
+        if (++this.ticks >= config.getTickCostInterval()) {
+            // Swap the maps instead of copying them
+            TLongLongHashMap chunkTimes = this.lastChunkTimes;
+            this.lastChunkTimes = this.chunkTimes;
+            this.chunkTimes = chunkTimes;
+            this.chunkTimes.clear();
+            TObjectLongHashMap<Class<?>> typeTimes = this.lastTypeTimes;
+            this.lastTypeTimes = this.typeTimes;
+            this.typeTimes = typeTimes;
+            this.typeTimes.clear();
+            this.lastTicks = this.ticks;
+            this.ticks = 0;
+        }
+    }
+
+    /**
+     * Gets the number of ticks the reported times were measured over.
+     *
+     * @return The number of ticks
+     */
+    public int getReportedTicks() {
+        return this.lastTicks > 0 ? this.lastTicks : this.ticks;
+    }
+
+    /**
+     * Gets the chunks that took the most time to tick.
+     *
+     * @param count The maximum number of chunks
+     * @return The chunks with their time in nanoseconds, most expensive first
+     */
+    public List<Cost<ChunkCoordIntPair>> getTopChunks(int count) {
+        final TLongLongHashMap times = this.lastTicks > 0 ? this.lastChunkTimes : this.chunkTimes;
+        final List<Cost<ChunkCoordIntPair>> costs = new ArrayList<>(times.size());
+        times.forEachEntry((key, nanos) -> {
+            costs.add(new Cost<>(new ChunkCoordIntPair((int) key, (int) (key >>> 32)), nanos));
+            return true;
+        });
+        return top(costs, count);
+    }
+
+    /**
+     * Gets the entity and tile entity types that took the most time to tick.
+     *
+     * @param count The maximum number of types
+     * @return The types with their time in nanoseconds, most expensive first
+     */
+    public List<Cost<Class<?>>> getTopTypes(int count) {
+        final TObjectLongHashMap<Class<?>> times = this.lastTicks > 0 ? this.lastTypeTimes : this.typeTimes;
+        final List<Cost<Class<?>>> costs = new ArrayList<>(times.size());
+        times.forEachEntry((type, nanos) -> {
+            costs.add(new Cost<>(type, nanos));
+            return true;
+        });
+        return top(costs, count);
+    }
+
+    private static <T> List<Cost<T>> top(List<Cost<T>> costs, int count) {
+        costs.sort(Comparator.comparingLong((Cost<T> cost) -> cost.nanos).reversed());
+        return costs.size() > count ? new ArrayList<>(costs.subList(0, count)) : costs;
+    }
+
+    public static final class Cost<T> {
+
+        private final T key;
+        private final long nanos;
+
+        Cost(T key, long nanos) {
+            this.key = key;
+            this.nanos = nanos;
+        }
+
+        public T getKey() {
+            return this.key;
+        }
+
+        public long getNanos() {
+            return this.nanos;
+        }
+    }
+
+}
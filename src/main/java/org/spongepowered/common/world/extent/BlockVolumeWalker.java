@@ -0,0 +1,96 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.extent;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.util.DiscreteTransform3;
+import org.spongepowered.api.world.extent.BlockVolume;
+import org.spongepowered.api.world.extent.Extent;
+
+/**
+ * Visits every block of a volume, walking it chunk by chunk. Blocks of
+ * worlds, and of views of worlds, are read through an {@link ExtentBlockCache}
+ * so only one chunk lookup is done per chunk instead of per block.
+ *
+ * <p>Within a chunk the blocks are visited layer by layer, following the
+ * layout of the chunk sections.</p>
+ */
+public final class BlockVolumeWalker {
+
+    private BlockVolumeWalker() {
+    }
+
+    public static void walk(BlockVolume volume, BlockVisitor visitor) {
+        walk(volume, volume.getBlockMin(), volume.getBlockMax(), visitor);
+    }
+
+    /**
+     * Visits the blocks of a region of a volume.
+     *
+     * @param volume The volume
+     * @param min The lowest position of the region
+     * @param max The highest position of the region
+     * @param visitor The visitor, receiving the positions in the coordinates of
+     *        the volume
+     */
+    public static void walk(BlockVolume volume, Vector3i min, Vector3i max, BlockVisitor visitor) {
+        if (volume instanceof ExtentViewTransform) {
+            // Walk the backing extent in its own chunk order and map the positions back
+            ExtentViewTransform view = (ExtentViewTransform) volume;
+            DiscreteTransform3 inverse = view.getInverseTransform();
+            DiscreteTransform3 transform = view.getTransform();
+            Vector3i a = inverse.transform(min);
+            Vector3i b = inverse.transform(max);
+            walkChunks(view.getBackingExtent(), a.min(b), a.max(b), (x, y, z, block) -> visitor.visit(transform.transformX(x, y, z),
+                    transform.transformY(x, y, z), transform.transformZ(x, y, z), block));
+        } else if (volume instanceof ExtentViewDownsize) {
+            walkChunks(((ExtentViewDownsize) volume).getBackingExtent(), min, max, visitor);
+        } else {
+            walkChunks(volume, min, max, visitor);
+        }
+    }
+
+    private static void walkChunks(BlockVolume volume, Vector3i min, Vector3i max, BlockVisitor visitor) {
+        ExtentBlockCache cache = volume instanceof net.minecraft.world.World ? new ExtentBlockCache((net.minecraft.world.World) volume) : null;
+        for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; chunkX++) {
+            int xMin = Math.max(min.getX(), chunkX << 4);
+            int xMax = Math.min(max.getX(), chunkX << 4 | 15);
+            for (int chunkZ = min.getZ() >> 4; chunkZ <= max.getZ() >> 4; chunkZ++) {
+                int zMin = Math.max(min.getZ(), chunkZ << 4);
+                int zMax = Math.min(max.getZ(), chunkZ << 4 | 15);
+                for (int y = min.getY(); y <= max.getY(); y++) {
+                    for (int z = zMin; z <= zMax; z++) {
+                        for (int x = xMin; x <= xMax; x++) {
+                            BlockState block = cache != null ? cache.getBlock(x, y, z) : volume.getBlock(x, y, z);
+                            visitor.visit(x, y, z, block);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,366 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.extent;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.collect.Lists;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.extent.BlockVolume;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
+import org.spongepowered.api.world.extent.MutableBlockVolume;
+import org.spongepowered.common.util.gen.AbstractBlockBuffer;
+import org.spongepowered.common.util.gen.DirectMutableBlockBuffer;
+import org.spongepowered.common.util.gen.ShortArrayMutableBlockBuffer;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Runs operations over every block of a volume. The volume is split into
+ * pieces aligned to the chunk sections.
+ *
+ * <p>Immutable buffers and views of them are read in parallel on the common
+ * fork-join pool. The functions given to the worker must be thread-safe for
+ * them. Other volumes, which may change while they are read, are processed
+ * sequentially on the calling thread, one chunk after another. Mapping an
+ * immutable buffer into a buffer with a fixed layout calls the mapper from
+ * several threads as well, filling a volume always runs on the calling
+ * thread.</p>
+ *
+ * @param <V> The type of the volume
+ */
+public class BlockVolumeWorker<V extends BlockVolume> {
+
+    // Sections per fork-join task, below which the work isn't split further
+    private static final int SECTIONS_PER_TASK = 4;
+
+    private final V volume;
+    private final boolean parallel;
+
+    public BlockVolumeWorker(V volume) {
+        this.volume = checkNotNull(volume, "volume");
+        this.parallel = isImmutableBuffer(volume);
+    }
+
+    public static <V extends BlockVolume> BlockVolumeWorker<V> of(V volume) {
+        return new BlockVolumeWorker<>(volume);
+    }
+
+    public V getVolume() {
+        return this.volume;
+    }
+
+    /**
+     * Gets whether the reads of this worker are done in parallel.
+     *
+     * @return Whether this worker reads in parallel
+     */
+    public boolean isParallel() {
+        return this.parallel;
+    }
+
+    /**
+     * Visits every block of the volume.
+     *
+     * @param visitor The visitor
+     */
+    public void iterate(BlockVisitor visitor) {
+        if (!this.parallel) {
+            BlockVolumeWalker.walk(this.volume, visitor);
+            return;
+        }
+        run((volume, section) -> {
+            for (int y = section[1]; y <= section[4]; y++) {
+                for (int z = section[2]; z <= section[5]; z++) {
+                    for (int x = section[0]; x <= section[3]; x++) {
+                        visitor.visit(x, y, z, volume.getBlock(x, y, z));
+                    }
+                }
+            }
+        }, true);
+    }
+
+    /**
+     * Maps every block of the volume to a block of the destination. The
+     * destination must be at least as large as the volume, the minimum of both
+     * is made to match.
+     *
+     * @param mapper The mapper
+     * @param destination The destination volume
+     */
+    public void map(BlockVolumeMapper mapper, MutableBlockVolume destination) {
+        final Vector3i offset = checkDestination(destination);
+        final int xOffset = offset.getX();
+        final int yOffset = offset.getY();
+        final int zOffset = offset.getZ();
+        run((volume, section) -> {
+            for (int y = section[1]; y <= section[4]; y++) {
+                for (int z = section[2]; z <= section[5]; z++) {
+                    for (int x = section[0]; x <= section[3]; x++) {
+                        destination.setBlock(x + xOffset, y + yOffset, z + zOffset, mapper.map(volume, x, y, z));
+                    }
+                }
+            }
+        }, this.parallel && isParallelWritable(destination));
+    }
+
+    /**
+     * Fills the volume with the blocks produced by the filler.
+     *
+     * @param filler The filler
+     * @throws UnsupportedOperationException If the volume isn't mutable
+     */
+    public void fill(BlockVolumeFiller filler) {
+        if (!(this.volume instanceof MutableBlockVolume)) {
+            throw new UnsupportedOperationException("Volume is not mutable");
+        }
+        final MutableBlockVolume destination = (MutableBlockVolume) this.volume;
+        run((volume, section) -> {
+            for (int y = section[1]; y <= section[4]; y++) {
+                for (int z = section[2]; z <= section[5]; z++) {
+                    for (int x = section[0]; x <= section[3]; x++) {
+                        destination.setBlock(x, y, z, filler.produce(x, y, z));
+                    }
+                }
+            }
+        }, this.parallel && isParallelWritable(destination));
+    }
+
+    /**
+     * Reduces the blocks of the volume to a single value. Every section starts
+     * from the identity, the results of the sections are then combined with the
+     * merge function.
+     *
+     * @param reducer The reducer
+     * @param merge The function combining two partial results
+     * @param identity The initial value
+     * @param <T> The type of the result
+     * @return The result
+     */
+    public <T> T reduce(BlockVolumeReducer<T> reducer, BinaryOperator<T> merge, T identity) {
+        final List<int[]> sections = getSections(this.volume.getBlockMin(), this.volume.getBlockMax());
+        if (!this.parallel) {
+            T result = identity;
+            for (int[] section : sections) {
+                result = reduceSection(reducer, section, result);
+            }
+            return result;
+        }
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(this, sections, 0, sections.size(), reducer, merge, identity));
+    }
+
+    private <T> T reduceSection(BlockVolumeReducer<T> reducer, int[] section, T identity) {
+        T result = identity;
+        for (int y = section[1]; y <= section[4]; y++) {
+            for (int z = section[2]; z <= section[5]; z++) {
+                for (int x = section[0]; x <= section[3]; x++) {
+                    result = reducer.reduce(this.volume, x, y, z, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Vector3i checkDestination(MutableBlockVolume destination) {
+        checkNotNull(destination, "destination");
+        final Vector3i size = this.volume.getBlockSize();
+        final Vector3i destinationSize = destination.getBlockSize();
+        checkArgument(destinationSize.getX() >= size.getX() && destinationSize.getY() >= size.getY() && destinationSize.getZ() >= size.getZ(),
+                "Destination is smaller than the volume: %s < %s", destinationSize, size);
+        return destination.getBlockMin().sub(this.volume.getBlockMin());
+    }
+
+    private void run(SectionOperation<V> operation, boolean parallel) {
+        final List<int[]> sections = getSections(this.volume.getBlockMin(), this.volume.getBlockMax());
+        if (parallel) {
+            ForkJoinPool.commonPool().invoke(new SectionTask<>(this.volume, sections, 0, sections.size(), operation));
+        } else {
+            for (int[] section : sections) {
+                operation.run(this.volume, section);
+            }
+        }
+    }
+
+    /**
+     * Splits a region into boxes aligned to the chunk sections, ordered by
+     * chunk. Each box is stored as min x, y, z followed by max x, y, z.
+     */
+    private static List<int[]> getSections(Vector3i min, Vector3i max) {
+        final List<int[]> sections = Lists.newArrayList();
+        for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; chunkX++) {
+            final int xMin = Math.max(min.getX(), chunkX << 4);
+            final int xMax = Math.min(max.getX(), chunkX << 4 | 15);
+            for (int chunkZ = min.getZ() >> 4; chunkZ <= max.getZ() >> 4; chunkZ++) {
+                final int zMin = Math.max(min.getZ(), chunkZ << 4);
+                final int zMax = Math.min(max.getZ(), chunkZ << 4 | 15);
+                for (int sectionY = min.getY() >> 4; sectionY <= max.getY() >> 4; sectionY++) {
+                    final int yMin = Math.max(min.getY(), sectionY << 4);
+                    final int yMax = Math.min(max.getY(), sectionY << 4 | 15);
+                    sections.add(new int[] {xMin, yMin, zMin, xMax, yMax, zMax});
+                }
+            }
+        }
+        return sections;
+    }
+
+    /**
+     * Gets whether the volume is an immutable buffer, or a view of one, and so
+     * can be read from multiple threads. Mutable buffers and worlds may be
+     * changed by another thread while they are read.
+     */
+    private static boolean isImmutableBuffer(BlockVolume volume) {
+        if (volume instanceof AbstractBlockBuffer) {
+            return volume instanceof ImmutableBlockVolume;
+        } else if (volume instanceof ImmutableBlockViewDownsize) {
+            return isImmutableBuffer(((ImmutableBlockViewDownsize) volume).volume);
+        } else if (volume instanceof ImmutableBlockViewTransform) {
+            return isImmutableBuffer(((ImmutableBlockViewTransform) volume).volume);
+        }
+        return false;
+    }
+
+    /**
+     * Gets whether distinct positions of the volume can be written from
+     * multiple threads. Only buffers with a fixed layout allow this.
+     */
+    private static boolean isParallelWritable(BlockVolume volume) {
+        if (volume instanceof ShortArrayMutableBlockBuffer || volume instanceof DirectMutableBlockBuffer) {
+            return true;
+        } else if (volume instanceof MutableBlockViewDownsize) {
+            return isParallelWritable(((MutableBlockViewDownsize) volume).volume);
+        } else if (volume instanceof MutableBlockViewTransform) {
+            return isParallelWritable(((MutableBlockViewTransform) volume).volume);
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    public interface BlockVolumeMapper {
+
+        BlockState map(BlockVolume volume, int x, int y, int z);
+
+    }
+
+    @FunctionalInterface
+    public interface BlockVolumeReducer<T> {
+
+        T reduce(BlockVolume volume, int x, int y, int z, T reduction);
+
+    }
+
+    @FunctionalInterface
+    public interface BlockVolumeFiller {
+
+        BlockState produce(int x, int y, int z);
+
+    }
+
+    @FunctionalInterface
+    private interface SectionOperation<V> {
+
+        void run(V volume, int[] section);
+
+    }
+
+    private static final class SectionTask<V> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private final V volume;
+        private final List<int[]> sections;
+        private final int start;
+        private final int end;
+        private final SectionOperation<V> operation;
+
+        SectionTask(V volume, List<int[]> sections, int start, int end, SectionOperation<V> operation) {
+            this.volume = volume;
+            this.sections = sections;
+            this.start = start;
+            this.end = end;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start <= SECTIONS_PER_TASK) {
+                for (int i = this.start; i < this.end; i++) {
+                    this.operation.run(this.volume, this.sections.get(i));
+                }
+                return;
+            }
+            final int middle = (this.start + this.end) >>> 1;
+            invokeAll(new SectionTask<>(this.volume, this.sections, this.start, middle, this.operation),
+                    new SectionTask<>(this.volume, this.sections, middle, this.end, this.operation));
+        }
+
+    }
+
+    private static final class ReduceTask<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+        private final BlockVolumeWorker<?> worker;
+        private final List<int[]> sections;
+        private final int start;
+        private final int end;
+        private final BlockVolumeReducer<T> reducer;
+        private final BinaryOperator<T> merge;
+        private final T identity;
+
+        ReduceTask(BlockVolumeWorker<?> worker, List<int[]> sections, int start, int end, BlockVolumeReducer<T> reducer, BinaryOperator<T> merge,
+                T identity) {
+            this.worker = worker;
+            this.sections = sections;
+            this.start = start;
+            this.end = end;
+            this.reducer = reducer;
+            this.merge = merge;
+            this.identity = identity;
+        }
+
+        @Override
+        protected T compute() {
+            if (this.end - this.start <= SECTIONS_PER_TASK) {
+                T result = this.worker.reduceSection(this.reducer, this.sections.get(this.start), this.identity);
+                for (int i = this.start + 1; i < this.end; i++) {
+                    result = this.merge.apply(result, this.worker.reduceSection(this.reducer, this.sections.get(i), this.identity));
+                }
+                return result;
+            }
+            final int middle = (this.start + this.end) >>> 1;
+            final ReduceTask<T> left = new ReduceTask<>(this.worker, this.sections, this.start, middle, this.reducer, this.merge, this.identity);
+            final ReduceTask<T> right = new ReduceTask<>(this.worker, this.sections, middle, this.end, this.reducer, this.merge, this.identity);
+            left.fork();
+            final T rightResult = right.compute();
+            return this.merge.apply(left.join(), rightResult);
+        }
+
+    }
+
+}
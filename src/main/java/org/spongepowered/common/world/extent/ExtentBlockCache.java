@@ -0,0 +1,80 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.extent;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.extent.Extent;
+import org.spongepowered.common.interfaces.block.IMixinBlock;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads blocks of a world through the last chunk that was accessed, instead
+ * of looking the chunk up in the chunk map for every block. Meant for views
+ * and iterations, which mostly access blocks close to each other.
+ */
+public final class ExtentBlockCache {
+
+    private final World world;
+    // The debug world generates its blocks on the fly
+    private final boolean readSections;
+    @Nullable private Chunk chunk;
+
+    public ExtentBlockCache(World world) {
+        this.world = world;
+        this.readSections = world.getWorldType() != WorldType.DEBUG_WORLD;
+    }
+
+    public BlockState getBlock(int x, int y, int z) {
+        if (!this.readSections || y < 0 || y > 255) {
+            return ((Extent) this.world).getBlock(x, y, z);
+        }
+        ExtendedBlockStorage section = getChunk(x >> 4, z >> 4).getBlockStorageArray()[y >> 4];
+        IBlockState state = section == null ? Blocks.air.getDefaultState() : section.get(x & 15, y & 15, z & 15);
+        // Same as World#getBlock
+        if (((IMixinBlock) state.getBlock()).forceUpdateBlockState()) {
+            state = state.getBlock().getActualState(state, this.world, new BlockPos(x, y, z));
+        }
+        return (BlockState) state;
+    }
+
+    private Chunk getChunk(int chunkX, int chunkZ) {
+        // Read the field once, views may be shared between threads
+        Chunk chunk = this.chunk;
+        if (chunk == null || chunk.xPosition != chunkX || chunk.zPosition != chunkZ || !chunk.isLoaded()) {
+            chunk = this.world.getChunkFromChunkCoords(chunkX, chunkZ);
+            this.chunk = chunk;
+        }
+        return chunk;
+    }
+
+}
@@ -27,9 +27,15 @@
 import com.flowpowered.math.vector.Vector2i;
 import com.flowpowered.math.vector.Vector3i;
 import net.minecraft.block.Block;
+import net.minecraft.world.World;
 import net.minecraft.world.biome.BiomeGenBase;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 import org.spongepowered.api.world.extent.BiomeArea;
 import org.spongepowered.api.world.extent.BlockVolume;
+import org.spongepowered.common.interfaces.block.IMixinBlock;
+import org.spongepowered.common.util.gen.DirectBlockStorage;
+import org.spongepowered.common.util.gen.PaletteBlockStorage;
 
 public class ExtentBufferUtil {
 
@@ -41,6 +47,10 @@ public static byte[] copyToArray(BiomeArea area, Vector2i min, Vector2i max, Vec
             throw new OutOfMemoryError("Cannot copy the biomes to an array because the size limit was reached");
         }
         final byte[] copy = new byte[(int) memory];
+        if (area instanceof Chunk || area instanceof World) {
+            copyFromChunks(area, min, max, size, copy);
+            return copy;
+        }
         int i = 0;
         for (int y = min.getY(); y <= max.getY(); y++) {
             for (int x = min.getX(); x <= max.getX(); x++) {
@@ -50,6 +60,39 @@ public static byte[] copyToArray(BiomeArea area, Vector2i min, Vector2i max, Vec
         return copy;
     }
 
+    private static void copyFromChunks(BiomeArea area, Vector2i min, Vector2i max, Vector2i size, byte[] copy) {
+        for (int chunkZ = min.getY() >> 4; chunkZ <= max.getY() >> 4; chunkZ++) {
+            int zMin = Math.max(min.getY(), chunkZ << 4);
+            int zMax = Math.min(max.getY(), chunkZ << 4 | 15);
+            for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; chunkX++) {
+                int xMin = Math.max(min.getX(), chunkX << 4);
+                int xMax = Math.min(max.getX(), chunkX << 4 | 15);
+                Chunk chunk;
+                if (area instanceof Chunk) {
+                    chunk = (Chunk) area;
+                } else if (((World) area).getChunkProvider().chunkExists(chunkX, chunkZ)) {
+                    chunk = ((World) area).getChunkFromChunkCoords(chunkX, chunkZ);
+                } else {
+                    // The world doesn't load chunks to look up their biomes
+                    chunk = null;
+                }
+                byte[] biomes = chunk == null ? null : chunk.getBiomeArray();
+                for (int z = zMin; z <= zMax; z++) {
+                    int i = (z - min.getY()) * size.getX() + xMin - min.getX();
+                    if (biomes != null) {
+                        System.arraycopy(biomes, (z & 15) << 4 | xMin & 15, copy, i, xMax - xMin + 1);
+                    }
+                    for (int x = xMin; x <= xMax; x++, i++) {
+                        // Biomes that were never looked up are stored as -1
+                        if (biomes == null || copy[i] == -1) {
+                            copy[i] = (byte) ((BiomeGenBase) area.getBiome(x, z)).biomeID;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     public static short[] copyToArray(BlockVolume volume, Vector3i min, Vector3i max, Vector3i size) {
         // Check if the volume has more blocks than can be stored in an array
         final long memory = (long) size.getX() * (long) size.getY() * (long) size.getZ();
@@ -58,6 +101,10 @@ public static short[] copyToArray(BlockVolume volume, Vector3i min, Vector3i max
             throw new OutOfMemoryError("Cannot copy the blocks to an array because the size limit was reached");
         }
         final short[] copy = new short[(int) memory];
+        if (volume instanceof Chunk || volume instanceof World) {
+            copyFromChunks(volume, min, max, size, copy);
+            return copy;
+        }
         int i = 0;
         for (int x = min.getX(); x <= max.getX(); x++) {
             for (int z = min.getZ(); z <= max.getZ(); z++) {
@@ -69,4 +116,89 @@ public static short[] copyToArray(BlockVolume volume, Vector3i min, Vector3i max
         return copy;
     }
 
+    /**
+     * Copies the blocks of a world or chunk by reading the block storage of
+     * the chunks directly, leaving out empty sections. The layout is the same
+     * as for any other volume: x, then z, then y.
+     */
+    private static void copyFromChunks(BlockVolume volume, Vector3i min, Vector3i max, Vector3i size, short[] copy) {
+        final int yLine = size.getY();
+        final int yzSlice = yLine * size.getZ();
+        final int sectionMin = Math.max(0, min.getY() >> 4);
+        final int sectionMax = Math.min(15, max.getY() >> 4);
+        char lastId = 0;
+        boolean lastForced = false;
+        for (int chunkX = min.getX() >> 4; chunkX <= max.getX() >> 4; chunkX++) {
+            int xMin = Math.max(min.getX(), chunkX << 4);
+            int xMax = Math.min(max.getX(), chunkX << 4 | 15);
+            for (int chunkZ = min.getZ() >> 4; chunkZ <= max.getZ() >> 4; chunkZ++) {
+                int zMin = Math.max(min.getZ(), chunkZ << 4);
+                int zMax = Math.min(max.getZ(), chunkZ << 4 | 15);
+                Chunk chunk = volume instanceof Chunk ? (Chunk) volume : ((World) volume).getChunkFromChunkCoords(chunkX, chunkZ);
+                ExtendedBlockStorage[] sections = chunk.getBlockStorageArray();
+                for (int sectionY = sectionMin; sectionY <= sectionMax; sectionY++) {
+                    ExtendedBlockStorage section = sections[sectionY];
+                    if (section == null || section.isEmpty()) {
+                        // Air is 0, which the copy already is
+                        continue;
+                    }
+                    char[] data = section.getData();
+                    int yMin = Math.max(min.getY(), sectionY << 4);
+                    int yMax = Math.min(max.getY(), sectionY << 4 | 15);
+                    for (int x = xMin; x <= xMax; x++) {
+                        for (int z = zMin; z <= zMax; z++) {
+                            int i = (x - min.getX()) * yzSlice + (z - min.getZ()) * yLine + yMin - min.getY();
+                            int j = (yMin & 15) << 8 | (z & 15) << 4 | x & 15;
+                            for (int y = yMin; y <= yMax; y++, i++, j += 256) {
+                                char id = data[j];
+                                if (id != lastId) {
+                                    lastId = id;
+                                    Block block = Block.getBlockById(id >> 4);
+                                    lastForced = volume instanceof World && ((IMixinBlock) block).forceUpdateBlockState();
+                                }
+                                // Worlds report the actual state of some blocks, like connected fences
+                                copy[i] = lastForced ? (short) Block.BLOCK_STATE_IDS.get(volume.getBlock(x, y, z)) : (short) id;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public static PaletteBlockStorage copyToPalette(BlockVolume volume, Vector3i min, Vector3i max, Vector3i size) {
+        final PaletteBlockStorage copy = new PaletteBlockStorage(getBlockCount(size));
+        int i = 0;
+        for (int x = min.getX(); x <= max.getX(); x++) {
+            for (int z = min.getZ(); z <= max.getZ(); z++) {
+                for (int y = min.getY(); y <= max.getY(); y++) {
+                    copy.set(i++, volume.getBlock(x, y, z));
+                }
+            }
+        }
+        return copy;
+    }
+
+    public static DirectBlockStorage copyToDirect(BlockVolume volume, Vector3i min, Vector3i max, Vector3i size) {
+        final DirectBlockStorage copy = DirectBlockStorage.allocate(getBlockCount(size));
+        int i = 0;
+        for (int x = min.getX(); x <= max.getX(); x++) {
+            for (int z = min.getZ(); z <= max.getZ(); z++) {
+                for (int y = min.getY(); y <= max.getY(); y++) {
+                    copy.set(i++, volume.getBlock(x, y, z));
+                }
+            }
+        }
+        return copy;
+    }
+
+    public static int getBlockCount(Vector3i size) {
+        final long count = (long) size.getX() * (long) size.getY() * (long) size.getZ();
+        // Palette storage indexes the blocks with an int
+        if (count > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Cannot store the blocks because the size limit was reached");
+        }
+        return (int) count;
+    }
+
 }
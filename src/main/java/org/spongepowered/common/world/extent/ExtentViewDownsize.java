@@ -59,4 +59,8 @@ public static Extent newInstance(Extent extent, Vector3i blockMin, Vector3i bloc
         return (Extent) new ExtentViewDownsize(extent, blockMin, blockMax);
     }
 
+    public Extent getBackingExtent() {
+        return this.extent;
+    }
+
 }
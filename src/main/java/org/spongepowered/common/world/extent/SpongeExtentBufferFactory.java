@@ -26,12 +26,23 @@
 
 import com.flowpowered.math.vector.Vector2i;
 import com.flowpowered.math.vector.Vector3i;
+import org.spongepowered.api.world.extent.BlockVolume;
 import org.spongepowered.api.world.extent.ExtentBufferFactory;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
 import org.spongepowered.api.world.extent.MutableBiomeArea;
 import org.spongepowered.api.world.extent.MutableBlockVolume;
+import org.spongepowered.api.world.extent.StorageType;
 import org.spongepowered.common.util.gen.ByteArrayMutableBiomeBuffer;
+import org.spongepowered.common.util.gen.DirectBlockStorage;
+import org.spongepowered.common.util.gen.DirectImmutableBlockBuffer;
+import org.spongepowered.common.util.gen.DirectMutableBlockBuffer;
+import org.spongepowered.common.util.gen.PaletteImmutableBlockBuffer;
+import org.spongepowered.common.util.gen.PaletteMutableBlockBuffer;
 import org.spongepowered.common.util.gen.ShortArrayMutableBlockBuffer;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public final class SpongeExtentBufferFactory implements ExtentBufferFactory {
 
     public static final SpongeExtentBufferFactory INSTANCE = new SpongeExtentBufferFactory();
@@ -69,6 +80,98 @@ public MutableBlockVolume createBlockBuffer(int xSize, int ySize, int zSize) {
         return createBlockBuffer(new Vector3i(xSize, ySize, zSize));
     }
 
+    /**
+     * Creates a block buffer storing its blocks in a palette, which uses
+     * much less memory than a standard buffer when only a few different
+     * block states are used.
+     *
+     * @param size The size of the buffer
+     * @return The buffer
+     */
+    public MutableBlockVolume createPaletteBlockBuffer(Vector3i size) {
+        return new PaletteMutableBlockBuffer(Vector3i.ZERO, size);
+    }
+
+    public MutableBlockVolume createPaletteBlockBuffer(int xSize, int ySize, int zSize) {
+        return createPaletteBlockBuffer(new Vector3i(xSize, ySize, zSize));
+    }
+
+    /**
+     * Copies the blocks of a volume into a palette block buffer, the
+     * counterpart of {@link BlockVolume#getBlockCopy(StorageType)}.
+     *
+     * @param volume The volume to copy
+     * @return The copy
+     */
+    public MutableBlockVolume copyToPaletteBlockBuffer(BlockVolume volume) {
+        return new PaletteMutableBlockBuffer(ExtentBufferUtil.copyToPalette(volume, volume.getBlockMin(), volume.getBlockMax(),
+                volume.getBlockSize()), volume.getBlockMin(), volume.getBlockSize());
+    }
+
+    /**
+     * Copies the blocks of a volume into an immutable palette block buffer,
+     * the counterpart of {@link BlockVolume#getImmutableBlockCopy()}.
+     *
+     * @param volume The volume to copy
+     * @return The copy
+     */
+    public ImmutableBlockVolume copyToImmutablePaletteBlockBuffer(BlockVolume volume) {
+        return new PaletteImmutableBlockBuffer(ExtentBufferUtil.copyToPalette(volume, volume.getBlockMin(), volume.getBlockMax(),
+                volume.getBlockSize()), volume.getBlockMin(), volume.getBlockSize());
+    }
+
+    /**
+     * Creates a block buffer storing its blocks off the Java heap. Huge
+     * buffers should be {@link DirectMutableBlockBuffer#release() released}
+     * explicitly once they are no longer needed.
+     *
+     * @param size The size of the buffer
+     * @return The buffer
+     */
+    public DirectMutableBlockBuffer createDirectBlockBuffer(Vector3i size) {
+        return new DirectMutableBlockBuffer(Vector3i.ZERO, size);
+    }
+
+    public DirectMutableBlockBuffer createDirectBlockBuffer(int xSize, int ySize, int zSize) {
+        return createDirectBlockBuffer(new Vector3i(xSize, ySize, zSize));
+    }
+
+    /**
+     * Creates a block buffer stored in a memory-mapped file. The blocks are
+     * persisted in the file, an existing file is read back.
+     *
+     * @param file The file
+     * @param start The lowest position of the buffer
+     * @param size The size of the buffer
+     * @return The buffer
+     * @throws IOException If the file could not be mapped
+     */
+    public DirectMutableBlockBuffer mapBlockBuffer(Path file, Vector3i start, Vector3i size) throws IOException {
+        return new DirectMutableBlockBuffer(DirectBlockStorage.map(file, ExtentBufferUtil.getBlockCount(size)), start, size);
+    }
+
+    /**
+     * Copies the blocks of a volume into an off-heap block buffer.
+     *
+     * @param volume The volume to copy
+     * @return The copy
+     */
+    public DirectMutableBlockBuffer copyToDirectBlockBuffer(BlockVolume volume) {
+        return new DirectMutableBlockBuffer(ExtentBufferUtil.copyToDirect(volume, volume.getBlockMin(), volume.getBlockMax(),
+                volume.getBlockSize()), volume.getBlockMin(), volume.getBlockSize());
+    }
+
+    /**
+     * Copies the blocks of a volume into an immutable off-heap block buffer.
+     *
+     * @param volume The volume to copy
+     * @return The copy
+     */
+    public DirectImmutableBlockBuffer copyToImmutableDirectBlockBuffer(BlockVolume volume) {
+        return new DirectImmutableBlockBuffer(ExtentBufferUtil.copyToDirect(volume, volume.getBlockMin(), volume.getBlockMax(),
+                volume.getBlockSize()), volume.getBlockMin(), volume.getBlockSize());
+    }
+
     @Override
     public MutableBlockVolume createThreadSafeBlockBuffer(Vector3i size) {
         throw new UnsupportedOperationException();
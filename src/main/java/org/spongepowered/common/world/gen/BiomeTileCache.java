@@ -0,0 +1,123 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.gen;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.spongepowered.api.world.gen.BiomeGenerator;
+import org.spongepowered.common.util.gen.ByteArrayMutableBiomeBuffer;
+
+/**
+ * Caches the output of a {@link BiomeGenerator} in square tiles, so areas
+ * that are requested over and over are only generated once.
+ *
+ * <p>Tiles hold biome ids like the biome array of a chunk and are kept in a
+ * bounded least recently used cache. Areas of any size are served by copying
+ * rows out of the tiles they overlap. Replacing the biome generator of a
+ * world replaces its world chunk manager, and with it the cache.</p>
+ */
+public final class BiomeTileCache {
+
+    private static final int TILE_SHIFT = 6;
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+    private static final Vector2i TILE_AREA = new Vector2i(TILE_SIZE, TILE_SIZE);
+    // 4 KiB per tile, so at most 4 MiB per world
+    private static final int MAX_TILES = 1024;
+
+    private final BiomeGenerator biomeGenerator;
+    private final LoadingCache<Long, byte[]> tiles;
+
+    public BiomeTileCache(BiomeGenerator biomeGenerator) {
+        this.biomeGenerator = checkNotNull(biomeGenerator, "biomeGenerator");
+        this.tiles = CacheBuilder.newBuilder()
+                .maximumSize(MAX_TILES)
+                .recordStats()
+                .build(new CacheLoader<Long, byte[]>() {
+
+                    @Override
+                    public byte[] load(Long key) throws Exception {
+                        return generateTile((int) (key >> 32), (int) key.longValue());
+                    }
+                });
+    }
+
+    private byte[] generateTile(int tileX, int tileZ) {
+        ByteArrayMutableBiomeBuffer buffer = new ByteArrayMutableBiomeBuffer(new Vector2i(tileX << TILE_SHIFT, tileZ << TILE_SHIFT), TILE_AREA);
+        // Plugin biome generators are not required to be thread-safe
+        synchronized (this.biomeGenerator) {
+            this.biomeGenerator.generateBiomes(buffer);
+        }
+        return buffer.detach();
+    }
+
+    /**
+     * Copies the biome ids of an area into the given array, row by row along
+     * the x axis.
+     *
+     * @param biomes The array to copy to, at least xSize * zSize long
+     * @param xStart The lowest x coordinate of the area
+     * @param zStart The lowest z coordinate of the area
+     * @param xSize The size of the area along the x axis
+     * @param zSize The size of the area along the z axis
+     * @return The given array
+     */
+    public byte[] getBiomes(byte[] biomes, int xStart, int zStart, int xSize, int zSize) {
+        int xEnd = xStart + xSize;
+        int zEnd = zStart + zSize;
+        for (int tileZ = zStart >> TILE_SHIFT; tileZ <= (zEnd - 1) >> TILE_SHIFT; tileZ++) {
+            int zMin = Math.max(zStart, tileZ << TILE_SHIFT);
+            int zMax = Math.min(zEnd, (tileZ + 1) << TILE_SHIFT);
+            for (int tileX = xStart >> TILE_SHIFT; tileX <= (xEnd - 1) >> TILE_SHIFT; tileX++) {
+                int xMin = Math.max(xStart, tileX << TILE_SHIFT);
+                int xMax = Math.min(xEnd, (tileX + 1) << TILE_SHIFT);
+                byte[] tile = this.tiles.getUnchecked((long) tileX << 32 | tileZ & 0xFFFFFFFFL);
+                for (int z = zMin; z < zMax; z++) {
+                    System.arraycopy(tile, (z & TILE_MASK) << TILE_SHIFT | xMin & TILE_MASK, biomes, (z - zStart) * xSize + xMin - xStart,
+                            xMax - xMin);
+                }
+            }
+        }
+        return biomes;
+    }
+
+    public long getTileCount() {
+        return this.tiles.size();
+    }
+
+    /**
+     * Gets the fraction of tile lookups that were served from the cache.
+     *
+     * @return The hit rate, 1.0 if nothing was requested yet
+     */
+    public double getHitRate() {
+        return this.tiles.stats().hitRate();
+    }
+
+}
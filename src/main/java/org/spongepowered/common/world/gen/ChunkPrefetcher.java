@@ -0,0 +1,146 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.gen;
+
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.gen.ChunkProviderServer;
+import org.spongepowered.common.config.SpongeConfig;
+import org.spongepowered.common.interfaces.world.IMixinAnvilChunkLoader;
+import org.spongepowered.common.util.SpongeHooks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Starts generating the chunks ahead of moving players before they come into
+ * view, so the {@link SpongeChunkProvider} can generate their terrain on the
+ * generation workers instead of the main thread.
+ */
+public class ChunkPrefetcher {
+
+    private static final int MAX_PREFETCHES_PER_TICK = 8;
+    // Players moving slower than this (in blocks per tick) are not prefetched for
+    private static final double MIN_SPEED = 0.1;
+
+    private final WorldServer world;
+    private final Map<EntityPlayer, Long> lastScannedChunk = new WeakHashMap<>();
+
+    public ChunkPrefetcher(WorldServer world) {
+        this.world = world;
+    }
+
+    public void tick() {
+        ChunkProviderServer chunkProvider = this.world.theChunkProviderServer;
+        if (!(chunkProvider.serverChunkGenerator instanceof SpongeChunkProvider)) {
+            return;
+        }
+        SpongeChunkProvider generator = (SpongeChunkProvider) chunkProvider.serverChunkGenerator;
+        SpongeConfig.WorldCategory config = SpongeHooks.getActiveConfig(this.world).getConfig().getWorld();
+        if (!config.useAsyncGeneration() || config.getGenerationPrefetchDistance() <= 0) {
+            if (generator.getPrefetchedCount() > 0) {
+                generator.retainPrefetched((chunkX, chunkZ) -> false);
+                this.lastScannedChunk.clear();
+            }
+            return;
+        }
+        int viewRadius = this.world.getPlayerManager().playerViewRadius;
+        int reach = viewRadius + config.getGenerationPrefetchDistance();
+        List<EntityPlayer> players = this.world.playerEntities;
+
+        // Forget chunks no player is heading towards anymore
+        if (generator.getPrefetchedCount() > 0) {
+            generator.retainPrefetched((chunkX, chunkZ) -> isNearPlayer(players, chunkX, chunkZ, reach + 1));
+        }
+
+        int budget = MAX_PREFETCHES_PER_TICK;
+        for (EntityPlayer player : players) {
+            if (budget <= 0) {
+                break;
+            }
+            double dx = player.posX - player.lastTickPosX;
+            double dz = player.posZ - player.lastTickPosZ;
+            double speed = Math.sqrt(dx * dx + dz * dz);
+            if (speed < MIN_SPEED) {
+                continue;
+            }
+            int playerChunkX = MathHelper.floor_double(player.posX) >> 4;
+            int playerChunkZ = MathHelper.floor_double(player.posZ) >> 4;
+            long playerChunk = (long) playerChunkX << 32 | playerChunkZ & 0xFFFFFFFFL;
+            Long lastScanned = this.lastScannedChunk.get(player);
+            if (lastScanned != null && lastScanned == playerChunk) {
+                // Nothing new comes into range until the player enters another chunk
+                continue;
+            }
+            dx /= speed;
+            dz /= speed;
+
+            // Fill the band of chunks just beyond the view distance in the
+            // direction of movement, nearest first
+            boolean complete = true;
+            for (int ahead = viewRadius + 1; ahead <= reach && complete; ahead++) {
+                int centerX = playerChunkX + (int) Math.round(dx * ahead);
+                int centerZ = playerChunkZ + (int) Math.round(dz * ahead);
+                for (int side = -viewRadius; side <= viewRadius; side++) {
+                    if (budget <= 0) {
+                        complete = false;
+                        break;
+                    }
+                    int chunkX = centerX + (int) Math.round(-dz * side);
+                    int chunkZ = centerZ + (int) Math.round(dx * side);
+                    if (shouldPrefetch(chunkProvider, generator, chunkX, chunkZ) && generator.prefetchChunk(chunkX, chunkZ)) {
+                        budget--;
+                    }
+                }
+            }
+            if (complete) {
+                this.lastScannedChunk.put(player, playerChunk);
+            }
+        }
+    }
+
+    private static boolean shouldPrefetch(ChunkProviderServer chunkProvider, SpongeChunkProvider generator, int chunkX, int chunkZ) {
+        if (chunkProvider.chunkExists(chunkX, chunkZ) || generator.isPrefetched(chunkX, chunkZ)) {
+            return false;
+        }
+        // Only chunks that don't exist yet are generated
+        return chunkProvider.chunkLoader instanceof IMixinAnvilChunkLoader
+                && !((IMixinAnvilChunkLoader) chunkProvider.chunkLoader).chunkExistsInStorage(chunkX, chunkZ);
+    }
+
+    private static boolean isNearPlayer(List<EntityPlayer> players, int chunkX, int chunkZ, int radius) {
+        for (EntityPlayer player : players) {
+            int playerChunkX = MathHelper.floor_double(player.posX) >> 4;
+            int playerChunkZ = MathHelper.floor_double(player.posZ) >> 4;
+            if (Math.abs(chunkX - playerChunkX) <= radius && Math.abs(chunkZ - playerChunkZ) <= radius) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
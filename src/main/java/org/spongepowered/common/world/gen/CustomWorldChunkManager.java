@@ -26,17 +26,12 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.flowpowered.math.vector.Vector2i;
 import net.minecraft.util.BlockPos;
 import net.minecraft.world.biome.BiomeGenBase;
 import net.minecraft.world.biome.WorldChunkManager;
 import net.minecraft.world.gen.layer.IntCache;
-import org.spongepowered.api.world.extent.MutableBiomeArea;
 import org.spongepowered.api.world.gen.BiomeGenerator;
-import org.spongepowered.common.util.gen.ByteArrayMutableBiomeBuffer;
-import org.spongepowered.common.util.gen.ObjectArrayMutableBiomeBuffer;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -50,10 +45,8 @@
  */
 public final class CustomWorldChunkManager extends WorldChunkManager {
 
-    private static final Vector2i CACHED_AREA_SIZE = new Vector2i(40, 40);
-
-    private final ByteArrayMutableBiomeBuffer areaForGeneration = new ByteArrayMutableBiomeBuffer(Vector2i.ZERO, CACHED_AREA_SIZE);
     private final BiomeGenerator biomeGenerator;
+    private final BiomeTileCache biomeCache;
 
     /**
      * Gets a world chunk manager based on the given biome generator.
@@ -71,12 +64,17 @@ public static WorldChunkManager of(BiomeGenerator biomeGenerator) {
 
     private CustomWorldChunkManager(BiomeGenerator biomeGenerator) {
         this.biomeGenerator = checkNotNull(biomeGenerator, "biomeGenerator");
+        this.biomeCache = new BiomeTileCache(biomeGenerator);
     }
 
     public BiomeGenerator getBiomeGenerator() {
         return this.biomeGenerator;
     }
 
+    public BiomeTileCache getBiomeCache() {
+        return this.biomeCache;
+    }
+
     /**
      * Return a list of biomes for the specified blocks. Args: listToReuse, x,
      * y, width, length, cacheFlag (if false, don't check biomeCache to avoid
@@ -108,11 +106,9 @@ public BiomeGenBase[] getBiomesForGeneration(BiomeGenBase[] biomeArrayZoomedOut,
         int zSizeBlock = zSize * 4;
 
         // Get biomes
-        ByteArrayMutableBiomeBuffer buffer = getBiomeBuffer(xStartBlock, zStartBlock, xSizeBlock, zSizeBlock);
-        this.biomeGenerator.generateBiomes(buffer);
+        byte[] biomesForBlocks = getBiomes(xStartBlock, zStartBlock, xSizeBlock, zSizeBlock);
 
         // Downscale
-        byte[] biomesForBlocks = buffer.detach();
         BiomeGenBase[] biomeById = BiomeGenBase.getBiomeGenArray();
         for (int i = 0; i < biomeArrayZoomedOut.length; i++) {
             BiomeGenBase biome = biomeById[biomesForBlocks[i * 4] & 0xff];
@@ -122,15 +118,8 @@ public BiomeGenBase[] getBiomesForGeneration(BiomeGenBase[] biomeArrayZoomedOut,
         return biomeArrayZoomedOut;
     }
 
-    private ByteArrayMutableBiomeBuffer getBiomeBuffer(int xStart, int zStart, int xSize, int zSize) {
-        if (xSize == CACHED_AREA_SIZE.getX()
-            && zSize == CACHED_AREA_SIZE.getY()
-            && this.areaForGeneration.isDetached()) {
-            this.areaForGeneration.reuse(new Vector2i(xStart, zStart));
-            return this.areaForGeneration;
-        } else {
-            return new ByteArrayMutableBiomeBuffer(new Vector2i(xStart, zStart), new Vector2i(xSize, zSize));
-        }
+    private byte[] getBiomes(int xStart, int zStart, int xSize, int zSize) {
+        return this.biomeCache.getBiomes(new byte[xSize * zSize], xStart, zStart, xSize, zSize);
     }
 
     @Override
@@ -139,9 +128,7 @@ public float[] getRainfall(float[] rainfallArray, int x, int z, int xSize, int z
             rainfallArray = new float[xSize * zSize];
         }
 
-        ByteArrayMutableBiomeBuffer buffer = getBiomeBuffer(x, z, xSize, zSize);
-        this.biomeGenerator.generateBiomes(buffer);
-        byte[] biomes = buffer.detach();
+        byte[] biomes = getBiomes(x, z, xSize, zSize);
         BiomeGenBase[] biomeById = BiomeGenBase.getBiomeGenArray();
 
         for (int i = 0; i < xSize * zSize; i++) {
@@ -168,9 +155,7 @@ public BlockPos findBiomePosition(int xCenter, int zCenter, int range, @Suppress
         int xSizeSegments = xMaxSegment - xStartSegment + 1;
         int zSizeSegments = zMaxSegment - zStartSegment + 1;
 
-        ByteArrayMutableBiomeBuffer buffer = getBiomeBuffer(xStartSegment << 2, zStartSegment << 2, xSizeSegments << 2, zSizeSegments << 2);
-        this.biomeGenerator.generateBiomes(buffer);
-        byte[] biomes = buffer.detach();
+        byte[] biomes = getBiomes(xStartSegment << 2, zStartSegment << 2, xSizeSegments << 2, zSizeSegments << 2);
 
         BlockPos blockpos = null;
         int foundPositions = 0;
@@ -199,9 +184,7 @@ public boolean areBiomesViable(int xCenter, int zCenter, int range, @SuppressWar
         int xSizeSegments = xMaxSegment - xStartSegment + 1;
         int zSizeSegments = zMaxSegment - zStartSegment + 1;
 
-        ByteArrayMutableBiomeBuffer buffer = getBiomeBuffer(xStartSegment << 2, zStartSegment << 2, xSizeSegments << 2, zSizeSegments << 2);
-        this.biomeGenerator.generateBiomes(buffer);
-        byte[] biomes = buffer.detach();
+        byte[] biomes = getBiomes(xStartSegment << 2, zStartSegment << 2, xSizeSegments << 2, zSizeSegments << 2);
 
         for (int i = 0; i < xSizeSegments * zSizeSegments; ++i) {
             BiomeGenBase biomegenbase = BiomeGenBase.getBiome(biomes[i << 2] & 0xff);
@@ -218,16 +201,15 @@ public boolean areBiomesViable(int xCenter, int zCenter, int range, @SuppressWar
     public BiomeGenBase[] loadBlockGeneratorData(BiomeGenBase[] biomeArray, int startX, int startZ, int sizeX, int sizeZ) {
         if (biomeArray == null || biomeArray.length < sizeX * sizeZ) {
             biomeArray = new BiomeGenBase[sizeX * sizeZ];
-        } else {
-            // Biome generators don't have to set every position. If we set
-            // all positions to ocean first, every position not set will be
-            // ocean, and not some random biome from the last time this array
-            // was used
-            Arrays.fill(biomeArray, BiomeGenBase.ocean);
         }
 
-        MutableBiomeArea biomeArea = new ObjectArrayMutableBiomeBuffer(biomeArray, new Vector2i(startX, startZ), new Vector2i(sizeX, sizeZ));
-        this.biomeGenerator.generateBiomes(biomeArea);
+        // Positions the biome generator didn't set are left at 0, which is ocean
+        byte[] biomes = getBiomes(startX, startZ, sizeX, sizeZ);
+        BiomeGenBase[] biomeById = BiomeGenBase.getBiomeGenArray();
+        for (int i = 0; i < biomes.length; i++) {
+            BiomeGenBase biome = biomeById[biomes[i] & 0xff];
+            biomeArray[i] = (biome == null ? BiomeGenBase.ocean : biome);
+        }
 
         return biomeArray;
     }
@@ -27,9 +27,11 @@
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.flowpowered.math.vector.Vector2i;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.minecraft.block.BlockFalling;
 import net.minecraft.block.material.Material;
 import net.minecraft.block.state.IBlockState;
@@ -69,13 +71,21 @@
 import org.spongepowered.common.interfaces.world.biome.IBiomeGenBase;
 import org.spongepowered.common.interfaces.world.gen.IChunkProviderGenerate;
 import org.spongepowered.common.interfaces.world.gen.IFlaggedPopulator;
+import org.spongepowered.common.interfaces.world.gen.IThreadSafeGenerationPopulator;
+import org.spongepowered.common.util.SpongeHooks;
 import org.spongepowered.common.util.gen.ByteArrayMutableBiomeBuffer;
 import org.spongepowered.common.util.gen.ChunkPrimerBuffer;
 import org.spongepowered.common.world.CaptureType;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
 
 /**
@@ -85,6 +95,13 @@
 public class SpongeChunkProvider implements WorldGenerator, IChunkProvider {
 
     private static final Vector2i CHUNK_AREA = new Vector2i(16, 16);
+    private static final int MAX_PREFETCHED_CHUNKS = 256;
+    private static final ExecutorService generationWorkers = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), new ThreadFactoryBuilder()
+                    .setNameFormat("Sponge Generation Worker #%d")
+                    .setDaemon(true)
+                    .setPriority(Thread.NORM_PRIORITY - 1)
+                    .build());
 
     protected BiomeGenerator biomeGenerator;
     protected GenerationPopulator baseGenerator;
@@ -95,8 +112,8 @@ public class SpongeChunkProvider implements WorldGenerator, IChunkProvider {
     private final ByteArrayMutableBiomeBuffer cachedBiomes;
 
     protected Random rand;
-    private NoiseGeneratorPerlin noise4;
-    private double[] stoneNoise;
+    private final ThreadLocal<GenerationContext> generationContext;
+    private final Map<Long, PendingChunk> prefetchedChunks = Maps.newHashMap();
 
     public SpongeChunkProvider(World world, GenerationPopulator base, BiomeGenerator biomegen) {
         this.world = checkNotNull(world, "world");
@@ -111,8 +128,8 @@ public SpongeChunkProvider(World world, GenerationPopulator base, BiomeGenerator
         this.pop = Lists.newArrayList();
         this.biomeSettings = Maps.newHashMap();
         this.rand = new Random(world.getSeed());
-        this.noise4 = new NoiseGeneratorPerlin(this.rand, 4);
-        this.stoneNoise = new double[256];
+        long seed = world.getSeed();
+        this.generationContext = ThreadLocal.withInitial(() -> new GenerationContext(seed));
 
         this.world.provider.worldChunkMgr = CustomWorldChunkManager.of(this.biomeGenerator);
         if (this.baseGenerator instanceof IChunkProviderGenerate) {
@@ -155,7 +172,7 @@ public Map<BiomeType, BiomeGenerationSettings> getBiomeOverrides() {
         return this.biomeSettings;
     }
 
-    public void setBiomeOverrides(Map<BiomeType, BiomeGenerationSettings> biomeOverrides) {
+    public synchronized void setBiomeOverrides(Map<BiomeType, BiomeGenerationSettings> biomeOverrides) {
         this.biomeSettings = Maps.newHashMap(biomeOverrides);
     }
 
@@ -174,7 +191,7 @@ public void setBiomeGenerator(BiomeGenerator biomeGenerator) {
     }
 
     @Override
-    public BiomeGenerationSettings getBiomeSettings(BiomeType type) {
+    public synchronized BiomeGenerationSettings getBiomeSettings(BiomeType type) {
         if (!this.biomeSettings.containsKey(type)) {
             this.biomeSettings.put(type, ((IBiomeGenBase) type).initPopulators(this.world));
         }
@@ -198,50 +215,254 @@ public List<Populator> getPopulators(Class<? extends Populator> type) {
     @Override
     public Chunk provideChunk(int chunkX, int chunkZ) {
         this.rand.setSeed((long) chunkX * 341873128712L + (long) chunkZ * 132897987541L);
-        this.cachedBiomes.reuse(new Vector2i(chunkX * 16, chunkZ * 16));
+        PendingChunk pending = this.prefetchedChunks.remove(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+        if (pending == null) {
+            pending = startChunk(chunkX, chunkZ);
+            pending.runWorkerStages();
+        } else {
+            pending.awaitWorkerStages();
+        }
+        pending.runLastStages();
+
+        // Assemble chunk
+        Chunk chunk = new Chunk(this.world, pending.chunkPrimer, chunkX, chunkZ);
+        byte[] biomeArray = chunk.getBiomeArray();
+        System.arraycopy(pending.biomeArray, 0, biomeArray, 0, biomeArray.length);
+        chunk.generateSkylightMap();
+        return chunk;
+    }
+
+    /**
+     * Starts generating the terrain of a chunk that is likely to be requested
+     * soon. The stages that are safe to run off the main thread are handed to
+     * the generation workers, the rest runs once the chunk is requested.
+     * Nothing is prefetched unless the base generator is thread-safe, as the
+     * base terrain would otherwise be generated on the main thread anyway.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return Whether generation of the chunk was started
+     */
+    public boolean prefetchChunk(int chunkX, int chunkZ) {
+        long key = ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ);
+        if (!canRunOnWorker(this.baseGenerator) || this.prefetchedChunks.size() >= MAX_PREFETCHED_CHUNKS
+                || this.prefetchedChunks.containsKey(key)) {
+            return false;
+        }
+        PendingChunk pending = startChunk(chunkX, chunkZ);
+        pending.workerStages = CompletableFuture.runAsync(pending::runWorkerStages, generationWorkers);
+        this.prefetchedChunks.put(key, pending);
+        return true;
+    }
+
+    /**
+     * Gets whether the terrain of the given chunk is being generated ahead of
+     * time.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return Whether the chunk is prefetched
+     */
+    public boolean isPrefetched(int chunkX, int chunkZ) {
+        return this.prefetchedChunks.containsKey(ChunkCoordIntPair.chunkXZ2Int(chunkX, chunkZ));
+    }
+
+    public int getPrefetchedCount() {
+        return this.prefetchedChunks.size();
+    }
+
+    /**
+     * Drops the prefetched chunks that are no longer wanted, e.g. because the
+     * player they were generated for turned around.
+     *
+     * @param keep Tests the chunk coordinates of the chunks to keep
+     */
+    public void retainPrefetched(BiPredicate<Integer, Integer> keep) {
+        Iterator<PendingChunk> iterator = this.prefetchedChunks.values().iterator();
+        while (iterator.hasNext()) {
+            PendingChunk pending = iterator.next();
+            if (!keep.test(pending.chunkX, pending.chunkZ)) {
+                // Cancelling the future does not stop a worker that already started
+                pending.cancelled = true;
+                pending.workerStages.cancel(false);
+                iterator.remove();
+            }
+        }
+    }
+
+    private ByteArrayMutableBiomeBuffer generateBiomes(int chunkX, int chunkZ) {
+        Vector2i start = new Vector2i(chunkX * 16, chunkZ * 16);
+        if (this.world.provider.worldChunkMgr instanceof CustomWorldChunkManager) {
+            // Most likely generated already while looking for structures
+            BiomeTileCache biomeCache = ((CustomWorldChunkManager) this.world.provider.worldChunkMgr).getBiomeCache();
+            return new ByteArrayMutableBiomeBuffer(biomeCache.getBiomes(new byte[16 * 16], start.getX(), start.getY(), 16, 16), start,
+                    CHUNK_AREA);
+        }
+        this.cachedBiomes.reuse(start);
         this.biomeGenerator.generateBiomes(this.cachedBiomes);
+        return this.cachedBiomes;
+    }
+
+    private PendingChunk startChunk(int chunkX, int chunkZ) {
+        ByteArrayMutableBiomeBuffer biomes = generateBiomes(chunkX, chunkZ);
 
-        // Generate base terrain
         ChunkPrimer chunkprimer = new ChunkPrimer();
         MutableBlockVolume blockBuffer = new ChunkPrimerBuffer(chunkprimer, chunkX, chunkZ);
-        ImmutableBiomeArea biomeBuffer = this.cachedBiomes.getImmutableBiomeCopy();
-        this.baseGenerator.populate((org.spongepowered.api.world.World) this.world, blockBuffer, biomeBuffer);
+        ImmutableBiomeArea biomeBuffer = biomes.getImmutableBiomeCopy();
 
-        replaceBiomeBlocks(this.world, this.rand, chunkX, chunkZ, chunkprimer, biomeBuffer);
-
-        // Apply the generator populators to complete the blockBuffer
-        for (GenerationPopulator populator : this.genpop) {
-            populator.populate((org.spongepowered.api.world.World) this.world, blockBuffer, biomeBuffer);
-        }
+        // Base terrain, then the biome ground cover and the generator populators
+        // to complete the blockBuffer
+        List<GenerationPopulator> stages = Lists.newArrayList();
+        stages.add(this.baseGenerator);
+        stages.add(new BiomeBlockStage(chunkX, chunkZ, chunkprimer));
+        stages.addAll(this.genpop);
 
         // Get unique biomes to determine what generator populators to run
         List<BiomeType> uniqueBiomes = Lists.newArrayList();
         BiomeType biome;
         for (int x = 0; x < 16; x++) {
             for (int z = 0; z < 16; z++) {
-                biome = this.cachedBiomes.getBiome(chunkX * 16 + x, chunkZ * 16 + z);
+                biome = biomes.getBiome(chunkX * 16 + x, chunkZ * 16 + z);
                 if (!uniqueBiomes.contains(biome)) {
                     uniqueBiomes.add(biome);
                 }
             }
         }
-
-        // run our generator populators
         for (BiomeType type : uniqueBiomes) {
-            if (!this.biomeSettings.containsKey(type)) {
-                this.biomeSettings.put(type, ((IBiomeGenBase) type).initPopulators(this.world));
+            stages.addAll(getBiomeSettings(type).getGenerationPopulators());
+        }
+
+        byte[] biomeArray = biomes.detach().clone();
+        PendingChunk pending = new PendingChunk(chunkX, chunkZ, chunkprimer, blockBuffer, biomeBuffer, biomeArray, stages);
+        pending.runFirstStages();
+        return pending;
+    }
+
+    private void runStage(GenerationPopulator populator, MutableBlockVolume blockBuffer, ImmutableBiomeArea biomeBuffer) {
+        populator.populate((org.spongepowered.api.world.World) this.world, blockBuffer, biomeBuffer);
+    }
+
+    /**
+     * Gets whether a generation populator may run on a generation worker.
+     * Populators are shared between chunks and most keep state while running,
+     * so only the ones declared thread-safe, by Sponge or in the world config,
+     * run on the workers.
+     */
+    private boolean canRunOnWorker(GenerationPopulator populator) {
+        return populator instanceof IThreadSafeGenerationPopulator || SpongeHooks.getActiveConfig(this.world).getConfig().getWorld()
+                .getThreadSafeGenerationPopulators().contains(populator.getClass().getName());
+    }
+
+    /**
+     * Replaces the blocks of the base terrain with the ground cover of the
+     * biomes, using the random and noise of the current thread.
+     */
+    private final class BiomeBlockStage implements GenerationPopulator, IThreadSafeGenerationPopulator {
+
+        private final int chunkX;
+        private final int chunkZ;
+        private final ChunkPrimer chunkPrimer;
+
+        BiomeBlockStage(int chunkX, int chunkZ, ChunkPrimer chunkPrimer) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.chunkPrimer = chunkPrimer;
+        }
+
+        @Override
+        public void populate(org.spongepowered.api.world.World world, MutableBlockVolume buffer, ImmutableBiomeArea biomes) {
+            Random rand = SpongeChunkProvider.this.generationContext.get().rand;
+            rand.setSeed((long) this.chunkX * 341873128712L + (long) this.chunkZ * 132897987541L);
+            replaceBiomeBlocks(SpongeChunkProvider.this.world, rand, this.chunkX, this.chunkZ, this.chunkPrimer, biomes);
+        }
+
+    }
+
+    /**
+     * The terrain of a chunk in the middle of being generated. The generation
+     * stages are split into a leading run that has to be on the main thread,
+     * a run that may happen on a generation worker and the remaining stages,
+     * which again run on the main thread once the chunk is requested.
+     */
+    private final class PendingChunk {
+
+        final int chunkX;
+        final int chunkZ;
+        final ChunkPrimer chunkPrimer;
+        final MutableBlockVolume blockBuffer;
+        final ImmutableBiomeArea biomeBuffer;
+        final byte[] biomeArray;
+        final List<GenerationPopulator> stages;
+        CompletableFuture<Void> workerStages = CompletableFuture.completedFuture(null);
+        volatile boolean cancelled;
+        int firstWorkerStage;
+        int firstLastStage;
+
+        PendingChunk(int chunkX, int chunkZ, ChunkPrimer chunkPrimer, MutableBlockVolume blockBuffer, ImmutableBiomeArea biomeBuffer,
+                byte[] biomeArray, List<GenerationPopulator> stages) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.chunkPrimer = chunkPrimer;
+            this.blockBuffer = blockBuffer;
+            this.biomeBuffer = biomeBuffer;
+            this.biomeArray = biomeArray;
+            this.stages = stages;
+
+            int stage = 0;
+            while (stage < stages.size() && !canRunOnWorker(stages.get(stage))) {
+                stage++;
             }
-            for (GenerationPopulator populator : this.biomeSettings.get(type).getGenerationPopulators()) {
-                populator.populate((org.spongepowered.api.world.World) this.world, blockBuffer, biomeBuffer);
+            this.firstWorkerStage = stage;
+            while (stage < stages.size() && canRunOnWorker(stages.get(stage))) {
+                stage++;
             }
+            this.firstLastStage = stage;
+        }
+
+        void runFirstStages() {
+            runStages(0, this.firstWorkerStage);
+        }
+
+        void runWorkerStages() {
+            for (int i = this.firstWorkerStage; i < this.firstLastStage && !this.cancelled; i++) {
+                runStage(this.stages.get(i), this.blockBuffer, this.biomeBuffer);
+            }
+        }
+
+        void awaitWorkerStages() {
+            try {
+                this.workerStages.join();
+            } catch (CompletionException e) {
+                Throwables.propagate(e.getCause());
+            }
+        }
+
+        void runLastStages() {
+            runStages(this.firstLastStage, this.stages.size());
+        }
+
+        private void runStages(int from, int to) {
+            for (int i = from; i < to; i++) {
+                runStage(this.stages.get(i), this.blockBuffer, this.biomeBuffer);
+            }
+        }
+
+    }
+
+    /**
+     * State used while replacing the biome blocks of a chunk, kept per thread
+     * so chunks can be generated on several threads at once.
+     */
+    private static final class GenerationContext {
+
+        final Random rand = new Random();
+        final NoiseGeneratorPerlin noise4;
+        double[] stoneNoise = new double[256];
+
+        GenerationContext(long seed) {
+            this.noise4 = new NoiseGeneratorPerlin(new Random(seed), 4);
         }
 
-        // Assemble chunk
-        Chunk chunk = new Chunk(this.world, chunkprimer, chunkX, chunkZ);
-        byte[] biomeArray = chunk.getBiomeArray();
-        System.arraycopy(this.cachedBiomes.detach(), 0, biomeArray, 0, biomeArray.length);
-        chunk.generateSkylightMap();
-        return chunk;
     }
 
     @Override
@@ -261,11 +482,8 @@ public void populate(IChunkProvider chunkProvider, int chunkX, int chunkZ) {
 
         org.spongepowered.api.world.Chunk chunk = (org.spongepowered.api.world.Chunk) this.world.getChunkFromChunkCoords(chunkX, chunkZ);
 
-        if (!this.biomeSettings.containsKey(biome)) {
-            this.biomeSettings.put(biome, ((IBiomeGenBase) biome).initPopulators(this.world));
-        }
         List<Populator> populators = Lists.newArrayList(this.pop);
-        populators.addAll(this.biomeSettings.get(biome).getPopulators());
+        populators.addAll(getBiomeSettings(biome).getPopulators());
         // Non-biome populators come after the biome populators
         Sponge.getGame().getEventManager().post(SpongeEventFactory.createPopulateChunkEventPre(populateCause, populators, chunk));
         Sponge.getGame().getEventManager().post(SpongeEventFactory.createPopulateChunkEventPopulate(populateCause, chunk));
@@ -386,13 +604,15 @@ public boolean chunkExists(int x, int z) {
     }
 
     public void replaceBiomeBlocks(World world, Random rand, int x, int z, ChunkPrimer chunk, ImmutableBiomeArea biomes) {
+        GenerationContext context = this.generationContext.get();
         double d0 = 0.03125D;
-        this.stoneNoise = this.noise4.func_151599_a(this.stoneNoise, (double) (x * 16), (double) (z * 16), 16, 16, d0 * 2.0D, d0 * 2.0D, 1.0D);
+        context.stoneNoise = context.noise4.func_151599_a(context.stoneNoise, (double) (x * 16), (double) (z * 16), 16, 16, d0 * 2.0D, d0 * 2.0D,
+                1.0D);
         Vector2i min = biomes.getBiomeMin();
         for (int k = 0; k < 16; ++k) {
             for (int l = 0; l < 16; ++l) {
                 BiomeType biomegenbase = biomes.getBiome(min.getX() + l, min.getY() + k);
-                generateBiomeTerrain(world, rand, chunk, x * 16 + k, z * 16 + l, this.stoneNoise[l + k * 16],
+                generateBiomeTerrain(world, rand, chunk, x * 16 + k, z * 16 + l, context.stoneNoise[l + k * 16],
                         getBiomeSettings(biomegenbase).getGroundCoverLayers());
             }
         }
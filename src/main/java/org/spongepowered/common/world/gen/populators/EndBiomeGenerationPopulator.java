@@ -30,8 +30,9 @@
 import org.spongepowered.api.world.extent.ImmutableBiomeArea;
 import org.spongepowered.api.world.extent.MutableBlockVolume;
 import org.spongepowered.api.world.gen.GenerationPopulator;
+import org.spongepowered.common.interfaces.world.gen.IThreadSafeGenerationPopulator;
 
-public class EndBiomeGenerationPopulator implements GenerationPopulator {
+public class EndBiomeGenerationPopulator implements GenerationPopulator, IThreadSafeGenerationPopulator {
 
     @Override
     public void populate(World world, MutableBlockVolume buffer, ImmutableBiomeArea biomes) {
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.storage;
+
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.minecraft.world.storage.IThreadedFileIO;
+import org.spongepowered.common.SpongeImpl;
+
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A dedicated thread for compressing and writing chunk data to region files.
+ *
+ * <p>This replaces the shared {@link net.minecraft.world.storage.ThreadedFileIOBase}
+ * for chunk loaders, which sleeps between every single chunk write and is
+ * therefore unable to keep up with large saves.</p>
+ */
+public final class ChunkIOExecutor {
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("Sponge Chunk I/O Thread")
+            .setDaemon(true)
+            .setPriority(Thread.NORM_PRIORITY - 1)
+            .build());
+    private static final Set<IThreadedFileIO> scheduled = Sets.newConcurrentHashSet();
+
+    private ChunkIOExecutor() {
+    }
+
+    /**
+     * Schedules the pending writes of the given file IO to be drained.
+     *
+     * @param fileIO The file IO with pending writes
+     */
+    public static void queue(IThreadedFileIO fileIO) {
+        if (scheduled.add(fileIO)) {
+            executor.execute(() -> drain(fileIO));
+        }
+    }
+
+    private static void drain(IThreadedFileIO fileIO) {
+        // Unmark before draining so writes queued while we are busy schedule another pass
+        scheduled.remove(fileIO);
+        try {
+            while (fileIO.writeNextIO()) {
+                // Keep writing until the loader has nothing left
+            }
+        } catch (Exception e) {
+            SpongeImpl.getLogger().error("Failed to write chunk data", e);
+        }
+    }
+
+    /**
+     * Blocks until every write queued before this call has completed.
+     */
+    public static void waitForFinish() {
+        try {
+            executor.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            SpongeImpl.getLogger().error("Failed to wait for chunk writes to complete", e);
+        }
+    }
+
+}
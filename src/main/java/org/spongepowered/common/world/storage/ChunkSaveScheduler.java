@@ -0,0 +1,225 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.storage;
+
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import org.spongepowered.common.config.SpongeConfig;
+import org.spongepowered.common.interfaces.IMixinChunk;
+import org.spongepowered.common.interfaces.IMixinMinecraftServer;
+import org.spongepowered.common.util.SpongeHooks;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the modified chunks of a world a few at a time every tick, instead
+ * of writing every loaded chunk at once during the autosave.
+ *
+ * <p>Chunks are queued when they are modified rather than found by scanning
+ * the loaded chunk list, and are saved in region file order so consecutive
+ * writes land in the same region file. Compression and the file writes
+ * themselves happen on the {@link ChunkIOExecutor}.</p>
+ */
+public class ChunkSaveScheduler {
+
+    private static final long REGION_OFFSET = 1 << 25;
+
+    private final WorldServer world;
+    private final TreeMap<Long, Chunk> dirtyChunks = new TreeMap<>();
+    private final ArrayDeque<PendingEntityChunk> entityChunks = new ArrayDeque<>();
+    private boolean enabled;
+    private long cursor = Long.MIN_VALUE;
+
+    public ChunkSaveScheduler(WorldServer world) {
+        this.world = world;
+    }
+
+    /**
+     * Gets whether the chunks are saved incrementally, which is only the case
+     * after the first tick read the config. Until then modified chunks are
+     * saved by the regular autosave.
+     *
+     * @return Whether incremental saving is enabled
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Gets the number of chunks waiting to be saved.
+     *
+     * @return The number of pending chunks
+     */
+    public int getPendingCount() {
+        return this.dirtyChunks.size();
+    }
+
+    /**
+     * Queues a chunk to be saved.
+     *
+     * @param chunk The modified chunk
+     */
+    public void markDirty(Chunk chunk) {
+        if (!this.enabled) {
+            return;
+        }
+        IMixinChunk spongeChunk = (IMixinChunk) chunk;
+        if (!spongeChunk.isQueuedForSave()) {
+            spongeChunk.setQueuedForSave(true);
+            this.dirtyChunks.put(regionOrderKey(chunk.xPosition, chunk.zPosition), chunk);
+        }
+    }
+
+    /**
+     * Schedules a chunk containing entities to be saved again after the
+     * configured interval, as entities moving around within a chunk do not
+     * mark it as modified.
+     *
+     * @param chunk The chunk containing entities
+     */
+    public void markEntityChunk(Chunk chunk) {
+        IMixinChunk spongeChunk = (IMixinChunk) chunk;
+        if (!this.enabled || spongeChunk.isQueuedForEntitySave()) {
+            return;
+        }
+        spongeChunk.setQueuedForEntitySave(true);
+        int interval = SpongeHooks.getActiveConfig(this.world).getConfig().getWorld().getEntityChunkSaveInterval();
+        this.entityChunks.add(new PendingEntityChunk(chunk, this.world.getTotalWorldTime() + Math.max(1, interval)));
+    }
+
+    /**
+     * Removes a chunk from the queue, usually because it is being unloaded
+     * and will be saved by the chunk provider.
+     *
+     * @param chunk The chunk
+     */
+    public void remove(Chunk chunk) {
+        IMixinChunk spongeChunk = (IMixinChunk) chunk;
+        if (spongeChunk.isQueuedForSave()) {
+            spongeChunk.setQueuedForSave(false);
+            this.dirtyChunks.remove(regionOrderKey(chunk.xPosition, chunk.zPosition));
+        }
+    }
+
+    /**
+     * Forgets all queued chunks, called after every chunk of the world was
+     * saved synchronously.
+     */
+    public void clear() {
+        for (Chunk chunk : this.dirtyChunks.values()) {
+            ((IMixinChunk) chunk).setQueuedForSave(false);
+        }
+        this.dirtyChunks.clear();
+        this.cursor = Long.MIN_VALUE;
+    }
+
+    public void tick() {
+        SpongeConfig.WorldCategory config = SpongeHooks.getActiveConfig(this.world).getConfig().getWorld();
+        if (this.enabled != config.useIncrementalChunkSave()) {
+            this.enabled = config.useIncrementalChunkSave();
+            if (this.enabled) {
+                // Chunks modified before the first tick, like the spawn chunks during the world
+                // load, were not queued and the autosave skips them from now on
+                for (Object loadedChunk : this.world.theChunkProviderServer.loadedChunks) {
+                    Chunk chunk = (Chunk) loadedChunk;
+                    if (chunk.needsSaving(false)) {
+                        markDirty(chunk);
+                    }
+                }
+            } else {
+                clear();
+                for (PendingEntityChunk pending : this.entityChunks) {
+                    ((IMixinChunk) pending.chunk).setQueuedForEntitySave(false);
+                }
+                this.entityChunks.clear();
+            }
+        }
+        if (!this.enabled || this.world.disableLevelSaving
+                || !((IMixinMinecraftServer) this.world.getMinecraftServer()).isSaveEnabled()) {
+            return;
+        }
+
+        long now = this.world.getTotalWorldTime();
+        while (!this.entityChunks.isEmpty() && this.entityChunks.peek().dueTick <= now) {
+            Chunk chunk = this.entityChunks.poll().chunk;
+            ((IMixinChunk) chunk).setQueuedForEntitySave(false);
+            if (chunk.isLoaded()) {
+                markDirty(chunk);
+            }
+        }
+
+        int maxChunks = config.getMaxChunkSavesPerTick();
+        long maxTime = TimeUnit.MILLISECONDS.toNanos(config.getMaxChunkSaveTime());
+        long start = System.nanoTime();
+        int saved = 0;
+        while (!this.dirtyChunks.isEmpty()) {
+            if (maxChunks > 0 && saved >= maxChunks || maxTime > 0 && System.nanoTime() - start >= maxTime) {
+                break;
+            }
+            // Continue the sweep from where the last tick stopped, so chunks that are
+            // modified constantly do not starve the regions after them
+            Map.Entry<Long, Chunk> entry = this.dirtyChunks.ceilingEntry(this.cursor);
+            if (entry == null) {
+                entry = this.dirtyChunks.firstEntry();
+            }
+            this.dirtyChunks.remove(entry.getKey());
+            this.cursor = entry.getKey() + 1;
+
+            Chunk chunk = entry.getValue();
+            ((IMixinChunk) chunk).setQueuedForSave(false);
+            this.world.theChunkProviderServer.saveChunkData(chunk);
+            chunk.setModified(false);
+            if (((IMixinChunk) chunk).hasEntities()) {
+                markEntityChunk(chunk);
+            }
+            saved++;
+        }
+    }
+
+    /**
+     * Orders chunks by region file first, then by their position within the
+     * region file.
+     */
+    private static long regionOrderKey(int chunkX, int chunkZ) {
+        long regionX = (chunkX >> 5) + REGION_OFFSET;
+        long regionZ = (chunkZ >> 5) + REGION_OFFSET;
+        return regionX << 37 | regionZ << 10 | (chunkZ & 31) << 5 | (chunkX & 31);
+    }
+
+    private static final class PendingEntityChunk {
+
+        final Chunk chunk;
+        final long dueTick;
+
+        PendingEntityChunk(Chunk chunk, long dueTick) {
+            this.chunk = chunk;
+            this.dueTick = dueTick;
+        }
+    }
+
+}
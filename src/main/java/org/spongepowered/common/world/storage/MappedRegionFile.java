@@ -0,0 +1,183 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.storage;
+
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.chunk.storage.RegionFile;
+import org.spongepowered.common.util.DirectBufferUtil;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
+
+/**
+ * A read-only, memory-mapped view of a region file.
+ *
+ * <p>Writes still go through the vanilla {@link RegionFile}, which may move a
+ * chunk to other sectors when it grows. Locating a chunk and copying its
+ * compressed bytes out of the mapping is therefore done while holding the
+ * vanilla region file's monitor, but decompression happens outside of it so
+ * several threads can read from the same region at once.</p>
+ */
+public class MappedRegionFile {
+
+    private static final int SECTOR_SIZE = 4096;
+    private static final int HEADER_SIZE = SECTOR_SIZE * 2;
+    private static final int VERSION_GZIP = 1;
+    private static final int VERSION_DEFLATE = 2;
+
+    private static final ThreadLocal<ReadContext> readContext = new ThreadLocal<ReadContext>() {
+
+        @Override
+        protected ReadContext initialValue() {
+            return new ReadContext();
+        }
+    };
+
+    private final File file;
+    private final RegionFile regionFile;
+    @Nullable private MappedByteBuffer buffer;
+
+    public MappedRegionFile(File file, RegionFile regionFile) {
+        this.file = file;
+        this.regionFile = regionFile;
+    }
+
+    /**
+     * Reads the chunk at the given chunk coordinates.
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The chunk data, or null if the chunk was never saved
+     * @throws IOException If the chunk data could not be read
+     */
+    @Nullable
+    public NBTTagCompound readChunk(int chunkX, int chunkZ) throws IOException {
+        final ReadContext context = readContext.get();
+        final int compressedLength;
+        final int version;
+        synchronized (this.regionFile) {
+            ByteBuffer buffer = getBuffer(HEADER_SIZE);
+            if (buffer == null) {
+                return null;
+            }
+            int offset = buffer.getInt(((chunkX & 31) + (chunkZ & 31) * 32) * 4);
+            if (offset == 0) {
+                return null;
+            }
+            int sectorCount = offset & 0xFF;
+            long start = (long) (offset >>> 8) * SECTOR_SIZE;
+            buffer = getBuffer(start + sectorCount * SECTOR_SIZE);
+            if (buffer == null) {
+                return null;
+            }
+            int length = buffer.getInt((int) start);
+            if (length <= 1 || length > sectorCount * SECTOR_SIZE) {
+                return null;
+            }
+            version = buffer.get((int) start + 4);
+            compressedLength = length - 1;
+            // Inflater only accepts arrays, so copy the compressed bytes in a single bulk get
+            ByteBuffer data = buffer.duplicate();
+            data.position((int) start + 5);
+            data.get(context.ensureCapacity(compressedLength), 0, compressedLength);
+        }
+
+        InputStream in = new ByteArrayInputStream(context.buffer, 0, compressedLength);
+        if (version == VERSION_DEFLATE) {
+            context.inflater.reset();
+            in = new InflaterInputStream(in, context.inflater);
+        } else if (version == VERSION_GZIP) {
+            in = new GZIPInputStream(in);
+        } else {
+            return null;
+        }
+        try (DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in))) {
+            return CompressedStreamTools.read(dataIn);
+        }
+    }
+
+    /**
+     * Gets a mapping covering at least the given number of bytes, mapping the
+     * file again if it has grown since the last read.
+     */
+    @Nullable
+    private ByteBuffer getBuffer(long requiredSize) throws IOException {
+        if (this.buffer == null || this.buffer.capacity() < requiredSize) {
+            try (RandomAccessFile file = new RandomAccessFile(this.file, "r")) {
+                long size = file.length();
+                if (size < requiredSize) {
+                    return null;
+                }
+                MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (this.buffer != null) {
+                    DirectBufferUtil.free(this.buffer);
+                }
+                this.buffer = buffer;
+            }
+        }
+        return this.buffer;
+    }
+
+    /**
+     * Unmaps the file immediately instead of waiting for the garbage
+     * collector. A later read maps the file again.
+     */
+    public void close() {
+        synchronized (this.regionFile) {
+            if (this.buffer != null) {
+                DirectBufferUtil.free(this.buffer);
+                this.buffer = null;
+            }
+        }
+    }
+
+    private static final class ReadContext {
+
+        final Inflater inflater = new Inflater();
+        byte[] buffer = new byte[SECTOR_SIZE * 16];
+
+        byte[] ensureCapacity(int length) {
+            if (this.buffer.length < length) {
+                this.buffer = new byte[Math.max(length, this.buffer.length * 2)];
+            }
+            return this.buffer;
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.storage;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.chunk.storage.RegionFile;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps a {@link MappedRegionFile} for every region file opened by the
+ * vanilla {@link RegionFileCache}. Mappings are released when the vanilla
+ * cache closes its region files.
+ */
+public final class MappedRegionFileCache {
+
+    private static final ConcurrentMap<RegionFile, MappedRegionFile> regionFiles = new MapMaker().weakKeys().makeMap();
+
+    private MappedRegionFileCache() {
+    }
+
+    /**
+     * Reads a chunk from the region files of the given world directory.
+     *
+     * @param worldDir The world directory
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The chunk data, or null if the chunk was never saved
+     * @throws IOException If the chunk data could not be read
+     */
+    @Nullable
+    public static NBTTagCompound readChunk(File worldDir, int chunkX, int chunkZ) throws IOException {
+        File file = new File(new File(worldDir, "region"), "r." + (chunkX >> 5) + "." + (chunkZ >> 5) + ".mca");
+        if (!file.exists()) {
+            // Unlike vanilla, don't create empty region files just to find nothing in them
+            return null;
+        }
+        RegionFile regionFile = RegionFileCache.createOrLoadRegionFile(worldDir, chunkX, chunkZ);
+        MappedRegionFile mappedFile = regionFiles.get(regionFile);
+        if (mappedFile == null) {
+            mappedFile = new MappedRegionFile(file, regionFile);
+            MappedRegionFile previous = regionFiles.putIfAbsent(regionFile, mappedFile);
+            if (previous != null) {
+                mappedFile = previous;
+            }
+        }
+        return mappedFile.readChunk(chunkX, chunkZ);
+    }
+
+    /**
+     * Unmaps all region files, called when the vanilla cache closes them.
+     */
+    public static void clear() {
+        for (MappedRegionFile mappedFile : regionFiles.values()) {
+            mappedFile.close();
+        }
+        regionFiles.clear();
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.storage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Copies and deletes world directories, handling every file as a separate
+ * task so that large worlds are processed by several threads at once. The
+ * files are handled by a small pool of their own, as they block on I/O.
+ */
+public final class WorldFileOperation {
+
+    private static final String REGION_FILE_SUFFIX = ".mca";
+    private static final boolean SUPPORTS_LINK_COUNT = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    private static final int IO_THREADS = 4;
+    private static final ExecutorService ioExecutor = Executors.newFixedThreadPool(IO_THREADS, new ThreadFactoryBuilder()
+            .setNameFormat("Sponge World File IO #%d")
+            .setDaemon(true)
+            .build());
+
+    private final String name;
+    private final AtomicInteger totalFiles = new AtomicInteger();
+    private final AtomicInteger completedFiles = new AtomicInteger();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong completedBytes = new AtomicLong();
+    private final List<CompletableFuture<Void>> tasks = new ArrayList<>();
+    private final long startTime = System.nanoTime();
+
+    public WorldFileOperation(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getTotalFiles() {
+        return this.totalFiles.get();
+    }
+
+    public int getCompletedFiles() {
+        return this.completedFiles.get();
+    }
+
+    public long getTotalBytes() {
+        return this.totalBytes.get();
+    }
+
+    public long getCompletedBytes() {
+        return this.completedBytes.get();
+    }
+
+    /**
+     * Gets the progress of this operation, based on the amount of bytes
+     * processed so far.
+     *
+     * @return The progress, between 0 and 1
+     */
+    public double getProgress() {
+        long total = this.totalBytes.get();
+        return total == 0 ? 0 : (double) this.completedBytes.get() / total;
+    }
+
+    /**
+     * Copies a world directory.
+     *
+     * <p>When linking region files, the copy shares the region files of the
+     * source on disk until either world opens them, at which point
+     * {@link #breakHardLink(Path)} gives the opening world its own copy.
+     * Filesystems that cannot report link counts always copy.</p>
+     *
+     * @param source The directory to copy
+     * @param target The directory to create
+     * @param skipDirectory A filter for sub directories to leave out
+     * @param linkRegionFiles Whether region files may be hard linked
+     * @throws IOException If the directory could not be copied
+     */
+    public void copy(Path source, Path target, Predicate<Path> skipDirectory, boolean linkRegionFiles) throws IOException {
+        final boolean link = linkRegionFiles && SUPPORTS_LINK_COUNT;
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(source) && skipDirectory.test(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path destination = target.resolve(source.relativize(file));
+                long size = attrs.size();
+                if (link && file.getFileName().toString().endsWith(REGION_FILE_SUFFIX)) {
+                    submit(() -> Files.createLink(destination, file), size);
+                } else {
+                    submit(() -> Files.copy(file, destination, StandardCopyOption.COPY_ATTRIBUTES), size);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        complete();
+    }
+
+    /**
+     * Deletes a world directory.
+     *
+     * @param directory The directory to delete
+     * @throws IOException If the directory could not be deleted
+     */
+    public void delete(Path directory) throws IOException {
+        final List<Path> directories = new ArrayList<>();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                submit(() -> Files.delete(file), attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                // Children are always visited before their parent
+                directories.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        complete();
+        for (Path dir : directories) {
+            Files.delete(dir);
+        }
+    }
+
+    private void submit(FileTask task, long size) {
+        this.totalFiles.incrementAndGet();
+        this.totalBytes.addAndGet(size);
+        this.tasks.add(CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.completedFiles.incrementAndGet();
+            this.completedBytes.addAndGet(size);
+        }, ioExecutor));
+    }
+
+    private void complete() throws IOException {
+        try {
+            CompletableFuture.allOf(this.tasks.toArray(new CompletableFuture<?>[this.tasks.size()])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        } finally {
+            this.tasks.clear();
+        }
+        SpongeImpl.getLogger().info("{}: processed {} files ({} KB) in {} ms", this.name, this.completedFiles.get(),
+                this.completedBytes.get() / 1024, (System.nanoTime() - this.startTime) / 1000000);
+    }
+
+    /**
+     * Replaces a hard linked file with a private copy of its contents, so
+     * that writing to it does not modify the other links.
+     *
+     * @param file The file
+     */
+    public static void breakHardLink(Path file) {
+        if (!SUPPORTS_LINK_COUNT) {
+            return;
+        }
+        try {
+            if (!Files.exists(file) || (Integer) Files.getAttribute(file, "unix:nlink") <= 1) {
+                return;
+            }
+            Path copy = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.move(copy, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            SpongeImpl.getLogger().error("Failed to unlink shared region file " + file, e);
+        }
+    }
+
+    private interface FileTask {
+
+        void run() throws IOException;
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.profiler;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SamplingProfilerTest {
+
+    private static PluginContainer mockPlugin(String id, Optional<?> instance) {
+        PluginContainer plugin = mock(PluginContainer.class);
+        when(plugin.getId()).thenReturn(id);
+        doReturn(instance).when(plugin).getInstance();
+        return plugin;
+    }
+
+    @Test
+    public void testPluginPackages() {
+        Map<String, String> packages = SamplingProfiler.getPluginPackages(Arrays.asList(
+                mockPlugin("profiler", Optional.of(new SamplingProfilerTest())),
+                mockPlugin("virtual", Optional.empty())));
+        Assert.assertEquals(1, packages.size());
+        Assert.assertEquals("profiler", packages.get("org.spongepowered.common.profiler."));
+    }
+
+    @Test
+    public void testOwnerOfNestedPackage() {
+        SamplingProfiler.PluginOwners owners = new SamplingProfiler.PluginOwners(SamplingProfiler.getPluginPackages(Arrays.asList(
+                mockPlugin("collections", Optional.of(new ArrayList<>())),
+                mockPlugin("concurrent", Optional.of(new ConcurrentHashMap<>())))));
+        Assert.assertEquals("concurrent", owners.getOwner("java.util.concurrent.ForkJoinPool"));
+        Assert.assertEquals("collections", owners.getOwner("java.util.HashMap"));
+        Assert.assertEquals("collections", owners.getOwner("java.util.concurrentx.Executor"));
+        Assert.assertNull(owners.getOwner("net.minecraft.server.MinecraftServer"));
+        // Cached lookups give the same result
+        Assert.assertEquals("concurrent", owners.getOwner("java.util.concurrent.ForkJoinPool"));
+        Assert.assertNull(owners.getOwner("net.minecraft.server.MinecraftServer"));
+    }
+
+}
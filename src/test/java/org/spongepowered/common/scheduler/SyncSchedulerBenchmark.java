@@ -0,0 +1,69 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.scheduler;
+
+import static org.mockito.Mockito.mock;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the time a tick of the synchronous scheduler takes with many
+ * scheduled tasks. Not part of the regular test run, run it by hand.
+ */
+@Ignore("Benchmark, run by hand")
+public class SyncSchedulerBenchmark {
+
+    private static final PluginContainer PLUGIN = mock(PluginContainer.class);
+    private static final int TASKS = 10000;
+    private static final int TICKS = 1000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkManyTasks() {
+        // The first rounds warm up the JIT
+        for (int round = 1; round <= ROUNDS; round++) {
+            SyncScheduler scheduler = new SyncScheduler();
+            AtomicInteger runs = new AtomicInteger();
+            for (int i = 0; i < TASKS; i++) {
+                int interval = 1 + i % 200;
+                scheduler.addTask(new ScheduledTask(ScheduledTask.TaskSynchronicity.SYNCHRONOUS, t -> runs.incrementAndGet(), "benchmark",
+                        interval, true, interval, true, PLUGIN, ScheduledTask.Priority.CRITICAL));
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < TICKS; i++) {
+                scheduler.tick();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("Round %d: %d tasks, %d ticks, %.3f ms per tick, %d executions%n", round, TASKS, TICKS,
+                    (double) elapsed / TICKS / TimeUnit.MILLISECONDS.toNanos(1), runs.get());
+        }
+    }
+
+}
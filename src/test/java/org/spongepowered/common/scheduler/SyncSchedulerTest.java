@@ -0,0 +1,179 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.scheduler;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SyncSchedulerTest {
+
+    private static final PluginContainer PLUGIN = mock(PluginContainer.class);
+
+    private static ScheduledTask createTask(SyncScheduler scheduler, long delay, long interval, Runnable runnable) {
+        return createTask(scheduler, PLUGIN, ScheduledTask.Priority.CRITICAL, delay, interval, runnable);
+    }
+
+    private static ScheduledTask createTask(SyncScheduler scheduler, PluginContainer plugin, ScheduledTask.Priority priority, long delay,
+            long interval, Runnable runnable) {
+        ScheduledTask task = new ScheduledTask(ScheduledTask.TaskSynchronicity.SYNCHRONOUS, t -> runnable.run(), "test", delay, true, interval,
+                true, plugin, priority);
+        scheduler.addTask(task);
+        return task;
+    }
+
+    private static PluginContainer mockPlugin(String id) {
+        PluginContainer plugin = mock(PluginContainer.class);
+        when(plugin.getId()).thenReturn(id);
+        return plugin;
+    }
+
+    @Test
+    public void testDelayAndInterval() {
+        SyncScheduler scheduler = new SyncScheduler();
+        AtomicLong firstRun = new AtomicLong(-1);
+        AtomicInteger runs = new AtomicInteger();
+        createTask(scheduler, 5, 3, () -> {
+            firstRun.compareAndSet(-1, runs.get());
+            runs.incrementAndGet();
+        });
+        for (int i = 0; i < 4; i++) {
+            scheduler.tick();
+        }
+        Assert.assertEquals(0, runs.get());
+        scheduler.tick();
+        Assert.assertEquals(1, runs.get());
+        scheduler.tick();
+        scheduler.tick();
+        Assert.assertEquals(1, runs.get());
+        scheduler.tick();
+        Assert.assertEquals(2, runs.get());
+    }
+
+    @Test
+    public void testImmediateTaskRunsOnce() {
+        SyncScheduler scheduler = new SyncScheduler();
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledTask task = createTask(scheduler, 0, 0, runs::incrementAndGet);
+        scheduler.tick();
+        scheduler.tick();
+        Assert.assertEquals(1, runs.get());
+        Assert.assertFalse(scheduler.getTask(task.getUniqueId()).isPresent());
+    }
+
+    @Test
+    public void testCancel() {
+        SyncScheduler scheduler = new SyncScheduler();
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledTask task = createTask(scheduler, 1, 1, runs::incrementAndGet);
+        scheduler.tick();
+        task.cancel();
+        Assert.assertFalse(scheduler.getTask(task.getUniqueId()).isPresent());
+        scheduler.tick();
+        scheduler.tick();
+        Assert.assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testLongDelay() {
+        SyncScheduler scheduler = new SyncScheduler();
+        AtomicInteger runs = new AtomicInteger();
+        createTask(scheduler, 5000, 0, runs::incrementAndGet);
+        for (int i = 0; i < 4999; i++) {
+            scheduler.tick();
+        }
+        Assert.assertEquals(0, runs.get());
+        scheduler.tick();
+        Assert.assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void testDeferralFairness() {
+        SyncScheduler scheduler = new SyncScheduler();
+        // Any tick is over budget, only one deferrable task runs per tick
+        scheduler.setTickBudget(1);
+        PluginContainer first = mockPlugin("first");
+        PluginContainer second = mockPlugin("second");
+        List<String> runs = new CopyOnWriteArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            String name = String.valueOf(i);
+            createTask(scheduler, first, ScheduledTask.Priority.DEFERRABLE, 1, 0, () -> runs.add("first" + name));
+        }
+        createTask(scheduler, second, ScheduledTask.Priority.DEFERRABLE, 1, 0, () -> runs.add("second1"));
+        AtomicInteger criticalRuns = new AtomicInteger();
+        createTask(scheduler, PLUGIN, ScheduledTask.Priority.CRITICAL, 1, 1, criticalRuns::incrementAndGet);
+        for (int i = 0; i < 4; i++) {
+            scheduler.tick();
+        }
+        Assert.assertEquals(4, criticalRuns.get());
+        Assert.assertEquals(Arrays.asList("first1", "second1", "first2", "first3"), runs);
+        Assert.assertEquals(0, scheduler.getDeferredCount());
+        Assert.assertEquals(Long.valueOf(2), scheduler.getDeferrals().get("first"));
+        Assert.assertEquals(Long.valueOf(1), scheduler.getDeferrals().get("second"));
+    }
+
+    @Test
+    public void testImmediateLimit() {
+        SyncScheduler scheduler = new SyncScheduler();
+        scheduler.setImmediateLimit(2);
+        List<Integer> runs = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int value = i;
+            scheduler.executeImmediate(PLUGIN, () -> runs.add(value));
+        }
+        scheduler.tick();
+        Assert.assertEquals(Arrays.asList(0, 1), runs);
+        Assert.assertEquals(1, scheduler.getImmediateCount());
+        scheduler.tick();
+        Assert.assertEquals(Arrays.asList(0, 1, 2), runs);
+    }
+
+    @Test
+    public void testManyTasks() {
+        SyncScheduler scheduler = new SyncScheduler();
+        AtomicInteger runs = new AtomicInteger();
+        int expectedRuns = 0;
+        final int ticks = 1000;
+        for (int i = 0; i < 10000; i++) {
+            int interval = 1 + i % 200;
+            createTask(scheduler, interval, interval, runs::incrementAndGet);
+            expectedRuns += ticks / interval;
+        }
+        for (int i = 0; i < ticks; i++) {
+            scheduler.tick();
+        }
+        Assert.assertEquals(expectedRuns, runs.get());
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.scheduler;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TaskStatisticsTest {
+
+    @Test
+    public void testRecord() {
+        TaskStatistics stats = new TaskStatistics();
+        for (int i = 0; i < 99; i++) {
+            stats.record(TimeUnit.MICROSECONDS.toNanos(20));
+        }
+        stats.record(TimeUnit.MILLISECONDS.toNanos(70));
+        Assert.assertEquals(100, stats.getCount());
+        Assert.assertEquals(70000 + 99 * 20, stats.getTotalTime(TimeUnit.MICROSECONDS));
+        Assert.assertEquals(70, stats.getMaxTime(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(50, stats.getPercentileBound(0.95, TimeUnit.MICROSECONDS));
+        Assert.assertEquals(70, stats.getPercentileBound(1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWaitSeparateFromRun() {
+        TaskStatistics stats = new TaskStatistics();
+        stats.recordWait(TimeUnit.MILLISECONDS.toNanos(2));
+        stats.recordWait(TimeUnit.MILLISECONDS.toNanos(4));
+        Assert.assertEquals(0, stats.getCount());
+        Assert.assertEquals(3, stats.getAverageWaitTime(TimeUnit.MILLISECONDS));
+        Assert.assertEquals(4, stats.getMaxWaitTime(TimeUnit.MILLISECONDS));
+    }
+
+}
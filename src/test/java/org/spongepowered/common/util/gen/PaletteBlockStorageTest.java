@@ -0,0 +1,144 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.util.gen;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.block.BlockTypes;
+import org.spongepowered.common.registry.RegistryHelper;
+
+public class PaletteBlockStorageTest {
+
+    private static BlockState air;
+
+    @BeforeClass
+    public static void registerAir() {
+        air = mock(BlockState.class);
+        BlockType airType = mock(BlockType.class);
+        when(airType.getDefaultState()).thenReturn(air);
+        RegistryHelper.setFinalStatic(BlockTypes.class, "AIR", airType);
+    }
+
+    private static BlockState[] mockStates(int count) {
+        BlockState[] states = new BlockState[count];
+        for (int i = 0; i < count; i++) {
+            states[i] = mock(BlockState.class);
+        }
+        return states;
+    }
+
+    @Test
+    public void testStartsAsAir() {
+        PaletteBlockStorage storage = new PaletteBlockStorage(100);
+        Assert.assertEquals(1, storage.getPaletteSize());
+        Assert.assertEquals(1, storage.getBitsPerEntry());
+        // 64 entries fit into a long with one bit each
+        Assert.assertEquals(2 * 8, storage.getDataSize());
+        for (int i = 0; i < storage.getLength(); i++) {
+            Assert.assertSame(air, storage.get(i));
+        }
+    }
+
+    @Test
+    public void testResizeKeepsEntries() {
+        BlockState[] states = mockStates(17);
+        PaletteBlockStorage storage = new PaletteBlockStorage(1000);
+        for (int added = 0; added < states.length; added++) {
+            // Every new state is written over a stripe, the rest keeps the older states
+            for (int i = added; i < storage.getLength(); i += states.length) {
+                storage.set(i, states[added]);
+            }
+            for (int i = 0; i < storage.getLength(); i++) {
+                int index = i % states.length;
+                Assert.assertSame(index <= added ? states[index] : air, storage.get(i));
+            }
+        }
+        // Air and 17 states need 5 bits
+        Assert.assertEquals(18, storage.getPaletteSize());
+        Assert.assertEquals(5, storage.getBitsPerEntry());
+        // Setting known states doesn't grow the palette
+        storage.set(0, air);
+        storage.set(1, states[16]);
+        Assert.assertEquals(18, storage.getPaletteSize());
+        Assert.assertSame(air, storage.get(0));
+        Assert.assertSame(states[16], storage.get(1));
+    }
+
+    @Test
+    public void testEntriesDontCrossLongs() {
+        BlockState[] states = mockStates(4);
+        PaletteBlockStorage storage = new PaletteBlockStorage(64);
+        for (int i = 0; i < states.length; i++) {
+            storage.set(i, states[i]);
+        }
+        // With 3 bits only 21 entries fit into a long, the last bit stays unused
+        Assert.assertEquals(3, storage.getBitsPerEntry());
+        Assert.assertEquals(4 * 8, storage.getDataSize());
+        storage.set(20, states[3]);
+        storage.set(21, states[2]);
+        storage.set(41, states[3]);
+        storage.set(42, states[1]);
+        storage.set(63, states[3]);
+        Assert.assertSame(states[3], storage.get(20));
+        Assert.assertSame(states[2], storage.get(21));
+        Assert.assertSame(states[3], storage.get(41));
+        Assert.assertSame(states[1], storage.get(42));
+        Assert.assertSame(states[3], storage.get(63));
+        // Overwriting an entry leaves its neighbours alone
+        storage.set(20, air);
+        storage.set(42, air);
+        Assert.assertSame(air, storage.get(20));
+        Assert.assertSame(states[2], storage.get(21));
+        Assert.assertSame(states[3], storage.get(41));
+        Assert.assertSame(air, storage.get(42));
+        Assert.assertSame(air, storage.get(19));
+        Assert.assertSame(air, storage.get(43));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        BlockState[] states = mockStates(2);
+        PaletteBlockStorage storage = new PaletteBlockStorage(10);
+        storage.set(3, states[0]);
+        PaletteBlockStorage copy = storage.copy();
+        storage.set(3, states[1]);
+        storage.set(4, states[1]);
+        Assert.assertSame(states[0], copy.get(3));
+        Assert.assertSame(air, copy.get(4));
+        Assert.assertEquals(2, copy.getPaletteSize());
+        Assert.assertEquals(3, storage.getPaletteSize());
+        // The copy grows on its own
+        copy.set(5, states[1]);
+        Assert.assertSame(states[1], copy.get(5));
+        Assert.assertSame(states[1], storage.get(4));
+    }
+
+}
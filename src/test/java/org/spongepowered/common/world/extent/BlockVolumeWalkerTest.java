@@ -0,0 +1,101 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.extent;
+
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.util.Axis;
+import org.spongepowered.api.util.DiscreteTransform3;
+import org.spongepowered.api.world.extent.BlockVolume;
+import org.spongepowered.api.world.extent.Extent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class BlockVolumeWalkerTest {
+
+    private final Map<Vector3i, BlockState> states = new HashMap<>();
+
+    private Extent mockExtent() {
+        Extent extent = mock(Extent.class);
+        when(extent.getBlock(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            return getState(new Vector3i((Integer) args[0], (Integer) args[1], (Integer) args[2]));
+        });
+        return extent;
+    }
+
+    private BlockState getState(Vector3i position) {
+        return this.states.computeIfAbsent(position, key -> mock(BlockState.class));
+    }
+
+    /**
+     * Walks the view and checks that every position is visited once with the
+     * block of the backing extent, without reading the blocks of the view.
+     */
+    private void assertWalksBackingExtent(BlockVolume view, Vector3i min, Vector3i max, DiscreteTransform3 inverse) {
+        Map<Vector3i, BlockState> visited = new HashMap<>();
+        BlockVolumeWalker.walk(view, min, max, (x, y, z, block) -> {
+            Vector3i position = new Vector3i(x, y, z);
+            Assert.assertEquals(position, position.max(min).min(max));
+            Assert.assertNull(visited.put(position, block));
+        });
+        Vector3i size = max.sub(min).add(Vector3i.ONE);
+        Assert.assertEquals(size.getX() * size.getY() * size.getZ(), visited.size());
+        for (Map.Entry<Vector3i, BlockState> entry : visited.entrySet()) {
+            Assert.assertSame(getState(inverse.transform(entry.getKey())), entry.getValue());
+        }
+        verify(view, never()).getBlock(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testWalkUnwrapsTransformView() {
+        Extent extent = mockExtent();
+        DiscreteTransform3 transform = DiscreteTransform3.fromRotation(1, Axis.Y).withTranslation(new Vector3i(100, 0, -50));
+        ExtentViewTransform view = mock(ExtentViewTransform.class, withSettings().extraInterfaces(BlockVolume.class));
+        when(view.getBackingExtent()).thenReturn(extent);
+        when(view.getTransform()).thenReturn(transform);
+        when(view.getInverseTransform()).thenReturn(transform.invert());
+        assertWalksBackingExtent((BlockVolume) view, new Vector3i(90, 4, -60), new Vector3i(120, 9, -33), transform.invert());
+    }
+
+    @Test
+    public void testWalkUnwrapsDownsizeView() {
+        Extent extent = mockExtent();
+        ExtentViewDownsize view = mock(ExtentViewDownsize.class, withSettings().extraInterfaces(BlockVolume.class));
+        when(view.getBackingExtent()).thenReturn(extent);
+        assertWalksBackingExtent((BlockVolume) view, new Vector3i(-20, 60, 5), new Vector3i(17, 63, 40), DiscreteTransform3.fromTranslation(Vector3i.ZERO));
+    }
+
+}
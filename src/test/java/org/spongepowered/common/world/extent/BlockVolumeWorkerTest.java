@@ -0,0 +1,75 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.extent;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.api.world.extent.ImmutableBlockVolume;
+import org.spongepowered.api.world.extent.MutableBlockVolume;
+import org.spongepowered.common.util.gen.AbstractBlockBuffer;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class BlockVolumeWorkerTest {
+
+    private static final Vector3i MIN = new Vector3i(-40, 0, 8);
+    private static final Vector3i MAX = new Vector3i(23, 47, 71);
+
+    private static AbstractBlockBuffer mockBuffer(Class<?> type) {
+        AbstractBlockBuffer buffer = mock(AbstractBlockBuffer.class, withSettings().extraInterfaces(type));
+        when(buffer.getBlockMin()).thenReturn(MIN);
+        when(buffer.getBlockMax()).thenReturn(MAX);
+        return buffer;
+    }
+
+    @Test
+    public void testOnlyImmutableBuffersAreParallel() {
+        Assert.assertTrue(BlockVolumeWorker.of(mockBuffer(ImmutableBlockVolume.class)).isParallel());
+        Assert.assertFalse(BlockVolumeWorker.of(mockBuffer(MutableBlockVolume.class)).isParallel());
+    }
+
+    @Test
+    public void testParallelReduceVisitsEveryBlockOnce() {
+        BlockVolumeWorker<AbstractBlockBuffer> worker = BlockVolumeWorker.of(mockBuffer(ImmutableBlockVolume.class));
+        Set<Vector3i> visited = ConcurrentHashMap.newKeySet();
+        int count = worker.reduce((volume, x, y, z, reduction) -> {
+            Assert.assertTrue(visited.add(new Vector3i(x, y, z)));
+            return reduction + 1;
+        }, Integer::sum, 0);
+        Vector3i size = MAX.sub(MIN).add(Vector3i.ONE);
+        Assert.assertEquals(size.getX() * size.getY() * size.getZ(), count);
+        Assert.assertEquals(count, visited.size());
+        for (Vector3i position : visited) {
+            Assert.assertEquals(position, position.max(MIN).min(MAX));
+        }
+    }
+
+}
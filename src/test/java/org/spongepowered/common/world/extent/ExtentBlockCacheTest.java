@@ -0,0 +1,153 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.extent;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldType;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.extent.Extent;
+import org.spongepowered.common.interfaces.block.IMixinBlock;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+
+public class ExtentBlockCacheTest {
+
+    private static IBlockState mockState(boolean forceUpdate) {
+        Block block = mock(Block.class, withSettings().extraInterfaces(IMixinBlock.class));
+        when(((IMixinBlock) block).forceUpdateBlockState()).thenReturn(forceUpdate);
+        IBlockState state = mock(IBlockState.class, withSettings().extraInterfaces(BlockState.class));
+        when(state.getBlock()).thenReturn(block);
+        return state;
+    }
+
+    private static Chunk mockChunk(int chunkX, int chunkZ, IBlockState state) throws ReflectiveOperationException {
+        ExtendedBlockStorage section = mock(ExtendedBlockStorage.class);
+        when(section.get(anyInt(), anyInt(), anyInt())).thenReturn(state);
+        ExtendedBlockStorage[] sections = new ExtendedBlockStorage[16];
+        Arrays.fill(sections, section);
+        Chunk chunk = mock(Chunk.class);
+        setPosition(chunk, "xPosition", chunkX);
+        setPosition(chunk, "zPosition", chunkZ);
+        when(chunk.isLoaded()).thenReturn(true);
+        when(chunk.getBlockStorageArray()).thenReturn(sections);
+        return chunk;
+    }
+
+    private static void setPosition(Chunk chunk, String name, int position) throws ReflectiveOperationException {
+        Field field = Chunk.class.getField(name);
+        field.setAccessible(true);
+        field.setInt(chunk, position);
+    }
+
+    private static World mockWorld(WorldType type) {
+        World world = mock(World.class, withSettings().extraInterfaces(Extent.class));
+        when(world.getWorldType()).thenReturn(type);
+        return world;
+    }
+
+    @Test
+    public void testLooksUpChunkOnce() throws ReflectiveOperationException {
+        IBlockState first = mockState(false);
+        IBlockState second = mockState(false);
+        World world = mockWorld(WorldType.DEFAULT);
+        Chunk firstChunk = mockChunk(0, -1, first);
+        Chunk secondChunk = mockChunk(1, -1, second);
+        when(world.getChunkFromChunkCoords(0, -1)).thenReturn(firstChunk);
+        when(world.getChunkFromChunkCoords(1, -1)).thenReturn(secondChunk);
+        ExtentBlockCache cache = new ExtentBlockCache(world);
+        for (int x = 0; x < 32; x++) {
+            for (int y = 0; y < 256; y += 15) {
+                Assert.assertSame(x < 16 ? first : second, cache.getBlock(x, y, -1 - x / 2));
+            }
+        }
+        Assert.assertSame(first, cache.getBlock(15, 0, -16));
+        verify(world, times(2)).getChunkFromChunkCoords(0, -1);
+        verify(world, times(1)).getChunkFromChunkCoords(1, -1);
+    }
+
+    @Test
+    public void testLooksUpUnloadedChunkAgain() throws ReflectiveOperationException {
+        IBlockState unloadedState = mockState(false);
+        IBlockState loadedState = mockState(false);
+        World world = mockWorld(WorldType.DEFAULT);
+        Chunk unloaded = mockChunk(2, 3, unloadedState);
+        Chunk loaded = mockChunk(2, 3, loadedState);
+        when(world.getChunkFromChunkCoords(2, 3)).thenReturn(unloaded, loaded);
+        ExtentBlockCache cache = new ExtentBlockCache(world);
+        Assert.assertSame(unloadedState, cache.getBlock(32, 64, 48));
+        when(unloaded.isLoaded()).thenReturn(false);
+        Assert.assertSame(loadedState, cache.getBlock(33, 64, 48));
+        Assert.assertSame(loadedState, cache.getBlock(34, 64, 48));
+        verify(world, times(2)).getChunkFromChunkCoords(2, 3);
+    }
+
+    @Test
+    public void testReadsActualState() throws ReflectiveOperationException {
+        IBlockState stored = mockState(true);
+        IBlockState actual = mockState(false);
+        World world = mockWorld(WorldType.DEFAULT);
+        Chunk chunk = mockChunk(0, 0, stored);
+        when(world.getChunkFromChunkCoords(0, 0)).thenReturn(chunk);
+        when(stored.getBlock().getActualState(any(IBlockState.class), any(IBlockAccess.class), eq(new BlockPos(5, 70, 9)))).thenReturn(actual);
+        Assert.assertSame(actual, new ExtentBlockCache(world).getBlock(5, 70, 9));
+    }
+
+    @Test
+    public void testDelegatesToWorld() {
+        BlockState outside = (BlockState) mockState(false);
+        World world = mockWorld(WorldType.DEFAULT);
+        when(((Extent) world).getBlock(anyInt(), anyInt(), anyInt())).thenReturn(outside);
+        ExtentBlockCache cache = new ExtentBlockCache(world);
+        // Blocks outside of the sections are left to the world
+        Assert.assertSame(outside, cache.getBlock(0, -1, 0));
+        Assert.assertSame(outside, cache.getBlock(0, 256, 0));
+        // As are all blocks of the debug world
+        World debugWorld = mockWorld(WorldType.DEBUG_WORLD);
+        when(((Extent) debugWorld).getBlock(anyInt(), anyInt(), anyInt())).thenReturn(outside);
+        Assert.assertSame(outside, new ExtentBlockCache(debugWorld).getBlock(0, 64, 0));
+        verify(world, never()).getChunkFromChunkCoords(anyInt(), anyInt());
+        verify(debugWorld, never()).getChunkFromChunkCoords(anyInt(), anyInt());
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.common.world.extent;
+
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3i;
+import net.minecraft.block.Block;
+import net.minecraft.init.Bootstrap;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.BiomeGenBase;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.world.biome.BiomeType;
+import org.spongepowered.api.world.extent.BiomeArea;
+import org.spongepowered.api.world.extent.BlockVolume;
+import org.spongepowered.common.interfaces.block.IMixinBlock;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ExtentBufferUtilTest {
+
+    // Unused block ids, so the vanilla blocks keep their states
+    private static final int FIRST_BLOCK = 4000;
+    private static final int BLOCK_COUNT = 3;
+    // The state worlds report for the block that forces updates
+    private static final char ACTUAL_ID = (char) (FIRST_BLOCK << 4 | 15);
+
+    private static final Map<Character, BlockState> STATES = new HashMap<>();
+    private static final BiomeType[] BIOMES = new BiomeType[32];
+    private static BlockState air;
+    private static Object vanillaAir;
+
+    @BeforeClass
+    public static void registerStates() throws ReflectiveOperationException {
+        Bootstrap.register();
+        // Air keeps the id 0, copies of empty sections rely on it
+        vanillaAir = Block.BLOCK_STATE_IDS.getByValue(0);
+        air = registerState((char) 0);
+        for (int block = FIRST_BLOCK; block < FIRST_BLOCK + BLOCK_COUNT; block++) {
+            IMixinBlock mixinBlock = (IMixinBlock) mock(Block.class, withSettings().extraInterfaces(IMixinBlock.class));
+            when(mixinBlock.forceUpdateBlockState()).thenReturn(block == FIRST_BLOCK);
+            Block.blockRegistry.register(block, new ResourceLocation("test", "block" + block), mixinBlock);
+            for (int meta = 0; meta < 2; meta++) {
+                registerState((char) (block << 4 | meta));
+            }
+        }
+        registerState(ACTUAL_ID);
+        Field biomeId = BiomeGenBase.class.getField("biomeID");
+        biomeId.setAccessible(true);
+        for (int id = 0; id < BIOMES.length; id++) {
+            BiomeGenBase biome = mock(BiomeGenBase.class, withSettings().extraInterfaces(BiomeType.class));
+            biomeId.setInt(biome, id);
+            BIOMES[id] = (BiomeType) biome;
+        }
+    }
+
+    @AfterClass
+    public static void restoreAir() {
+        Block.BLOCK_STATE_IDS.put(vanillaAir, 0);
+    }
+
+    private static BlockState registerState(char id) {
+        BlockState state = mock(BlockState.class);
+        Block.BLOCK_STATE_IDS.put(state, id);
+        STATES.put(id, state);
+        return state;
+    }
+
+    private static char getId(int sectionY, int index) {
+        return (char) ((FIRST_BLOCK + (index + sectionY) % BLOCK_COUNT) << 4 | index % 2);
+    }
+
+    /**
+     * Creates the sections of a chunk: the second one is empty and the
+     * fourth one was never created.
+     */
+    private static ExtendedBlockStorage[] mockSections() {
+        ExtendedBlockStorage[] sections = new ExtendedBlockStorage[16];
+        for (int sectionY = 0; sectionY < 3; sectionY++) {
+            char[] data = new char[4096];
+            for (int index = 0; index < data.length; index++) {
+                data[index] = getId(sectionY, index);
+            }
+            ExtendedBlockStorage section = mock(ExtendedBlockStorage.class);
+            when(section.isEmpty()).thenReturn(sectionY == 1);
+            when(section.getData()).thenReturn(data);
+            sections[sectionY] = section;
+        }
+        return sections;
+    }
+
+    private static BlockState getStoredState(int x, int y, int z) {
+        int sectionY = y >> 4;
+        if (sectionY == 1 || sectionY >= 3) {
+            return air;
+        }
+        return STATES.get(getId(sectionY, (y & 15) << 8 | (z & 15) << 4 | x & 15));
+    }
+
+    private static BlockState getActualState(int x, int y, int z) {
+        BlockState state = getStoredState(x, y, z);
+        return Block.BLOCK_STATE_IDS.get(state) >> 4 == FIRST_BLOCK ? STATES.get(ACTUAL_ID) : state;
+    }
+
+    private static BlockVolume mockVolume(boolean actual) {
+        BlockVolume volume = mock(BlockVolume.class);
+        when(volume.getBlock(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            return actual ? getActualState((Integer) args[0], (Integer) args[1], (Integer) args[2])
+                    : getStoredState((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+        });
+        return volume;
+    }
+
+    private static void assertSameCopy(BlockVolume expected, BlockVolume actual, Vector3i min, Vector3i max) {
+        Vector3i size = max.sub(min).add(Vector3i.ONE);
+        Assert.assertArrayEquals(ExtentBufferUtil.copyToArray(expected, min, max, size), ExtentBufferUtil.copyToArray(actual, min, max, size));
+    }
+
+    @Test
+    public void testCopyBlocksFromChunk() {
+        Chunk chunk = mock(Chunk.class, withSettings().extraInterfaces(BlockVolume.class));
+        ExtendedBlockStorage[] sections = mockSections();
+        when(chunk.getBlockStorageArray()).thenReturn(sections);
+        // Chunk volumes never look up the actual state
+        assertSameCopy(mockVolume(false), (BlockVolume) chunk, new Vector3i(18, 10, -13), new Vector3i(29, 55, -2));
+    }
+
+    @Test
+    public void testCopyBlocksFromWorld() {
+        World world = mock(World.class, withSettings().extraInterfaces(BlockVolume.class));
+        for (int chunkX = -1; chunkX <= 1; chunkX++) {
+            for (int chunkZ = 0; chunkZ <= 1; chunkZ++) {
+                Chunk chunk = mock(Chunk.class);
+                ExtendedBlockStorage[] sections = mockSections();
+                when(chunk.getBlockStorageArray()).thenReturn(sections);
+                when(world.getChunkFromChunkCoords(chunkX, chunkZ)).thenReturn(chunk);
+            }
+        }
+        BlockVolume volume = (BlockVolume) world;
+        when(volume.getBlock(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            return getActualState((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+        });
+        assertSameCopy(mockVolume(true), volume, new Vector3i(-5, 0, 3), new Vector3i(20, 63, 17));
+    }
+
+    private static int getFallbackBiome(int x, int z) {
+        return 16 + (x + z & 7);
+    }
+
+    private static int getStoredBiome(int index) {
+        return index % 7 == 0 ? -1 : index % 5;
+    }
+
+    @Test
+    public void testCopyBiomesFromWorld() {
+        byte[] biomes = new byte[256];
+        for (int index = 0; index < biomes.length; index++) {
+            biomes[index] = (byte) getStoredBiome(index);
+        }
+        Chunk chunk = mock(Chunk.class);
+        when(chunk.getBiomeArray()).thenReturn(biomes);
+        IChunkProvider provider = mock(IChunkProvider.class);
+        // Only the chunk at 0, 0 is loaded
+        when(provider.chunkExists(0, 0)).thenReturn(true);
+        World world = mock(World.class, withSettings().extraInterfaces(BiomeArea.class));
+        when(world.getChunkProvider()).thenReturn(provider);
+        when(world.getChunkFromChunkCoords(0, 0)).thenReturn(chunk);
+        BiomeArea area = (BiomeArea) world;
+        when(area.getBiome(anyInt(), anyInt())).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            return BIOMES[getFallbackBiome((Integer) args[0], (Integer) args[1])];
+        });
+        BiomeArea expected = mock(BiomeArea.class);
+        when(expected.getBiome(anyInt(), anyInt())).thenAnswer(invocation -> {
+            int x = (Integer) invocation.getArguments()[0];
+            int z = (Integer) invocation.getArguments()[1];
+            int biome = x >> 4 == 0 && z >> 4 == 0 ? getStoredBiome((z & 15) << 4 | x & 15) : -1;
+            return BIOMES[biome == -1 ? getFallbackBiome(x, z) : biome];
+        });
+        Vector2i min = new Vector2i(-3, 2);
+        Vector2i max = new Vector2i(20, 15);
+        Vector2i size = max.sub(min).add(Vector2i.ONE);
+        Assert.assertArrayEquals(ExtentBufferUtil.copyToArray(expected, min, max, size), ExtentBufferUtil.copyToArray(area, min, max, size));
+    }
+
+}